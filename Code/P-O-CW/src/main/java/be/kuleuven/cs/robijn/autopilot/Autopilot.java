@@ -101,6 +101,16 @@ public class Autopilot {
 		this.targetYRotation = targetYRotation;
 	}
 	
+	private Float targetAltitude = null;
+	
+	public Float getTargetAltitude() {
+		return targetAltitude;
+	}
+	
+	public void setTargetAltitude(Float targetAltitude) {
+		this.targetAltitude = targetAltitude;
+	}
+	
 	private boolean flag;
 	
 	/**
@@ -243,6 +253,11 @@ public class Autopilot {
 						}
 					}
 					
+					if ((this.flag == true) && (this.getTargetAltitude() != null) && (this.getFlightMode() == FlightMode.FULL_FLIGHT)) {
+						target = target.copy();
+						target.setEntry(1, this.getTargetAltitude());
+					}
+					
 					Angle XRotation = Angle.getXRotation(target, drone.getWorldPosition());
 					Angle YRotation;
 					if (this.flag == true)
@@ -817,20 +832,15 @@ public class Autopilot {
     	this.setFlightMode(FlightMode.ASCEND);
     }
     
-    public void preventCollisionFirst() {
-    	Angle yrotation = new Angle(40, Type.DEGREES);
-    	this.setTargetYRotation(yrotation);
-    	this.flag = true;
-    }
-    
-    public void preventCollisionSecond() {     
-    	Angle yrotation = new Angle(-40, Type.DEGREES);
-    	this.setTargetYRotation(yrotation);
+    public void preventCollision(Angle heading, Float altitude) {
+    	this.setTargetYRotation(heading);
+    	this.setTargetAltitude(altitude);
     	this.flag = true;
     }
     
     public void stopPrevention() {     
     	this.setTargetYRotation(null);
+    	this.setTargetAltitude(null);
     	this.flag = false;
     }
 	
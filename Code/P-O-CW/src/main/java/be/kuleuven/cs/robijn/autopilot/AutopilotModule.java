@@ -1,10 +1,7 @@
 package be.kuleuven.cs.robijn.autopilot;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -13,6 +10,8 @@ import be.kuleuven.cs.robijn.common.WorldObject;
 import be.kuleuven.cs.robijn.common.airports.Airport;
 import be.kuleuven.cs.robijn.common.airports.AirportPackage;
 import be.kuleuven.cs.robijn.common.airports.Gate;
+import be.kuleuven.cs.robijn.common.airports.PackageAssigner;
+import be.kuleuven.cs.robijn.common.airports.ReservationScheduler;
 import be.kuleuven.cs.robijn.gui.GUI;
 import be.kuleuven.cs.robijn.worldObjects.Drone;
 import interfaces.AutopilotInputs;
@@ -29,7 +28,7 @@ public class AutopilotModule {
         this.world = world;
 
         // Create a new autopilot for each drone in the world.
-        ArrayList<Drone> drones = world.getChildrenOfType(Drone.class);
+        List<Drone> drones = world.getChildrenOfType(Drone.class);
         int index = 0;
         for (Drone drone : drones) {
         	Autopilot autopilot = new Autopilot();
@@ -45,16 +44,20 @@ public class AutopilotModule {
             thread.setDaemon(true);
             return thread;
         });
+
+        reservationScheduler = new ReservationScheduler(world, Math.abs(new AutopilotSettings().getTargetVelocity()));
+        packageDispatcher = new PackageDispatcher(world);
     }
 
     public void deliverPackage(Airport fromAirport, Gate fromGate, Airport toAirport, Gate toGate) {
     	AirportPackage p = new AirportPackage(fromGate, toGate, this);
     	fromGate.setPackage(p);
     	this.world.addChild(p);
+    	packageDispatcher.packageAdded(p);
     	
 //    	float closestDistance = Float.POSITIVE_INFINITY;
 //    	Drone bestDrone = null;
-//    	ArrayList<Drone> drones = world.getChildrenOfType(Drone.class);
+//    	List<Drone> drones = world.getChildrenOfType(Drone.class);
 //		for (Drone drone : drones) {
 //			float distance = (float) fromGate.getWorldPosition().getDistance(drone.getWorldPosition());
 //			if (distance < closestDistance) {
@@ -65,41 +68,80 @@ public class AutopilotModule {
 //		autopilots.get(bestDrone).flyRoute(bestDrone, fromGate, toGate);
     }
     
+    /**
+     * Applies the deconfliction plan of the previous update and starts the deconfliction of the current state,
+     * which runs in parallel with the autopilot updates.
+     * A plan therefore reaches the autopilots one update after the state it was made from, which is
+     * small compared to the lookahead horizon of the conflict prediction.
+     */
     public void beforeUpdate() {
-    	Object[] collision = this.calculateFirstDroneCollision();
-        if (((collision != null) && (this.collision != null) && (collision[0] != this.collision[0])) || 
-        		((collision != null) && (this.collision != null) && (((Double)collision[1]) >= 5))) {
-        	Drone[] collisionDrones = (Drone[]) this.collision[0];
-        	Autopilot autopilot1 = autopilots.get(collisionDrones[0]);
-        	Autopilot autopilot2 = autopilots.get(collisionDrones[1]);
-        	autopilot1.stopPrevention();
-        	autopilot2.stopPrevention();
-        	this.collision = null;
-        	GUI.println("No imminent collisions.");
-        }
-        if ((collision != null) && (((Double)collision[1]) < 5)) {
-        	Drone[] collisionDrones = (Drone[]) collision[0];
-        	if (collision != this.collision)
-        		GUI.println("Preventing collision between drone" + collisionDrones[0].getDroneID()
-            			+ "and drone" + collisionDrones[1].getDroneID() + ".");
-        	this.collision = collision;
-        	Autopilot autopilot1 = autopilots.get(collisionDrones[0]);
-        	Autopilot autopilot2 = autopilots.get(collisionDrones[1]);
-        	autopilot1.preventCollisionFirst();
-        	autopilot2.preventCollisionSecond();
-        }
+    	List<Drone> drones = world.getChildrenOfType(Drone.class);
+    	if (pendingPlan != null) {
+    		try {
+    			applyPlan(drones, pendingPlan.get());
+    		} catch (InterruptedException | ExecutionException e) {
+    			throw new RuntimeException(e);
+    		}
+    	}
+
+    	// Copy the state of the drones, so the deconfliction does not read the world while it is updated.
+    	int amount = drones.size();
+    	double[] positions = new double[3*amount];
+    	double[] velocities = new double[3*amount];
+    	boolean[] canGiveWay = new boolean[amount];
+    	for (int i = 0; i < amount; i++) {
+    		Drone drone = drones.get(i);
+    		positions[3*i] = drone.getWorldX();
+    		positions[3*i + 1] = drone.getWorldY();
+    		positions[3*i + 2] = drone.getWorldZ();
+    		for (int k = 0; k < 3; k++)
+    			velocities[3*i + k] = drone.getVelocity().getEntry(k);
+    		canGiveWay[i] = autopilots.get(drone).getFlightMode() == FlightMode.FULL_FLIGHT;
+    	}
+    	pendingPlan = deconflictionThread.submit(() -> deconfliction.plan(positions, velocities, canGiveWay, amount));
+    }
+
+    private void applyPlan(List<Drone> drones, Deconfliction.Plan plan) {
+    	for (int i = 0; i < plan.getAmount(); i++) {
+    		Autopilot autopilot = autopilots.get(drones.get(i));
+    		if (plan.isAvoiding(i))
+    			autopilot.preventCollision(plan.getTargetHeading(i), plan.getTargetAltitude(i));
+    		else
+    			autopilot.stopPrevention();
+    	}
+    	for (ConflictPredictor.Conflict conflict : plan.getConflicts()) {
+    		if (conflict.isNew())
+    			GUI.println("Preventing collision between drone" + drones.get(conflict.getFirst()).getDroneID()
+    					+ "and drone" + drones.get(conflict.getSecond()).getDroneID() + ".");
+    	}
+    	if ((latestPlan != null) && ! latestPlan.getConflicts().isEmpty() && plan.getConflicts().isEmpty())
+    		GUI.println("No imminent collisions.");
+    	latestPlan = plan;
     }
 
     public void startTimeHasPassed(Drone drone, AutopilotInputs inputs) {
         // Get the autopilot that controls this drone
     	Autopilot autopilot = autopilots.get(drone);
+    	elapsedTime = inputs.getElapsedTime();
     	// Run the autopilot update on a separate thread in the threadpool
     	Future<AutopilotOutputs> task = threadPool.submit(() -> autopilot.timePassed(inputs));
     	// Store the task.
         autopilotTasks.put(drone, task);
     }
     
-    private Object[] collision = null;
+    private final Deconfliction deconfliction = new Deconfliction();
+    private final ExecutorService deconflictionThread = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Deconfliction Thread");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Future<Deconfliction.Plan> pendingPlan = null;
+    private volatile Deconfliction.Plan latestPlan = null;
+    //The elapsed time of the latest autopilot inputs
+    private volatile float elapsedTime = 0;
+    private final PackageAssigner packageAssigner = new PackageAssigner(() -> elapsedTime);
+    private final PackageDispatcher packageDispatcher;
+    private final ReservationScheduler reservationScheduler;
 
     public AutopilotOutputs completeTimeHasPassed(Drone drone) {
         try {
@@ -112,6 +154,7 @@ public class AutopilotModule {
 
     public void simulationEnded() throws IllegalArgumentException {
         threadPool.shutdown();
+        deconflictionThread.shutdown();
     }
     
     public void taxiToGateAndFly(Drone drone, Gate fromGate, Gate toGate) {        
@@ -133,49 +176,34 @@ public class AutopilotModule {
 //   	}
     }
     
-    public Object[] calculateFirstDroneCollision(){
-		WorldObject world = this.getWorld();
-		List<Drone> drones = world.getChildrenOfType(Drone.class);
-		Map<Drone[], Double> collisionDroneMap = new HashMap<>();
-		Double collisionTime;
-
-		for(int i = 0; i < drones.size(); i++){
-			for(int j = i+1; j < drones.size(); j++){
-				double deltaPosX = drones.get(i).getWorldPosition().getEntry(0)-drones.get(j).getWorldPosition().getEntry(0);
-				double deltaPosY = drones.get(i).getWorldPosition().getEntry(1)-drones.get(j).getWorldPosition().getEntry(1);
-				double deltaPosZ = drones.get(i).getWorldPosition().getEntry(2)-drones.get(j).getWorldPosition().getEntry(2);
-
-
-				double deltaVelX = drones.get(i).getVelocity().getEntry(0)-drones.get(j).getVelocity().getEntry(0);
-				double deltaVelY = drones.get(i).getVelocity().getEntry(1)-drones.get(j).getVelocity().getEntry(1);
-				double deltaVelZ = drones.get(i).getVelocity().getEntry(2)-drones.get(j).getVelocity().getEntry(2);
-
-				double deltaRR = Math.pow(deltaPosX, 2) + Math.pow(deltaPosY, 2) + Math.pow(deltaPosZ, 2);
-				double deltaVV = Math.pow(deltaVelX, 2) + Math.pow(deltaVelY, 2) + Math.pow(deltaVelZ, 2);
-				double deltaVR = (deltaVelX*deltaPosX)  + (deltaVelY*deltaPosY) +  (deltaVelZ*deltaPosZ);
-				double d = Math.pow(deltaVR, 2) - (deltaVV)*(deltaRR - Math.pow(5, 2));
-
-
-				if (deltaVR >= 0){
-					collisionTime =  Double.POSITIVE_INFINITY;
-				} else if (d < 0){
-					collisionTime = Double.POSITIVE_INFINITY;
-				} else {
-					collisionTime =  - ((deltaVR + Math.sqrt(d))/(deltaVV));
-				}
-				if (collisionTime != Double.POSITIVE_INFINITY) {
-					Drone[] collisionArray = {drones.get(i), drones.get(j)};
-					collisionDroneMap.put(collisionArray, collisionTime);
-				}
-			}
-		}
-		if (collisionDroneMap.isEmpty()) {
-			return null;
-		} else {
-			Drone[] firstCollisionDroneArray = Collections.min(collisionDroneMap.entrySet(), Map.Entry.comparingByValue()).getKey();
-			return new Object[] {firstCollisionDroneArray, collisionDroneMap.get(firstCollisionDroneArray)};
-		}
-	}
+    /**
+     * Returns the deconfliction plan that was applied last, or null if no plan was applied yet.
+     * The plan is immutable, so it can be read from any thread.
+     */
+    public Deconfliction.Plan getLatestPlan() {
+        return latestPlan;
+    }
+
+    /**
+     * Returns the assigner that assigns the waiting packages to the drones.
+     */
+    public PackageAssigner getPackageAssigner() {
+        return packageAssigner;
+    }
+
+    /**
+     * Returns the dispatcher that assigns the waiting packages when the packages, drones, runways or gates changed.
+     */
+    public PackageDispatcher getPackageDispatcher() {
+        return packageDispatcher;
+    }
+
+    /**
+     * Returns the scheduler that reserves the runways and gates for the flights of the drones.
+     */
+    public ReservationScheduler getReservationScheduler() {
+        return reservationScheduler;
+    }
 
 	public WorldObject getWorld() {
 		return this.world;
@@ -6,7 +6,6 @@ import be.kuleuven.cs.robijn.common.SimulationSettings.AirportDefinition;
 import be.kuleuven.cs.robijn.common.SimulationSettings.DroneDefinition;
 import be.kuleuven.cs.robijn.common.WorldObject;
 import be.kuleuven.cs.robijn.common.airports.Airport;
-import be.kuleuven.cs.robijn.common.airports.AirportPackage;
 import be.kuleuven.cs.robijn.common.airports.Gate;
 import be.kuleuven.cs.robijn.gui.ObservableAutoPilotConfig;
 import be.kuleuven.cs.robijn.worldObjects.Drone;
@@ -96,13 +95,9 @@ public class AutopilotModuleAdapter implements interfaces.AutopilotModule {
         
         if(firstDroneUpdate) {
         	module.beforeUpdate();
+        	module.getPackageDispatcher().dispatch(inputs.getElapsedTime());
         	firstDroneUpdate = false;
         }
-        
-		AirportPackage airpPack = this.getWorld().getFirstChildOfType(AirportPackage.class);
-		if(airpPack != null) {
-			airpPack.assignPackages();
-		}
 
         Drone drone = drones.get(droneIndex);
         module.startTimeHasPassed(drone, inputs);
@@ -0,0 +1,284 @@
+package be.kuleuven.cs.robijn.autopilot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import be.kuleuven.cs.robijn.common.math.SpatialHash;
+import be.kuleuven.cs.robijn.worldObjects.Drone;
+
+/**
+ * Predicts the conflicts between drones: pairs of drones that will come closer to each other than the conflict distance
+ * within the lookahead horizon, if they keep their current velocity.
+ *
+ * The drones are identified by their index, which must stay the same between updates.
+ * Every drone is put in a spatial hash at the middle of the path that it flies within the horizon,
+ * with the conflict distance plus the longest path as cell size. Two drones can only come in conflict if those
+ * midpoints are in the same or in neighbouring cells, so the cost of an update grows with the amount of
+ * nearby pairs instead of the square of the amount of drones.
+ * A conflict that is predicted in consecutive updates stays the same object, so a user can recognise
+ * the conflicts it is already resolving. The conflicts are kept in a priority queue on the time to conflict.
+ */
+public class ConflictPredictor {
+
+	/**
+	 * The default distance (in meters) between two drones under which they are in conflict.
+	 */
+	public static final double DEFAULT_CONFLICT_DISTANCE = 5;
+
+	/**
+	 * The default lookahead horizon (in seconds).
+	 */
+	public static final double DEFAULT_HORIZON = 5;
+
+	public ConflictPredictor() {
+		this(DEFAULT_CONFLICT_DISTANCE, DEFAULT_HORIZON);
+	}
+
+	/**
+	 * @param conflictDistance
+	 * 			The distance between two drones under which they are in conflict.
+	 * @param horizon
+	 * 			The time (in seconds) over which conflicts are predicted.
+	 * @throws IllegalArgumentException
+	 * 			The given distance or horizon is not positive and finite.
+	 */
+	public ConflictPredictor(double conflictDistance, double horizon) throws IllegalArgumentException {
+		if (! (conflictDistance > 0) || Double.isInfinite(conflictDistance))
+			throw new IllegalArgumentException("conflict distance must be positive and finite");
+		if (! (horizon > 0) || Double.isInfinite(horizon))
+			throw new IllegalArgumentException("horizon must be positive and finite");
+		this.conflictDistance = conflictDistance;
+		this.horizon = horizon;
+	}
+
+	private final double conflictDistance;
+	private final double horizon;
+
+	public double getConflictDistance() {
+		return this.conflictDistance;
+	}
+
+	public double getHorizon() {
+		return this.horizon;
+	}
+
+	/**
+	 * A predicted conflict between two drones.
+	 */
+	public static class Conflict implements Comparable<Conflict> {
+
+		private Conflict(int first, int second) {
+			this.first = first;
+			this.second = second;
+		}
+
+		/**
+		 * Create a copy of the given conflict, which is not changed by the next updates of the predictor.
+		 */
+		Conflict(Conflict toCopy) {
+			this(toCopy.first, toCopy.second);
+			this.timeToConflict = toCopy.timeToConflict;
+			this.timeToClosestApproach = toCopy.timeToClosestApproach;
+			this.missDistance = toCopy.missDistance;
+			this.age = toCopy.age;
+			this.lastUpdate = toCopy.lastUpdate;
+		}
+
+		private final int first;
+		private final int second;
+		private double timeToConflict;
+		private double timeToClosestApproach;
+		private double missDistance;
+		private int age = 0;
+		private long lastUpdate;
+
+		/**
+		 * Return the index of the first drone of this conflict, which is smaller than the index of the second drone.
+		 */
+		public int getFirst() {
+			return this.first;
+		}
+
+		/**
+		 * Return the index of the second drone of this conflict.
+		 */
+		public int getSecond() {
+			return this.second;
+		}
+
+		/**
+		 * Return the time (in seconds) until the drones come closer than the conflict distance,
+		 * or zero if they already are.
+		 */
+		public double getTimeToConflict() {
+			return this.timeToConflict;
+		}
+
+		/**
+		 * Return the time (in seconds) until the drones are closest to each other.
+		 */
+		public double getTimeToClosestApproach() {
+			return this.timeToClosestApproach;
+		}
+
+		/**
+		 * Return the smallest distance (in meters) between the drones if they keep their velocity.
+		 */
+		public double getMissDistance() {
+			return this.missDistance;
+		}
+
+		/**
+		 * Return the amount of consecutive updates before the last one in which this conflict was predicted as well.
+		 */
+		public int getAge() {
+			return this.age;
+		}
+
+		/**
+		 * Check whether this conflict was predicted for the first time in the last update.
+		 */
+		public boolean isNew() {
+			return this.age == 0;
+		}
+
+		@Override
+		public int compareTo(Conflict other) {
+			return Double.compare(this.timeToConflict, other.timeToConflict);
+		}
+	}
+
+	private final SpatialHash grid = new SpatialHash();
+	private double[] positions = new double[0];
+	private double[] velocities = new double[0];
+	private double[] midpoints = new double[0];
+
+	//The current conflicts, by pair of indices
+	private final Map<Long, Conflict> conflicts = new HashMap<>();
+	private final PriorityQueue<Conflict> queue = new PriorityQueue<>();
+	private long updateCount = 0;
+	private int lastCandidatePairCount = 0;
+
+	/**
+	 * Predict the conflicts between the given drones, from their current positions and velocities in world coordinates.
+	 */
+	public void update(List<Drone> drones) {
+		int amount = drones.size();
+		if (this.positions.length < 3*amount) {
+			this.positions = new double[3*amount];
+			this.velocities = new double[3*amount];
+		}
+		for (int i = 0; i < amount; i++) {
+			Drone drone = drones.get(i);
+			this.positions[3*i] = drone.getWorldX();
+			this.positions[3*i + 1] = drone.getWorldY();
+			this.positions[3*i + 2] = drone.getWorldZ();
+			for (int k = 0; k < 3; k++)
+				this.velocities[3*i + k] = drone.getVelocity().getEntry(k);
+		}
+		this.update(this.positions, this.velocities, amount);
+	}
+
+	/**
+	 * Predict the conflicts between the given drones.
+	 *
+	 * @param positions
+	 * 			The positions of the drones: {x0, y0, z0, x1, y1, z1, ...}.
+	 * @param velocities
+	 * 			The velocities of the drones, in the same layout as the positions.
+	 * @param amount
+	 * 			The amount of drones.
+	 */
+	public void update(double[] positions, double[] velocities, int amount) {
+		this.updateCount++;
+		if (this.midpoints.length < 3*amount)
+			this.midpoints = new double[3*amount];
+		double longestPath = 0;
+		for (int i = 0; i < 3*amount; i += 3) {
+			double vx = velocities[i], vy = velocities[i + 1], vz = velocities[i + 2];
+			longestPath = Math.max(longestPath, Math.sqrt(vx*vx + vy*vy + vz*vz) * this.horizon);
+			this.midpoints[i] = positions[i] + vx*this.horizon/2;
+			this.midpoints[i + 1] = positions[i + 1] + vy*this.horizon/2;
+			this.midpoints[i + 2] = positions[i + 2] + vz*this.horizon/2;
+		}
+		this.grid.build(this.midpoints, amount, this.conflictDistance + longestPath);
+		this.lastCandidatePairCount = this.grid.forEachNeighbourPair((i, j) -> this.predict(positions, velocities, i, j));
+
+		//Remove the conflicts that were not predicted again
+		Iterator<Conflict> iterator = this.conflicts.values().iterator();
+		while (iterator.hasNext()) {
+			Conflict conflict = iterator.next();
+			if (conflict.lastUpdate != this.updateCount)
+				iterator.remove();
+		}
+		//The times of all the conflicts changed, so the queue is rebuilt instead of updated per conflict
+		this.queue.clear();
+		this.queue.addAll(this.conflicts.values());
+	}
+
+	/**
+	 * Predict whether the drones i and j come in conflict within the horizon, and update their conflict.
+	 * The relative position is p + t*v, which is at the conflict distance D when
+	 * | (v . v)*t^2 + 2*(p . v)*t + (p . p) - D^2 = 0
+	 */
+	private void predict(double[] positions, double[] velocities, int i, int j) {
+		double px = positions[3*i] - positions[3*j];
+		double py = positions[3*i + 1] - positions[3*j + 1];
+		double pz = positions[3*i + 2] - positions[3*j + 2];
+		double vx = velocities[3*i] - velocities[3*j];
+		double vy = velocities[3*i + 1] - velocities[3*j + 1];
+		double vz = velocities[3*i + 2] - velocities[3*j + 2];
+		double rr = px*px + py*py + pz*pz;
+		double vv = vx*vx + vy*vy + vz*vz;
+		double vr = px*vx + py*vy + pz*vz;
+		double discriminant = vr*vr - vv*(rr - this.conflictDistance*this.conflictDistance);
+
+		//Drones that move away from each other, or that never come close enough, are not in conflict
+		if (vr >= 0 || discriminant < 0)
+			return;
+		double timeToConflict = Math.max(0, -(vr + Math.sqrt(discriminant)) / vv);
+		if (timeToConflict > this.horizon)
+			return;
+
+		long key = ((long) i << 32) | j;
+		Conflict conflict = this.conflicts.get(key);
+		if (conflict == null) {
+			conflict = new Conflict(i, j);
+			this.conflicts.put(key, conflict);
+		} else {
+			conflict.age++;
+		}
+		conflict.lastUpdate = this.updateCount;
+		conflict.timeToConflict = timeToConflict;
+		conflict.timeToClosestApproach = -vr / vv;
+		conflict.missDistance = Math.sqrt(Math.max(0, rr - vr*vr/vv));
+	}
+
+	/**
+	 * Return the conflict that happens first, or null if there are no conflicts within the horizon.
+	 */
+	public Conflict getFirstConflict() {
+		return this.queue.peek();
+	}
+
+	/**
+	 * Return all the conflicts within the horizon, the first conflict first.
+	 */
+	public List<Conflict> getConflicts() {
+		List<Conflict> result = new ArrayList<>(this.queue);
+		Collections.sort(result);
+		return result;
+	}
+
+	/**
+	 * Return the amount of pairs that the spatial hash passed to the exact prediction in the last update.
+	 */
+	public int getLastCandidatePairCount() {
+		return this.lastCandidatePairCount;
+	}
+}
@@ -0,0 +1,186 @@
+package be.kuleuven.cs.robijn.autopilot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import be.kuleuven.cs.robijn.common.math.Angle;
+
+/**
+ * Resolves all the predicted conflicts between drones at once.
+ *
+ * For every conflict one drone gives way, with a consistent right-of-way: only drones in full flight can give way,
+ * and if both drones can, the drone with the highest index gives way. A drone that gives way turns right
+ * by the heading offset and moves the altitude offset away from the drones it gives way to, measured from
+ * the heading and altitude at the start of the avoidance. A drone keeps avoiding until it is in no conflict anymore,
+ * so a drone that gives way in several conflicts gets a single manoeuvre.
+ */
+public class Deconfliction {
+
+	/**
+	 * The default offset (in degrees) of the heading of a drone that gives way.
+	 */
+	public static final float DEFAULT_HEADING_OFFSET = 40;
+
+	/**
+	 * The default offset (in meters) of the altitude of a drone that gives way.
+	 */
+	public static final float DEFAULT_ALTITUDE_OFFSET = 10;
+
+	/**
+	 * The lowest altitude (in meters) to which a drone descends to give way.
+	 */
+	public static final float MIN_ALTITUDE = 20;
+
+	public Deconfliction() {
+		this(new ConflictPredictor(), DEFAULT_HEADING_OFFSET, DEFAULT_ALTITUDE_OFFSET);
+	}
+
+	/**
+	 * @param predictor
+	 * 			The predictor of the conflicts.
+	 * @param headingOffset
+	 * 			The offset (in degrees) of the heading of a drone that gives way.
+	 * @param altitudeOffset
+	 * 			The offset (in meters) of the altitude of a drone that gives way.
+	 * @throws IllegalArgumentException
+	 * 			The predictor is null, or an offset is negative or not finite.
+	 */
+	public Deconfliction(ConflictPredictor predictor, float headingOffset, float altitudeOffset) throws IllegalArgumentException {
+		if (predictor == null)
+			throw new IllegalArgumentException("predictor cannot be null");
+		if (! (headingOffset >= 0) || Float.isInfinite(headingOffset) || ! (altitudeOffset >= 0) || Float.isInfinite(altitudeOffset))
+			throw new IllegalArgumentException("offsets must be finite and not negative");
+		this.predictor = predictor;
+		this.headingOffset = (float) Math.toRadians(headingOffset);
+		this.altitudeOffset = altitudeOffset;
+	}
+
+	private final ConflictPredictor predictor;
+	private final float headingOffset;
+	private final float altitudeOffset;
+
+	//The targets of the drones that are avoiding a conflict, or NaN
+	private float[] targetHeadings = new float[0];
+	private float[] targetAltitudes = new float[0];
+
+	public ConflictPredictor getConflictPredictor() {
+		return this.predictor;
+	}
+
+	/**
+	 * The manoeuvres of the drones after one pass of the deconfliction.
+	 */
+	public static class Plan {
+
+		private Plan(float[] targetHeadings, float[] targetAltitudes, List<ConflictPredictor.Conflict> conflicts) {
+			this.targetHeadings = targetHeadings;
+			this.targetAltitudes = targetAltitudes;
+			List<ConflictPredictor.Conflict> copies = new ArrayList<>(conflicts.size());
+			for (ConflictPredictor.Conflict conflict : conflicts)
+				copies.add(new ConflictPredictor.Conflict(conflict));
+			this.conflicts = Collections.unmodifiableList(copies);
+		}
+
+		private final float[] targetHeadings;
+		private final float[] targetAltitudes;
+		private final List<ConflictPredictor.Conflict> conflicts;
+
+		/**
+		 * Return the amount of drones in this plan.
+		 */
+		public int getAmount() {
+			return this.targetHeadings.length;
+		}
+
+		/**
+		 * Check whether the given drone has to give way.
+		 */
+		public boolean isAvoiding(int drone) {
+			return ! Float.isNaN(this.targetHeadings[drone]);
+		}
+
+		/**
+		 * Return the heading that the given drone has to fly to give way, or null if it does not have to give way.
+		 */
+		public Angle getTargetHeading(int drone) {
+			return this.isAvoiding(drone) ? new Angle(this.targetHeadings[drone]) : null;
+		}
+
+		/**
+		 * Return the altitude that the given drone has to fly to give way, or null if it does not have to give way.
+		 */
+		public Float getTargetAltitude(int drone) {
+			return this.isAvoiding(drone) ? this.targetAltitudes[drone] : null;
+		}
+
+		/**
+		 * Return the conflicts that were resolved by this plan, the first conflict first.
+		 * The conflicts are copies, so they are not changed by the next pass of the deconfliction.
+		 */
+		public List<ConflictPredictor.Conflict> getConflicts() {
+			return this.conflicts;
+		}
+	}
+
+	/**
+	 * Predict the conflicts between the given drones and decide which drones give way.
+	 *
+	 * @param positions
+	 * 			The positions of the drones: {x0, y0, z0, x1, y1, z1, ...}.
+	 * @param velocities
+	 * 			The velocities of the drones, in the same layout as the positions.
+	 * @param canGiveWay
+	 * 			Whether the drones are able to give way.
+	 * @param amount
+	 * 			The amount of drones.
+	 */
+	public Plan plan(double[] positions, double[] velocities, boolean[] canGiveWay, int amount) {
+		this.predictor.update(positions, velocities, amount);
+		List<ConflictPredictor.Conflict> conflicts = this.predictor.getConflicts();
+
+		boolean[] givesWay = new boolean[amount];
+		//Positive if the drone has to climb away from the drones it gives way to, weighted with the urgency of the conflicts
+		double[] climb = new double[amount];
+		for (ConflictPredictor.Conflict conflict : conflicts) {
+			int giver, other;
+			if (canGiveWay[conflict.getSecond()]) {
+				giver = conflict.getSecond();
+				other = conflict.getFirst();
+			} else if (canGiveWay[conflict.getFirst()]) {
+				giver = conflict.getFirst();
+				other = conflict.getSecond();
+			} else {
+				continue;
+			}
+			givesWay[giver] = true;
+			double weight = 1 / (1 + conflict.getTimeToConflict());
+			climb[giver] += (positions[3*giver + 1] >= positions[3*other + 1]) ? weight : -weight;
+		}
+
+		if (this.targetHeadings.length < amount) {
+			int previous = this.targetHeadings.length;
+			this.targetHeadings = Arrays.copyOf(this.targetHeadings, amount);
+			this.targetAltitudes = Arrays.copyOf(this.targetAltitudes, amount);
+			Arrays.fill(this.targetHeadings, previous, amount, Float.NaN);
+			Arrays.fill(this.targetAltitudes, previous, amount, Float.NaN);
+		}
+		for (int i = 0; i < amount; i++) {
+			if (! givesWay[i]) {
+				this.targetHeadings[i] = Float.NaN;
+				this.targetAltitudes[i] = Float.NaN;
+			} else if (Float.isNaN(this.targetHeadings[i])) {
+				//Start avoiding: turn right, which decreases the heading, and climb or descend
+				float heading = (float) Math.atan2(-velocities[3*i], -velocities[3*i + 2]);
+				this.targetHeadings[i] = heading - this.headingOffset;
+				float altitude = (float) positions[3*i + 1];
+				if (climb[i] >= 0 || altitude - this.altitudeOffset < MIN_ALTITUDE)
+					this.targetAltitudes[i] = altitude + this.altitudeOffset;
+				else
+					this.targetAltitudes[i] = altitude - this.altitudeOffset;
+			}
+		}
+		return new Plan(Arrays.copyOf(this.targetHeadings, amount), Arrays.copyOf(this.targetAltitudes, amount), conflicts);
+	}
+}
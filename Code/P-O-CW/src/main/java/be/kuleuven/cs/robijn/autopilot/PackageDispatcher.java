@@ -0,0 +1,171 @@
+package be.kuleuven.cs.robijn.autopilot;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+import be.kuleuven.cs.robijn.common.WorldObject;
+import be.kuleuven.cs.robijn.common.airports.Airport;
+import be.kuleuven.cs.robijn.common.airports.AirportPackage;
+import be.kuleuven.cs.robijn.common.airports.Gate;
+import be.kuleuven.cs.robijn.common.airports.Runway;
+import be.kuleuven.cs.robijn.worldObjects.Drone;
+
+/**
+ * Dispatches the waiting packages to the drones when something changed that can make an assignment possible:
+ * a package was added, a drone delivered its package or can be assigned again, or a runway or gate was freed.
+ *
+ * The events only mark the dispatcher as changed, and may come from the autopilot threads.
+ * The assignment itself runs on the thread that calls dispatch, at most once per call, so at most once per update.
+ * The waiting packages are kept in a queue that is updated by the state of the packages,
+ * so the gates do not have to be scanned for packages.
+ */
+public class PackageDispatcher {
+    //The packages that wait at a gate, in the order in which they were added
+    private final Set<AirportPackage> queue = new LinkedHashSet<>();
+    //Assigns the waiting packages at the given time
+    private final BiConsumer<List<AirportPackage>, Float> assigner;
+    private boolean changed = true;
+    //The time of the last call to dispatch, and of the last call before the first event that was not dispatched yet
+    private float lastTime = 0;
+    private float changedSince = 0;
+
+    private int eventCount = 0;
+    private int dispatchCount = 0;
+    private float lastDispatchLatency = 0;
+    private double totalDispatchLatency = 0;
+    private int queueDepth = 0;
+    private int maxQueueDepth = 0;
+
+    /**
+     * Create a dispatcher for the drones, gates and runways of the specified world.
+     */
+    public PackageDispatcher(WorldObject world) {
+        this(world, (packages, time) -> packages.get(0).assignPackages(packages, time));
+    }
+
+    /**
+     * Create a dispatcher for the drones, gates and runways of the specified world,
+     * that assigns the waiting packages with the specified assigner.
+     */
+    PackageDispatcher(WorldObject world, BiConsumer<List<AirportPackage>, Float> assigner) {
+        this.assigner = assigner;
+        for (Drone drone : world.getChildrenOfType(Drone.class)) {
+            drone.addAvailabilityEventHandler(d -> this.notifyChanged());
+        }
+        for (Airport airport : world.getChildrenOfType(Airport.class)) {
+            for (Gate gate : airport.getGates()) {
+                gate.addDroneRemovedEventHandler(g -> this.notifyChanged());
+            }
+            for (Runway runway : airport.getRunways()) {
+                runway.addDroneRemovedEventHandler(r -> this.notifyChanged());
+            }
+        }
+    }
+
+    /**
+     * Adds a package that waits at its origin to the queue.
+     */
+    public void packageAdded(AirportPackage p) {
+        synchronized (this) {
+            queue.add(p);
+        }
+        p.addStateUpdateEventHandler(this::packageStateUpdated);
+        notifyChanged();
+    }
+
+    private synchronized void packageStateUpdated(AirportPackage p) {
+        if (p.getState() != AirportPackage.State.AT_GATE) {
+            queue.remove(p);
+        }
+    }
+
+    /**
+     * Marks that something changed, so the packages are assigned again at the next dispatch.
+     */
+    public synchronized void notifyChanged() {
+        eventCount++;
+        if (!changed) {
+            changed = true;
+            changedSince = lastTime;
+        }
+    }
+
+    /**
+     * Assigns the waiting packages if something changed since the previous dispatch.
+     * @param time the current time of the simulation, in seconds.
+     * @return true if the packages were assigned.
+     */
+    public boolean dispatch(float time) {
+        List<AirportPackage> packages;
+        synchronized (this) {
+            lastTime = time;
+            if (!changed) {
+                return false;
+            }
+            changed = false;
+            packages = new ArrayList<>(queue);
+            queueDepth = packages.size();
+            maxQueueDepth = Math.max(maxQueueDepth, queueDepth);
+            if (packages.isEmpty()) {
+                return false;
+            }
+            lastDispatchLatency = time - changedSince;
+            totalDispatchLatency += lastDispatchLatency;
+            dispatchCount++;
+        }
+        assigner.accept(packages, time);
+        return true;
+    }
+
+    /**
+     * Returns the amount of events that were received, including the ones that did not cause a dispatch.
+     */
+    public synchronized int getEventCount() {
+        return eventCount;
+    }
+
+    /**
+     * Returns the amount of times the packages were assigned.
+     */
+    public synchronized int getDispatchCount() {
+        return dispatchCount;
+    }
+
+    /**
+     * Returns the simulation time (in seconds) between the first event and the dispatch that handled it, for the last dispatch.
+     */
+    public synchronized float getLastDispatchLatency() {
+        return lastDispatchLatency;
+    }
+
+    /**
+     * Returns the average dispatch latency (in seconds) over all dispatches, or 0 if there were none.
+     */
+    public synchronized double getAverageDispatchLatency() {
+        return (dispatchCount == 0) ? 0 : totalDispatchLatency / dispatchCount;
+    }
+
+    /**
+     * Returns the amount of waiting packages at the last dispatch.
+     */
+    public synchronized int getQueueDepth() {
+        return queueDepth;
+    }
+
+    /**
+     * Returns the largest amount of waiting packages at a dispatch.
+     */
+    public synchronized int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    /**
+     * Returns the amount of packages that wait at a gate now.
+     */
+    public synchronized int getWaitingPackageCount() {
+        return queue.size();
+    }
+}
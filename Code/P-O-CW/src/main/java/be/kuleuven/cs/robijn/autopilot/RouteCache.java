@@ -0,0 +1,119 @@
+package be.kuleuven.cs.robijn.autopilot;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * A cache of route geometry with a bounded amount of entries, of which the least recently used entry is evicted first.
+ *
+ * The entries are identified by a list of the objects they are computed from, such as an airport, a runway,
+ * a gate and a cruise height. Airports do not move, so their entries never become invalid.
+ * The cached values are shared, so they must not be modified by the callers.
+ * A cache can be used by multiple threads at once.
+ */
+public class RouteCache {
+
+	/**
+	 * The default maximum amount of entries.
+	 */
+	public static final int DEFAULT_CAPACITY = 4096;
+
+	private final int capacity;
+	private final LinkedHashMap<List<Object>, Object> entries;
+	private long hitCount = 0;
+	private long missCount = 0;
+	private long evictionCount = 0;
+
+	/**
+	 * Create a new cache with the given maximum amount of entries.
+	 *
+	 * @param capacity
+	 * 			The maximum amount of entries.
+	 * @throws IllegalArgumentException
+	 * 			The capacity is not positive.
+	 */
+	public RouteCache(int capacity) throws IllegalArgumentException {
+		if (capacity <= 0)
+			throw new IllegalArgumentException("capacity must be positive");
+		this.capacity = capacity;
+		this.entries = new LinkedHashMap<List<Object>, Object>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<List<Object>, Object> eldest) {
+				if (size() > RouteCache.this.capacity) {
+					evictionCount++;
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Create a new cache with the default capacity.
+	 */
+	public RouteCache() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Return the value of the given key, and compute and store it if it is not in this cache.
+	 *
+	 * @param compute
+	 * 			Computes the value of the key. The value must not be null.
+	 * @param key
+	 * 			The objects that the value is computed from.
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized <T> T get(Supplier<T> compute, Object... key) {
+		List<Object> list = Arrays.asList(key);
+		Object value = entries.get(list);
+		if (value != null) {
+			hitCount++;
+			return (T) value;
+		}
+		missCount++;
+		T computed = compute.get();
+		entries.put(list, computed);
+		return computed;
+	}
+
+	/**
+	 * Remove all entries, but keep the statistics.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public synchronized int getSize() {
+		return entries.size();
+	}
+
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	public synchronized long getEvictionCount() {
+		return evictionCount;
+	}
+
+	/**
+	 * Return the fraction of the lookups that were in this cache, or 0 if there were no lookups.
+	 */
+	public synchronized double getHitRate() {
+		long lookups = hitCount + missCount;
+		return (lookups == 0) ? 0 : (double) hitCount / lookups;
+	}
+}
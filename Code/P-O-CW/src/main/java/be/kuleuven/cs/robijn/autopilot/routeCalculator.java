@@ -19,6 +19,19 @@ public class routeCalculator {
 	}
 	
 	public static RealVector getAscendRoute(Drone drone, Airport fromAirport, Gate fromGate, Runway fromRunway, float hight) {
+		return getAscendRoute(drone.getWorldPosition(), fromAirport, fromRunway, hight);
+	}
+	
+	private static RealVector getAscendRoute(RealVector start, Airport fromAirport, Runway fromRunway, float hight) {
+		//The offset from the start only depends on the airport, so it is shared by all drones
+		RealVector offset = fromAirport.getRouteCache().get(() -> getAscendOffset(fromAirport, fromRunway, hight),
+				"ascend", fromRunway, hight);
+    	RealVector solution = offset.add(start);
+    	solution.setEntry(1, hight);
+    	return solution;
+	}
+	
+	private static RealVector getAscendOffset(Airport fromAirport, Runway fromRunway, float hight) {
 		RealVector orientation = fromRunway.getWorldPosition().subtract(fromAirport.getWorldPosition());
     	//orientation = orientation.add(
     	//		fromGate.getWorldPosition().subtract(fromAirport.getWorldPosition()));
@@ -26,14 +39,30 @@ public class routeCalculator {
     		orientation = orientation.mapMultiply(1/orientation.getNorm());
     	//orientation = new ArrayRealVector(new double[] {0, 0, -1}, false);
     			
-    	RealVector solution = orientation.mapMultiply(
+    	return orientation.mapMultiply(
     			(fromAirport.getSize().getX()/2) + (hight/Math.tan(Math.toRadians(5)))
-    			).add(drone.getWorldPosition());
-    	solution.setEntry(1, hight);
-    	return solution;
+    			);
 	}
 	
 	public static RealVector[] getLandRoute(Drone drone, Airport toAirport, Gate toGate, Runway toRunway, float hight) {
+		RealVector[] approach = getLandApproach(drone, toAirport, toGate, toRunway, hight);
+		RealVector[] solution = new RealVector[approach.length];
+		for (int i = 1; i < approach.length; i++)
+			solution[i] = approach[i].copy();
+		return solution;
+	}
+	
+	/**
+	 * Return the cached landing route, which must not be modified. The first waypoint is null.
+	 */
+	private static RealVector[] getLandApproach(Drone drone, Airport toAirport, Gate toGate, Runway toRunway, float hight) {
+		float tailSize = drone.getTailSize();
+		float groundY = -drone.getConfig().getWheelY() + drone.getConfig().getTyreRadius();
+		return toAirport.getRouteCache().get(() -> computeLandRoute(toAirport, toGate, toRunway, hight, tailSize, groundY),
+				"land", toGate, toRunway, hight, tailSize, groundY);
+	}
+	
+	private static RealVector[] computeLandRoute(Airport toAirport, Gate toGate, Runway toRunway, float hight, float tailSize, float groundY) {
 		AutopilotSettings settings = new AutopilotSettings();
 		float hightInterval = settings.getHeight();
 		RealVector orientation = toRunway.getWorldPosition().subtract(toAirport.getWorldPosition());
@@ -51,9 +80,9 @@ public class routeCalculator {
     		solution = new RealVector[7+1];	
     	
     	solution[solution.length-1] = orientation.mapMultiply(
-    			(toAirport.getSize().getX()/2) - (drone.getTailSize()/2)
+    			(toAirport.getSize().getX()/2) - (tailSize/2)
     			).add(toGate.getWorldPosition());
-    	solution[solution.length-1].setEntry(1, -drone.getConfig().getWheelY() + drone.getConfig().getTyreRadius());
+    	solution[solution.length-1].setEntry(1, groundY);
     	
     	if (hight < hightInterval) {
     		solution[solution.length-2] = orientation.mapMultiply(
@@ -111,8 +140,8 @@ public class routeCalculator {
 	public static Object[] getBestRunway(Drone drone, Airport fromAirport, Airport toAirport, Gate fromGate, Gate toGate,
 			Runway fromRunway, Runway toRunway1, Runway toRunway2, float height) {
 		RealVector ascendRoute = routeCalculator.getAscendRoute(drone, fromAirport, fromGate, fromRunway, height);
-		RealVector[] landRoute1 = routeCalculator.getLandRoute(drone, toAirport, toGate, toRunway1, height);
-		RealVector[] landRoute2 = routeCalculator.getLandRoute(drone, toAirport, toGate, toRunway2, height);
+		RealVector[] landRoute1 = routeCalculator.getLandApproach(drone, toAirport, toGate, toRunway1, height);
+		RealVector[] landRoute2 = routeCalculator.getLandApproach(drone, toAirport, toGate, toRunway2, height);
 		
 		if (landRoute1[1].getDistance(ascendRoute) < landRoute2[1].getDistance(ascendRoute))
 			return new Object[] {toRunway1, landRoute1[1].getDistance(ascendRoute)};
@@ -124,14 +153,37 @@ public class routeCalculator {
 		Runway toRunway1 = toAirport.getRunways()[0];
 		Runway toRunway2 = toAirport.getRunways()[1];
 		RealVector ascendRoute = routeCalculator.getAscendRoute(drone, fromAirport, fromGate, fromRunway, height);
-		RealVector[] landRoute1 = routeCalculator.getLandRoute(drone, toAirport, toGate, toRunway1, height);
-		RealVector[] landRoute2 = routeCalculator.getLandRoute(drone, toAirport, toGate, toRunway2, height);
+		RealVector[] landRoute1 = routeCalculator.getLandApproach(drone, toAirport, toGate, toRunway1, height);
+		RealVector[] landRoute2 = routeCalculator.getLandApproach(drone, toAirport, toGate, toRunway2, height);
 		
 		if (landRoute1[1].getDistance(ascendRoute) < landRoute2[1].getDistance(ascendRoute))
 			return new Object[] {toRunway1, landRoute1[1].getDistance(ascendRoute)};
 		return new Object[] {toRunway1, landRoute2[1].getDistance(ascendRoute)};
 	}
 	
+	/**
+	 * Return the length of the route between the given gates, as in getBestRunway, but measured from the
+	 * position of the given gate instead of the position of the drone.
+	 * The length is cached per gates, takeoff runway, height and airframe of the drone, so every drone
+	 * gets the same length for the same route, whichever drone asked it first.
+	 */
+	public static double getRouteDistance(Drone drone, Gate fromGate, Gate toGate) {
+		Runway fromRunway = routeCalculator.getFromRunway(drone, fromGate);
+		float height = drone.getHeight();
+		float tailSize = drone.getTailSize();
+		float groundY = -drone.getConfig().getWheelY() + drone.getConfig().getTyreRadius();
+		return fromGate.getAirport().getRouteCache().get(() -> computeRouteDistance(drone, fromGate, toGate, fromRunway, height),
+				"distance", fromGate, toGate, fromRunway, height, tailSize, groundY);
+	}
+	
+	private static double computeRouteDistance(Drone drone, Gate fromGate, Gate toGate, Runway fromRunway, float height) {
+		Airport toAirport = toGate.getAirport();
+		RealVector ascendRoute = getAscendRoute(fromGate.getWorldPosition(), fromGate.getAirport(), fromRunway, height);
+		RealVector[] landRoute1 = routeCalculator.getLandApproach(drone, toAirport, toGate, toAirport.getRunways()[0], height);
+		RealVector[] landRoute2 = routeCalculator.getLandApproach(drone, toAirport, toGate, toAirport.getRunways()[1], height);
+		return Math.min(landRoute1[1].getDistance(ascendRoute), landRoute2[1].getDistance(ascendRoute));
+	}
+	
 	public static List<Airport> orderAirports(Drone drone, Airport fromAirport, Gate fromGate, float height) {
 		WorldObject world = fromAirport.getParent();
 		List<Airport> bestAirports = new ArrayList<>();
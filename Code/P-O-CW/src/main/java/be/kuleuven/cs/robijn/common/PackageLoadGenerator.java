@@ -0,0 +1,293 @@
+package be.kuleuven.cs.robijn.common;
+
+import be.kuleuven.cs.robijn.common.airports.AirportPackage;
+import be.kuleuven.cs.robijn.common.airports.Gate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Adds packages to a simulation according to a random arrival process, to measure the throughput of a fleet.
+ *
+ * Every arriving package gets a random gate without a package as origin and a random gate on another airport
+ * as destination. If every gate has a package already, the arrival is dropped. The arrivals, gates and drops only
+ * depend on the seed, so a run can be repeated. The times at which every package was added, picked up and delivered
+ * are recorded in simulated seconds.
+ */
+public class PackageLoadGenerator {
+
+    /**
+     * The amount of simulated seconds in an hour.
+     */
+    public static final double SECONDS_PER_HOUR = 3600;
+
+    private final SimulationDriver driver;
+    private final ArrivalProcess process;
+    private final Random random;
+    private final List<PackageRecord> records = new ArrayList<>();
+    private double nextArrival;
+    private int droppedCount = 0;
+    private UpdateEventHandler updateEventHandler;
+
+    /**
+     * @param driver the simulation to add the packages to. Must not be null.
+     * @param process the process that generates the arrival times, which must not be shared with other generators.
+     * @param seed the seed of the random arrivals and gates.
+     */
+    public PackageLoadGenerator(SimulationDriver driver, ArrivalProcess process, long seed){
+        if(driver == null || process == null){
+            throw new IllegalArgumentException("driver and process cannot be null");
+        }
+        this.driver = driver;
+        this.process = process;
+        this.random = new Random(seed);
+        this.nextArrival = process.next(0, random);
+    }
+
+    /**
+     * Adds the packages of the arrivals up to the current time of the simulation after every update of the simulation.
+     */
+    public void start(){
+        if(updateEventHandler == null){
+            updateEventHandler = new UpdateEventHandler((inputs, outputs) -> update(), UpdateEventHandler.LOW_PRIORITY);
+            driver.addOnUpdateEventHandler(updateEventHandler);
+        }
+    }
+
+    public void stop(){
+        if(updateEventHandler != null){
+            driver.removeOnUpdateEventHandler(updateEventHandler);
+            updateEventHandler = null;
+        }
+    }
+
+    /**
+     * Adds the packages of the arrivals up to the current time of the simulation.
+     */
+    public void update(){
+        double time = driver.getSimulationTime();
+        while(nextArrival <= time){
+            addPackage(nextArrival);
+            nextArrival = process.next(nextArrival, random);
+        }
+    }
+
+    private void addPackage(double arrivalTime){
+        List<Gate> gates = driver.getTestBed().getWorldRepresentation().getDescendantsOfType(Gate.class);
+        List<Gate> origins = new ArrayList<>();
+        for(Gate gate : gates){
+            if(! gate.hasPackage()){
+                origins.add(gate);
+            }
+        }
+        if(origins.isEmpty()){
+            droppedCount++;
+            return;
+        }
+        Gate origin = origins.get(random.nextInt(origins.size()));
+
+        List<Gate> destinations = new ArrayList<>();
+        for(Gate gate : gates){
+            if(gate.getAirport() != origin.getAirport()){
+                destinations.add(gate);
+            }
+        }
+        //With a single airport, packages go to the other gate
+        if(destinations.isEmpty()){
+            for(Gate gate : origin.getAirport().getGates()){
+                if(gate != origin){
+                    destinations.add(gate);
+                }
+            }
+        }
+        Gate destination = destinations.get(random.nextInt(destinations.size()));
+
+        AirportPackage pkg = driver.addPackage(origin, destination);
+        PackageRecord record = new PackageRecord(pkg, arrivalTime, driver.getSimulationTime());
+        pkg.addStateUpdateEventHandler(p -> record.stateUpdated(driver.getSimulationTime()));
+        records.add(record);
+    }
+
+    /**
+     * Returns the records of the added packages, in the order in which they were added.
+     */
+    public List<PackageRecord> getRecords() {
+        return Collections.unmodifiableList(records);
+    }
+
+    /**
+     * Returns the amount of arrivals that were dropped because every gate had a package.
+     */
+    public int getDroppedCount() {
+        return droppedCount;
+    }
+
+    /**
+     * Returns the amount of packages that were delivered in the specified interval of simulated time, per simulated hour.
+     * Leave out the start of a run to measure the sustained throughput.
+     */
+    public double getDeliveriesPerHour(double fromTime, double toTime){
+        if(! (toTime > fromTime)){
+            throw new IllegalArgumentException("the interval must not be empty");
+        }
+        int deliveries = 0;
+        for(PackageRecord record : records){
+            if(record.isDelivered() && record.getDeliveryTime() >= fromTime && record.getDeliveryTime() < toTime){
+                deliveries++;
+            }
+        }
+        return deliveries / (toTime - fromTime) * SECONDS_PER_HOUR;
+    }
+
+    /**
+     * The times at which a package was added, picked up and delivered, in simulated seconds.
+     * The pickup and delivery time are -1 until they happened.
+     */
+    public static class PackageRecord {
+        private final AirportPackage airportPackage;
+        private final double arrivalTime, additionTime;
+        private double pickupTime = -1;
+        private double deliveryTime = -1;
+
+        private PackageRecord(AirportPackage airportPackage, double arrivalTime, double additionTime){
+            this.airportPackage = airportPackage;
+            this.arrivalTime = arrivalTime;
+            this.additionTime = additionTime;
+        }
+
+        private void stateUpdated(double time){
+            if(airportPackage.getState() == AirportPackage.State.IN_TRANSIT && pickupTime < 0){
+                pickupTime = time;
+            }else if(airportPackage.hasBeenDelivered() && deliveryTime < 0){
+                deliveryTime = time;
+            }
+        }
+
+        public AirportPackage getPackage() {
+            return airportPackage;
+        }
+
+        /**
+         * Returns the time of the arrival, which is at most one update before the addition time.
+         */
+        public double getArrivalTime() {
+            return arrivalTime;
+        }
+
+        public double getAdditionTime() {
+            return additionTime;
+        }
+
+        public double getPickupTime() {
+            return pickupTime;
+        }
+
+        public double getDeliveryTime() {
+            return deliveryTime;
+        }
+
+        public boolean isDelivered() {
+            return deliveryTime >= 0;
+        }
+    }
+
+    /**
+     * A random process that generates the times at which packages arrive.
+     */
+    public interface ArrivalProcess {
+
+        /**
+         * Returns the time of the first arrival after the specified time, in simulated seconds.
+         */
+        double next(double time, Random random);
+
+        /**
+         * Returns a Poisson process with the specified rate.
+         * @param packagesPerHour the average amount of arrivals per simulated hour. Must be positive.
+         */
+        static ArrivalProcess poisson(double packagesPerHour){
+            double rate = toRatePerSecond(packagesPerHour);
+            return (time, random) -> time + exponential(rate, random);
+        }
+
+        /**
+         * Returns a process that alternates between bursts and quiet periods with exponentially distributed durations,
+         * with Poisson arrivals at a high rate during a burst and at a low rate otherwise.
+         * @param packagesPerHour the average amount of arrivals per simulated hour. Must be positive.
+         * @param burstFactor the rate during a burst divided by the average rate. Must be at least 1, and the bursts
+         *                    must not bring more arrivals than the average rate over a burst and a quiet period.
+         * @param burstDuration the average duration of a burst in simulated seconds. Must be positive.
+         * @param quietDuration the average duration of a quiet period in simulated seconds. Must be positive.
+         */
+        static ArrivalProcess bursty(double packagesPerHour, double burstFactor, double burstDuration, double quietDuration){
+            double rate = toRatePerSecond(packagesPerHour);
+            if(! (burstDuration > 0) || ! (quietDuration > 0) || ! (burstFactor >= 1)
+                    || burstFactor * burstDuration > burstDuration + quietDuration){
+                throw new IllegalArgumentException("invalid burst parameters");
+            }
+            double burstRate = rate * burstFactor;
+            //The rate of the quiet periods, such that the average rate is the specified rate
+            double quietRate = (rate * (burstDuration + quietDuration) - burstRate * burstDuration) / quietDuration;
+
+            return new ArrivalProcess() {
+                private boolean inBurst = false;
+                private double switchTime = Double.NaN;
+
+                @Override
+                public double next(double time, Random random) {
+                    if(Double.isNaN(switchTime)){
+                        switchTime = time + exponential(1 / quietDuration, random);
+                    }
+                    while(true){
+                        double currentRate = inBurst ? burstRate : quietRate;
+                        double arrival = (currentRate > 0) ? time + exponential(currentRate, random) : Double.POSITIVE_INFINITY;
+                        if(arrival < switchTime){
+                            return arrival;
+                        }
+                        //The arrivals are memoryless, so continue from the switch in the other state
+                        time = switchTime;
+                        inBurst = ! inBurst;
+                        switchTime = time + exponential(1 / (inBurst ? burstDuration : quietDuration), random);
+                    }
+                }
+            };
+        }
+
+        /**
+         * Returns a Poisson process of which the rate follows a sine over the day, lowest at the start of the day,
+         * with arrivals generated by thinning.
+         * @param packagesPerHour the average amount of arrivals per simulated hour. Must be positive.
+         * @param amplitude the variation of the rate relative to the average rate, between 0 and 1.
+         * @param period the length of a day in simulated seconds. Must be positive.
+         */
+        static ArrivalProcess diurnal(double packagesPerHour, double amplitude, double period){
+            double rate = toRatePerSecond(packagesPerHour);
+            if(! (amplitude >= 0 && amplitude <= 1) || ! (period > 0)){
+                throw new IllegalArgumentException("invalid amplitude or period");
+            }
+            double maxRate = rate * (1 + amplitude);
+            return (time, random) -> {
+                while(true){
+                    time += exponential(maxRate, random);
+                    double currentRate = rate * (1 - amplitude * Math.cos(2 * Math.PI * time / period));
+                    if(random.nextDouble() * maxRate < currentRate){
+                        return time;
+                    }
+                }
+            };
+        }
+
+        static double toRatePerSecond(double packagesPerHour){
+            if(! (packagesPerHour > 0) || Double.isInfinite(packagesPerHour)){
+                throw new IllegalArgumentException("the rate must be positive and finite");
+            }
+            return packagesPerHour / SECONDS_PER_HOUR;
+        }
+
+        static double exponential(double rate, Random random){
+            return -Math.log(1 - random.nextDouble()) / rate;
+        }
+    }
+}
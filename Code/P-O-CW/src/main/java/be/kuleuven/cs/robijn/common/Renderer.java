@@ -5,8 +5,6 @@ import be.kuleuven.cs.robijn.worldObjects.OrthographicCamera;
 import be.kuleuven.cs.robijn.worldObjects.PerspectiveCamera;
 import org.apache.commons.math3.linear.RealVector;
 
-import java.util.concurrent.Semaphore;
-
 /**
  * Produces images of the 3D world being simulated.
  */
@@ -39,13 +37,12 @@ public interface Renderer extends AutoCloseable {
     Font loadFont(String fontName);
 
     /**
-     * Renders a new image of the world in its current state to the framebuffer, as viewed through the camera.
-     * @param worldRoot the root of the tree of world objects to be rendered.
+     * Renders a new image of the world in the state of the snapshot to the framebuffer, as viewed through the camera.
+     * @param snapshot the snapshot of the tree of world objects to be rendered.
      * @param frameBuffer the framebuffer to store the rendered image in.
      * @param camera the camera from which the world is viewed.
-     * @param lock a semaphore to acquire before accessing world state.
      */
-    RenderTask startRender(WorldObject worldRoot, FrameBuffer frameBuffer, Camera camera, Semaphore lock);
+    RenderTask startRender(WorldSnapshot snapshot, FrameBuffer frameBuffer, Camera camera);
 
     /**
      * Converts a screen-space vector into a world-space vector.
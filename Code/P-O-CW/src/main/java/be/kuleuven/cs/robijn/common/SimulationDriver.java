@@ -39,6 +39,11 @@ public class SimulationDriver {
     private final TreeSet<UpdateEventHandler> updateEventHandlers = new TreeSet<>();
 
     private Queue<AirportPackage> newPackages = new LinkedList<>();
+
+    //Simulated seconds between two autopilot updates, 0 to update the autopilot in every simulation update
+    private double autopilotControlInterval = 0;
+    private double secondsSinceAutopilotUpdate = 0;
+    private boolean autopilotHasRun = false;
     
     public SimulationDriver(SimulationSettings settings){
         this(settings, new ConstantIntervalStopwatch(0.03d), false);
@@ -99,32 +104,13 @@ public class SimulationDriver {
                 testBed.getRenderer().clearDebugObjects();
             }
 
-            //Run the autopilotmodule update
-            try {
-                while(!newPackages.isEmpty()){
-                    AirportPackage newPack = newPackages.poll();
-                    autoPilotModule.deliverPackage(
-                        newPack.getOrigin().getAirport().getId(), newPack.getOrigin().getId(),
-                        newPack.getDestination().getAirport().getId(), newPack.getDestination().getId()
-                    );
-                }
-    			
-                for(int i = 0; i < settings.getDrones().length; i++){
-                    autoPilotModule.startTimeHasPassed(i, latestAutopilotInputs[i]);
-                }
-
-                for(int i = 0; i < settings.getDrones().length; i++){
-                    latestAutopilotOutputs[i] = autoPilotModule.completeTimeHasPassed(i);
-                }
-        	} catch (IllegalArgumentException ex) {
-        		simulationCrashed = true;
-        		System.err.println("Autopilot failed!");
-        		ex.printStackTrace();
-        	} catch (Exception ex) {
-                simulationThrewException = true;
-        		System.err.println("Autopilot module threw an unexpected exception!");
-        		ex.printStackTrace();
-        	}
+            //Run the autopilotmodule update, at most at the autopilot control rate
+            secondsSinceAutopilotUpdate += stopwatch.getSecondsSinceLastUpdate();
+            if(!autopilotHasRun || secondsSinceAutopilotUpdate >= autopilotControlInterval){
+                secondsSinceAutopilotUpdate = autopilotControlInterval == 0 ? 0 : secondsSinceAutopilotUpdate % autopilotControlInterval;
+                autopilotHasRun = true;
+                runAutopilotUpdate();
+            }
 
             //Run the testbed update
         	try {
@@ -152,6 +138,9 @@ public class SimulationDriver {
 
             lastUpdateTimestamps.removeIf(timestamp -> System.currentTimeMillis() - timestamp > 1000);
             lastUpdateTimestamps.add(System.currentTimeMillis());
+        }else{
+            //The testbed didn't publish a snapshot, publish one so changes made through the GUI are rendered.
+            testBed.publishSnapshot();
         }
 
         //Invoke the event handlers
@@ -160,6 +149,35 @@ public class SimulationDriver {
         }
     }
 
+    private void runAutopilotUpdate(){
+        //Run the autopilotmodule update
+        try {
+            while(!newPackages.isEmpty()){
+                AirportPackage newPack = newPackages.poll();
+                autoPilotModule.deliverPackage(
+                    newPack.getOrigin().getAirport().getId(), newPack.getOrigin().getId(),
+                    newPack.getDestination().getAirport().getId(), newPack.getDestination().getId()
+                );
+            }
+			
+            for(int i = 0; i < settings.getDrones().length; i++){
+                autoPilotModule.startTimeHasPassed(i, latestAutopilotInputs[i]);
+            }
+
+            for(int i = 0; i < settings.getDrones().length; i++){
+                latestAutopilotOutputs[i] = autoPilotModule.completeTimeHasPassed(i);
+            }
+    	} catch (IllegalArgumentException ex) {
+    		simulationCrashed = true;
+    		System.err.println("Autopilot failed!");
+    		ex.printStackTrace();
+    	} catch (Exception ex) {
+            simulationThrewException = true;
+    		System.err.println("Autopilot module threw an unexpected exception!");
+    		ex.printStackTrace();
+    	}
+    }
+
     public AirportPackage addPackage(Gate sourceGate, Gate targetGate){
         if(sourceGate.hasPackage()){
             throw new IllegalStateException("The source gate already has a package");
@@ -198,6 +216,54 @@ public class SimulationDriver {
         return lastUpdateTimestamps.size();
     }
 
+    /**
+     * Returns the amount of simulated seconds since the start of the simulation.
+     */
+    public double getSimulationTime(){
+        return stopwatch.getSecondsSinceStart();
+    }
+
+    /**
+     * Returns how many seconds of simulated time the physics of the testbed is behind on the stopwatch.
+     */
+    public double getSecondsBehind(){
+        return testBed.getSecondsBehind();
+    }
+
+    /**
+     * Returns the amount of drones that the testbed has put to sleep because they stand still.
+     */
+    public int getSleepingDroneCount(){
+        return testBed.getSleepingDroneCount();
+    }
+
+    /**
+     * Sets the amount of fixed physics steps per simulated second of the testbed.
+     */
+    public void setPhysicsRate(double stepsPerSecond){
+        testBed.setPhysicsRate(stepsPerSecond);
+    }
+
+    public double getPhysicsRate(){
+        return testBed.getPhysicsRate();
+    }
+
+    /**
+     * Sets the amount of autopilot updates per simulated second.
+     * When this rate is lower than the update rate of the simulation, the latest autopilot outputs are reused
+     * until the autopilot runs again. A rate of 0 updates the autopilot in every simulation update.
+     */
+    public void setAutopilotControlRate(double updatesPerSecond){
+        if(updatesPerSecond < 0 || Double.isNaN(updatesPerSecond) || Double.isInfinite(updatesPerSecond)){
+            throw new IllegalArgumentException("control rate must be finite and not negative");
+        }
+        autopilotControlInterval = updatesPerSecond == 0 ? 0 : 1 / updatesPerSecond;
+    }
+
+    public double getAutopilotControlRate(){
+        return autopilotControlInterval == 0 ? 0 : 1 / autopilotControlInterval;
+    }
+
     public TestBed getTestBed(){
         return testBed;
     }
@@ -2,8 +2,6 @@ package be.kuleuven.cs.robijn.common;
 
 import interfaces.*;
 
-import java.util.concurrent.Semaphore;
-
 /**
  * Provides a simulation environment for the drone to fly in.
  */
@@ -17,6 +15,27 @@ public interface TestBed {
      */
 	boolean update(float secondsSinceStart, float secondsSinceLastUpdate, AutopilotOutputs[] output);
 	
+	/**
+	 * Returns how many seconds of simulated time the physics simulation is behind on the time given to update().
+	 */
+	double getSecondsBehind();
+
+	/**
+	 * Returns the amount of drones that stand still and are not being simulated until they are woken up.
+	 */
+	int getSleepingDroneCount();
+
+	/**
+	 * Sets the amount of fixed physics steps per simulated second.
+	 * @throws IllegalArgumentException the given rate is not positive and finite.
+	 */
+	void setPhysicsRate(double stepsPerSecond);
+
+	/**
+	 * Returns the amount of fixed physics steps per simulated second.
+	 */
+	double getPhysicsRate();
+
 	/**
 	 * Returns the latest world state as autopilot inputs for the drone wutg the specified index.
 	 */
@@ -34,8 +53,15 @@ public interface TestBed {
 	WorldObject getWorldRepresentation();
 
 	/**
-	 * Returns a semaphore that should be acquired before reading or writing to the testbed world state.
-	 * This includes usage of the renderer.
+	 * Returns the latest published snapshot of the world state.
+	 * The snapshot is immutable, so it can be read by other threads such as the renderer while the testbed is updating.
+	 */
+	WorldSnapshot getLatestSnapshot();
+
+	/**
+	 * Publishes a new snapshot of the world state, so changes made to the world outside of update() become visible to
+	 * the readers of getLatestSnapshot(). update() publishes a snapshot by itself.
+	 * This must be called by the thread that updates the testbed.
 	 */
-	Semaphore getWorldStateLock();
+	void publishSnapshot();
 }
@@ -1,6 +1,7 @@
 package be.kuleuven.cs.robijn.common;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 
 import be.kuleuven.cs.robijn.common.math.VectorMath;
@@ -13,10 +14,18 @@ public class WorldObject {
     private WorldObject parent;
 
     private ArrayList<WorldObject> children = new ArrayList<>();
-    private RealVector position = new ArrayRealVector(new double[]{0, 0, 0}, false);
+    //Children per class that was queried with getChildrenOfType, kept up to date by addChild and removeChild
+    private final Map<Class<?>, ChildIndex> childrenByType = new ConcurrentHashMap<>();
+    //Flattened list of this object and its descendants, null when the hierarchy below this object has changed
+    private volatile DescendantSnapshot descendants = null;
+    private double positionX = 0, positionY = 0, positionZ = 0;
     private Rotation rotation = new Rotation(new Vector3D(1, 0, 0), 0);
-    private RealVector scale = new ArrayRealVector(new double[]{1, 1, 1}, false);
-    private RealMatrix objectToWorldTransform = null;
+    private double scaleX = 1, scaleY = 1, scaleZ = 1;
+
+    //Incremented each time the relative position, rotation or scale changed, after the change was stored
+    private volatile int relativeTransformVersion = 0;
+    //The cached transformations, replaced as a whole when they are recalculated
+    private volatile Transform transform = null;
     private String name = "";
 
     public WorldObject(){}
@@ -59,43 +68,71 @@ public class WorldObject {
      * @param clazz the class of the child to return. Must not be null.
      */
     public <T extends WorldObject> T getFirstChildOfType(Class<T> clazz){
-        try {
-        	ArrayList<T> childrenOfType = getChildrenOfType(clazz);
-        	
-        	if(childrenOfType.size() == 0) {
-        		return null;
-        	}
-        	return childrenOfType.get(0);
-        	
-        }
-        
-        catch(IllegalArgumentException e) {
-        	throw e;
+        List<T> childrenOfType = getChildrenOfType(clazz);
+        if(childrenOfType.isEmpty()) {
+            return null;
         }
+        return childrenOfType.get(0);
     }
 
     /**
-     * Searches the direct children of this object.
-     * If no such object is found, null is returned.
-     * @param clazz the class of the child to return. Must not be null.
+     * Returns the direct children of this object that are an instance of the specified class, in the order they were added.
+     * The returned list is an immutable snapshot: children that are added or removed later are not reflected in it.
+     * @param clazz the class of the children to return. Must not be null.
      */
     @SuppressWarnings("unchecked")
-	public <T extends WorldObject> ArrayList<T> getChildrenOfType(Class<T> clazz){
-    	ArrayList<T> childrenOfType = new ArrayList<T>();
-    	
-    	if(clazz == null) {
-    		throw new IllegalArgumentException("clazz cannot be null");
-    	}
-    	
-    	
-    	for(WorldObject child : getChildren()) {
-    		if(clazz.isAssignableFrom(child.getClass())) {
-    			childrenOfType.add((T) child);
-    		}    		
-    	}
-    	return childrenOfType;
-    	
+    public <T extends WorldObject> List<T> getChildrenOfType(Class<T> clazz){
+        if(clazz == null) {
+            throw new IllegalArgumentException("clazz cannot be null");
+        }
+
+        ChildIndex index = childrenByType.get(clazz);
+        if(index == null){
+            index = childrenByType.computeIfAbsent(clazz, this::createChildIndex);
+        }
+        return (List<T>) index.children;
     }
+
+    private ChildIndex createChildIndex(Class<?> clazz){
+        ArrayList<WorldObject> childrenOfType = new ArrayList<>();
+        for(WorldObject child : children){
+            if(clazz.isInstance(child)){
+                childrenOfType.add(child);
+            }
+        }
+        return new ChildIndex(clazz, childrenOfType);
+    }
+
+    /**
+     * The children of one class, see getChildrenOfType.
+     */
+    private static final class ChildIndex {
+        private final Class<?> clazz;
+        //Replaced by a new list on every change, so a list that was handed out never changes
+        private volatile List<WorldObject> children;
+
+        private ChildIndex(Class<?> clazz, ArrayList<WorldObject> children){
+            this.clazz = clazz;
+            this.children = Collections.unmodifiableList(children);
+        }
+
+        private void add(WorldObject child){
+            if(clazz.isInstance(child)){
+                ArrayList<WorldObject> copy = new ArrayList<>(children);
+                copy.add(child);
+                children = Collections.unmodifiableList(copy);
+            }
+        }
+
+        private void remove(WorldObject child){
+            if(clazz.isInstance(child)){
+                ArrayList<WorldObject> copy = new ArrayList<>(children);
+                copy.remove(child);
+                children = Collections.unmodifiableList(copy);
+            }
+        }
+    }
+
     /**
      * Searches the direct children of this object and returns the first child with a matching name and type.
      * If no such object is found, null is returned.
@@ -121,10 +158,120 @@ public class WorldObject {
      * Returns a stream with this object, this objects children, their children and so on.
      */
     public Stream<WorldObject> getDescendantsStream(){
-        return Stream.concat(
-                Stream.of(this),
-                getChildren().stream().flatMap(WorldObject::getDescendantsStream)
-        );
+        return getDescendants().stream();
+    }
+
+    /**
+     * Returns an immutable list with this object, this objects children, their children and so on,
+     * in the same order as getDescendantsStream().
+     * The list is a snapshot that is cached until a child is added to or removed from this object or one of its descendants.
+     */
+    public List<WorldObject> getDescendants(){
+        return getDescendantSnapshot().all;
+    }
+
+    /**
+     * Returns an immutable list with the descendants of this object (including this object) that are an instance of
+     * the specified class, in the same order as getDescendants().
+     * The list is cached together with the snapshot of getDescendants().
+     * @param clazz the class of the descendants to return. Must not be null.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends WorldObject> List<T> getDescendantsOfType(Class<T> clazz){
+        if(clazz == null){
+            throw new IllegalArgumentException("clazz cannot be null");
+        }
+
+        DescendantSnapshot snapshot = getDescendantSnapshot();
+        List<WorldObject> ofType = snapshot.byType.get(clazz);
+        if(ofType == null){
+            ofType = snapshot.byType.computeIfAbsent(clazz, snapshot::filter);
+        }
+        return (List<T>) ofType;
+    }
+
+    /**
+     * Returns an iterator over this object and its descendants, in the same order as getDescendants().
+     * The hierarchy is walked depth-first without recursion and without building a list,
+     * so the hierarchy must not change during the iteration.
+     */
+    public Iterator<WorldObject> descendantsIterator(){
+        return new DescendantIterator(this);
+    }
+
+    private DescendantSnapshot getDescendantSnapshot(){
+        DescendantSnapshot snapshot = descendants;
+        if(snapshot == null){
+            ArrayList<WorldObject> all = new ArrayList<>();
+            Iterator<WorldObject> iterator = descendantsIterator();
+            while(iterator.hasNext()){
+                all.add(iterator.next());
+            }
+            snapshot = new DescendantSnapshot(all);
+            descendants = snapshot;
+        }
+        return snapshot;
+    }
+
+    /**
+     * Drops the cached descendants of this object and its ancestors.
+     */
+    private void invalidateDescendants(){
+        for(WorldObject obj = this; obj != null; obj = obj.parent){
+            obj.descendants = null;
+        }
+    }
+
+    /**
+     * A flattened list of descendants and the typed queries on it, see getDescendants and getDescendantsOfType.
+     */
+    private static final class DescendantSnapshot {
+        private final List<WorldObject> all;
+        private final Map<Class<?>, List<WorldObject>> byType = new ConcurrentHashMap<>();
+
+        private DescendantSnapshot(ArrayList<WorldObject> all){
+            this.all = Collections.unmodifiableList(all);
+        }
+
+        private List<WorldObject> filter(Class<?> clazz){
+            ArrayList<WorldObject> ofType = new ArrayList<>();
+            for(WorldObject obj : all){
+                if(clazz.isInstance(obj)){
+                    ofType.add(obj);
+                }
+            }
+            ofType.trimToSize();
+            return Collections.unmodifiableList(ofType);
+        }
+    }
+
+    /**
+     * A pre-order depth-first iterator that keeps the objects that still have to be visited on a stack.
+     */
+    private static final class DescendantIterator implements Iterator<WorldObject> {
+        private final ArrayDeque<WorldObject> stack = new ArrayDeque<>();
+
+        private DescendantIterator(WorldObject root){
+            stack.push(root);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty();
+        }
+
+        @Override
+        public WorldObject next() {
+            if(stack.isEmpty()){
+                throw new NoSuchElementException();
+            }
+            WorldObject obj = stack.pop();
+            //Push the children in reverse, so the first child is visited first
+            for(int i = obj.children.size() - 1; i >= 0; i--){
+                stack.push(obj.children.get(i));
+            }
+            return obj;
+        }
     }
 
     /**
@@ -140,7 +287,11 @@ public class WorldObject {
         }
 
         children.add(obj);
+        for(ChildIndex index : childrenByType.values()){
+            index.add(obj);
+        }
         obj.parent = this;
+        invalidateDescendants();
     }
 
     /**
@@ -168,7 +319,11 @@ public class WorldObject {
         }
 
         if(children.remove(obj)){
+            for(ChildIndex index : childrenByType.values()){
+                index.remove(obj);
+            }
             obj.parent = null;
+            invalidateDescendants();
             return true;
         }
         return false;
@@ -222,16 +377,18 @@ public class WorldObject {
             throw new IllegalArgumentException("vector cannot be null");
         }
 
-        this.position = vector;
-        invalidateObjectToWorldTransform();
+        this.positionX = vector.getEntry(0);
+        this.positionY = vector.getEntry(1);
+        this.positionZ = vector.getEntry(2);
+        invalidateRelativeTransform();
     }
 
     /**
      * Returns the position of this object, relative to its parent.
-     * @return a non-null vector that is immutable.
+     * @return a non-null vector that is a copy of the position of this object.
      */
     public RealVector getRelativePosition() {
-        return RealVector.unmodifiableRealVector(position);
+        return new ArrayRealVector(new double[]{positionX, positionY, positionZ}, false);
     }
 
     /**
@@ -244,11 +401,12 @@ public class WorldObject {
         }
 
         this.rotation = rotation;
-        invalidateObjectToWorldTransform();
+        invalidateRelativeTransform();
     }
 
     /**
      * Returns the rotation of this object, relative to its parent.
+     * Subclasses that override this method must call invalidateRelativeTransform() when the returned rotation changes.
      * @return a non-null rotation
      */
     public Rotation getRelativeRotation() {
@@ -259,7 +417,7 @@ public class WorldObject {
      * Returns the scale of this object as a 3D vector in object-space.
      */
     public RealVector getScale() {
-        return scale;
+        return new ArrayRealVector(new double[]{scaleX, scaleY, scaleZ}, false);
     }
 
     /**
@@ -271,58 +429,187 @@ public class WorldObject {
             throw new IllegalArgumentException("Invalid size vector");
         }
 
-        this.scale = scale;
-        invalidateObjectToWorldTransform();
+        this.scaleX = scale.getEntry(0);
+        this.scaleY = scale.getEntry(1);
+        this.scaleZ = scale.getEntry(2);
+        invalidateRelativeTransform();
     }
 
     /// WORLD TRANSFORM ///
 
-    private void invalidateObjectToWorldTransform(){
-        this.objectToWorldTransform = null;
-        for(WorldObject child : this.getChildren()){
-            child.invalidateObjectToWorldTransform();
+    /**
+     * Marks the transformation of this object relative to its parent as changed.
+     * The world transformations of this object and its descendants are recalculated the next time they are used,
+     * so this doesn't visit the descendants.
+     * Must be called after the change was stored, and by one thread at a time.
+     */
+    protected void invalidateRelativeTransform(){
+        this.relativeTransformVersion++;
+    }
+
+    /**
+     * The object to parent and object to world transformations of an object, as the first three rows of a 4x4 matrix,
+     * row-major. A transform is never changed after it was published, so it can be read from any thread.
+     */
+    private static final class Transform {
+        //The relative transform version of the object, and its parent and the transform of that parent, that were used
+        private final int relativeVersion;
+        private final WorldObject parent;
+        private final Transform parentTransform;
+        private final double[] objectToParent;
+        private final double[] objectToWorld;
+        private volatile RealMatrix objectToWorldMatrix = null;
+
+        private Transform(int relativeVersion, WorldObject parent, Transform parentTransform,
+                          double[] objectToParent, double[] objectToWorld){
+            this.relativeVersion = relativeVersion;
+            this.parent = parent;
+            this.parentTransform = parentTransform;
+            this.objectToParent = objectToParent;
+            this.objectToWorld = objectToWorld;
+        }
+    }
+
+    /**
+     * Returns the transformations of this object, recalculating them first if this object, one of its ancestors
+     * or the hierarchy has changed. A recalculated transform is computed in new arrays and published at once,
+     * so a thread that reads it while another thread recalculates it never sees a partially written transform.
+     */
+    private Transform getTransform(){
+        WorldObject parent = this.parent;
+        Transform parentTransform = parent == null ? null : parent.getTransform();
+        int relativeVersion = this.relativeTransformVersion;
+        Transform current = this.transform;
+        if(current != null && current.relativeVersion == relativeVersion
+                && current.parent == parent && current.parentTransform == parentTransform){
+            return current;
+        }
+
+        double[] objectToParent;
+        if(current != null && current.relativeVersion == relativeVersion){
+            objectToParent = current.objectToParent;
+        }else{
+            objectToParent = new double[12];
+            calculateObjectToParent(objectToParent);
+        }
+        double[] objectToWorld = objectToParent;
+        if(parent != null){
+            objectToWorld = new double[12];
+            multiply(parentTransform.objectToWorld, objectToParent, objectToWorld);
+        }
+        //If the object changed during the calculation, the old version is stored and the next call calculates it again
+        current = new Transform(relativeVersion, parent, parentTransform, objectToParent, objectToWorld);
+        this.transform = current;
+        return current;
+    }
+
+    /**
+     * Returns the affine object to world transformation of this object as the first three rows of a 4x4 matrix.
+     * The returned array must not be modified.
+     */
+    private double[] getObjectToWorldArray(){
+        return getTransform().objectToWorld;
+    }
+
+    /**
+     * Calculates translation * rotation * scale into the specified array, as the first three rows of a 4x4 matrix.
+     */
+    private void calculateObjectToParent(double[] m){
+        Rotation rotation = this.getRelativeRotation();
+        double q0 = rotation.getQ0(), q1 = rotation.getQ1(), q2 = rotation.getQ2(), q3 = rotation.getQ3();
+        //Same matrix as Rotation.getMatrix()
+        m[0] = (2*(q0*q0 + q1*q1) - 1) * scaleX;
+        m[1] = 2*(q1*q2 + q0*q3) * scaleY;
+        m[2] = 2*(q1*q3 - q0*q2) * scaleZ;
+        m[3] = positionX;
+        m[4] = 2*(q1*q2 - q0*q3) * scaleX;
+        m[5] = (2*(q0*q0 + q2*q2) - 1) * scaleY;
+        m[6] = 2*(q2*q3 + q0*q1) * scaleZ;
+        m[7] = positionY;
+        m[8] = 2*(q1*q3 + q0*q2) * scaleX;
+        m[9] = 2*(q2*q3 - q0*q1) * scaleY;
+        m[10] = (2*(q0*q0 + q3*q3) - 1) * scaleZ;
+        m[11] = positionZ;
+    }
+
+    /**
+     * Multiplies two affine transformations, stored as the first three rows of a 4x4 matrix.
+     */
+    static void multiply(double[] a, double[] b, double[] result){
+        for(int row = 0; row < 3; row++){
+            double a0 = a[row*4], a1 = a[row*4 + 1], a2 = a[row*4 + 2];
+            result[row*4] = a0*b[0] + a1*b[4] + a2*b[8];
+            result[row*4 + 1] = a0*b[1] + a1*b[5] + a2*b[9];
+            result[row*4 + 2] = a0*b[2] + a1*b[6] + a2*b[10];
+            result[row*4 + 3] = a0*b[3] + a1*b[7] + a2*b[11] + a[row*4 + 3];
         }
     }
 
+    /**
+     * Returns the 4x4 homogeneous matrix of an affine transformation that is stored as its first three rows.
+     */
+    static RealMatrix toMatrix(double[] transform){
+        return new Array2DRowRealMatrix(new double[][]{
+                {transform[0], transform[1], transform[2], transform[3]},
+                {transform[4], transform[5], transform[6], transform[7]},
+                {transform[8], transform[9], transform[10], transform[11]},
+                {0, 0, 0, 1}
+        }, false);
+    }
+
     /**
      * Returns an affine transformation matrix that transforms local coordinates to world coordinates.
-     * @return a non-null 4x4 homogeneous transformation matrix
+     * @return a non-null 4x4 homogeneous transformation matrix, that must not be modified
      */
     public RealMatrix getObjectToWorldTransform(){
-        if(objectToWorldTransform == null){
-            if(getParent() == null) {
-                objectToWorldTransform = getObjectToParentTransform();
-            }else{
-                objectToWorldTransform = getParent().getObjectToWorldTransform().multiply(getObjectToParentTransform());
-            }
+        Transform transform = getTransform();
+        RealMatrix matrix = transform.objectToWorldMatrix;
+        if(matrix == null){
+            matrix = toMatrix(transform.objectToWorld);
+            transform.objectToWorldMatrix = matrix;
         }
-        return objectToWorldTransform;
+        return matrix;
+    }
+
+    /**
+     * Copies the object to world transformation of this object, as the first three rows of a 4x4 matrix, into the specified array.
+     */
+    void copyObjectToWorldTransform(double[] target){
+        System.arraycopy(getObjectToWorldArray(), 0, target, 0, 12);
+    }
+
+    /**
+     * Copies the object to parent transformation of this object, as the first three rows of a 4x4 matrix, into the specified array.
+     * Unlike the world transformation, this is calculated from the relative position, rotation and scale only,
+     * without using or changing the cached transformations of this object and its ancestors.
+     */
+    void copyObjectToParentTransform(double[] target){
+        calculateObjectToParent(target);
     }
 
     public RealMatrix getObjectToParentTransform(){
-        //Create local affine scale matrix
-        RealMatrix scaleMatrix = new Array2DRowRealMatrix(new double[][]{
-                {getScale().getEntry(0), 0, 0, 0},
-                {0, getScale().getEntry(1), 0, 0},
-                {0, 0, getScale().getEntry(2), 0},
-                {0, 0, 0, 1}
-        }, false);
+        return toMatrix(getTransform().objectToParent);
+    }
 
-        //Create local affine transformation matrix
-        RealMatrix rotationMatrix = new Array2DRowRealMatrix(new double[4][4], false);
-        rotationMatrix.setEntry(3, 3, 1); //Identity
-        rotationMatrix.setSubMatrix(this.getRelativeRotation().getMatrix(), 0, 0);
-
-        //Create local affine translation matrix
-        RealVector localTranslation = getRelativePosition();
-        RealMatrix translationMatrix = new Array2DRowRealMatrix(new double[][]{
-                {1, 0, 0, localTranslation.getEntry(0)},
-                {0, 1, 0, localTranslation.getEntry(1)},
-                {0, 0, 1, localTranslation.getEntry(2)},
-                {0, 0, 0, 1}
-        }, false);
+    /**
+     * Returns the x-coordinate of the position of this object in world coordinates.
+     */
+    public double getWorldX() {
+        return getObjectToWorldArray()[3];
+    }
 
-        return translationMatrix.multiply(rotationMatrix.multiply(scaleMatrix));
+    /**
+     * Returns the y-coordinate of the position of this object in world coordinates.
+     */
+    public double getWorldY() {
+        return getObjectToWorldArray()[7];
+    }
+
+    /**
+     * Returns the z-coordinate of the position of this object in world coordinates.
+     */
+    public double getWorldZ() {
+        return getObjectToWorldArray()[11];
     }
 
     /**
@@ -330,11 +617,8 @@ public class WorldObject {
      * @return a non-null vector of size 3 that is immutable.
      */
     public RealVector getWorldPosition() {
-        //Get object to world transform
-        RealMatrix transform = getObjectToWorldTransform();
-        //Return the world coordinates of the local origin
-        RealVector origin = new ArrayRealVector(new double[]{0, 0, 0, 1}, false);
-        return VectorMath.homogeneousToCartesian(transform.operate(origin));
+        double[] transform = getObjectToWorldArray();
+        return new ArrayRealVector(new double[]{transform[3], transform[7], transform[11]}, false);
     }
 
     /**
@@ -342,12 +626,21 @@ public class WorldObject {
      * @return a non-null vector
      */
     public Rotation getWorldRotation() {
-        //Get object to world transform
-        RealMatrix transform = getObjectToWorldTransform();
+        return toRotation(getObjectToWorldArray());
+    }
+
+    /**
+     * Returns the rotation of an affine transformation that is stored as the first three rows of a 4x4 matrix.
+     */
+    static Rotation toRotation(double[] transform){
         //Cut out the translation and scaling bits.
-        RealMatrix rotationMatrix = transform.getSubMatrix(0, 2, 0, 2);
+        double[][] rotationMatrix = new double[][]{
+                {transform[0], transform[1], transform[2]},
+                {transform[4], transform[5], transform[6]},
+                {transform[8], transform[9], transform[10]}
+        };
         //Convert to rotation
-        return new Rotation(rotationMatrix.getData(), 0.0001d);
+        return new Rotation(rotationMatrix, 0.0001d);
     }
 
     public void rotateAround(RealVector rotationOrigin, Rotation rotation){
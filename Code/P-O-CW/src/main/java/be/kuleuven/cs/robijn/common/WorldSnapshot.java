@@ -0,0 +1,217 @@
+package be.kuleuven.cs.robijn.common;
+
+import be.kuleuven.cs.robijn.common.airports.Gate;
+import org.apache.commons.math3.geometry.euclidean.threed.Rotation;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.RealVector;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An immutable copy of the world transformations and the visual state of a tree of world objects,
+ * taken at the end of a simulation update.
+ * The testbed publishes a new snapshot after each update, so readers on other threads such as the renderer
+ * can use the latest snapshot without locking while the next update is running.
+ */
+public final class WorldSnapshot {
+    private final long version;
+    private final float secondsSinceStart;
+    private final List<Entry> entries;
+    private final IdentityHashMap<WorldObject, Entry> entriesByObject;
+    private final Map<Class<?>, List<Entry>> entriesByType = new ConcurrentHashMap<>();
+
+    private WorldSnapshot(long version, float secondsSinceStart, List<Entry> entries, IdentityHashMap<WorldObject, Entry> entriesByObject){
+        this.version = version;
+        this.secondsSinceStart = secondsSinceStart;
+        this.entries = Collections.unmodifiableList(entries);
+        this.entriesByObject = entriesByObject;
+    }
+
+    /**
+     * Takes a snapshot of the specified object and its descendants.
+     * This must be called by the thread that updates the world.
+     * @param root the root of the tree of world objects. Must not be null.
+     * @param version the version of the new snapshot, which should be larger than the version of previous snapshots.
+     * @param secondsSinceStart the simulated time of the world state.
+     */
+    public static WorldSnapshot capture(WorldObject root, long version, float secondsSinceStart){
+        if(root == null){
+            throw new IllegalArgumentException("root cannot be null");
+        }
+
+        List<WorldObject> objects = root.getDescendants();
+        ArrayList<Entry> entries = new ArrayList<>(objects.size());
+        IdentityHashMap<WorldObject, Entry> entriesByObject = new IdentityHashMap<>(objects.size());
+        for(WorldObject obj : objects){
+            Entry entry = new Entry(obj);
+            entries.add(entry);
+            entriesByObject.put(obj, entry);
+        }
+        return new WorldSnapshot(version, secondsSinceStart, entries, entriesByObject);
+    }
+
+    /**
+     * Returns the version of this snapshot. Snapshots published later have a larger version.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the simulated time at which this snapshot was taken, in seconds.
+     */
+    public float getSecondsSinceStart() {
+        return secondsSinceStart;
+    }
+
+    /**
+     * Returns an immutable list with an entry for the root and each of its descendants, in the order of WorldObject.getDescendants().
+     */
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Returns the entry of the specified object, or null if the object was not part of the world when this snapshot was taken.
+     */
+    public Entry getEntry(WorldObject obj) {
+        return entriesByObject.get(obj);
+    }
+
+    /**
+     * Returns the entry of the specified object, or an entry derived from the snapshot if the object was not part of
+     * the world when this snapshot was taken, such as a camera that was attached afterwards or that is not attached at all.
+     * The derived transformation is the one of the closest ancestor in this snapshot, combined with the relative
+     * transformations of the object and its ancestors that are not in this snapshot, which are read from the objects
+     * themselves. So the world transformations of the objects in the world are never read, and the entry can be
+     * used by other threads while the world is updated.
+     * @param obj the object. Must not be null.
+     */
+    public Entry resolveEntry(WorldObject obj) {
+        if(obj == null){
+            throw new IllegalArgumentException("obj cannot be null");
+        }
+
+        Entry entry = getEntry(obj);
+        if(entry != null){
+            return entry;
+        }
+        double[] objectToWorld = new double[12];
+        obj.copyObjectToParentTransform(objectToWorld);
+        double[] objectToParent = new double[12];
+        double[] result = new double[12];
+        for(WorldObject ancestor = obj.getParent(); ancestor != null; ancestor = ancestor.getParent()){
+            Entry ancestorEntry = getEntry(ancestor);
+            if(ancestorEntry != null){
+                WorldObject.multiply(ancestorEntry.objectToWorld, objectToWorld, result);
+                return new Entry(obj, result, false);
+            }
+            ancestor.copyObjectToParentTransform(objectToParent);
+            WorldObject.multiply(objectToParent, objectToWorld, result);
+            System.arraycopy(result, 0, objectToWorld, 0, 12);
+        }
+        return new Entry(obj, objectToWorld, false);
+    }
+
+    /**
+     * Returns an immutable list with the entries of the objects that are an instance of the specified class.
+     * @param clazz the class of the objects. Must not be null.
+     */
+    public List<Entry> getEntriesOfType(Class<? extends WorldObject> clazz) {
+        if(clazz == null){
+            throw new IllegalArgumentException("clazz cannot be null");
+        }
+
+        List<Entry> ofType = entriesByType.get(clazz);
+        if(ofType == null){
+            ofType = entriesByType.computeIfAbsent(clazz, c -> {
+                ArrayList<Entry> result = new ArrayList<>();
+                for(Entry entry : entries){
+                    if(c.isInstance(entry.getObject())){
+                        result.add(entry);
+                    }
+                }
+                return Collections.unmodifiableList(result);
+            });
+        }
+        return ofType;
+    }
+
+    /**
+     * The state of one world object in a snapshot.
+     */
+    public static final class Entry {
+        private final WorldObject object;
+        private final double[] objectToWorld = new double[12];
+        private final boolean hasPackage;
+        private volatile RealMatrix objectToWorldMatrix;
+
+        private Entry(WorldObject object){
+            this.object = object;
+            object.copyObjectToWorldTransform(objectToWorld);
+            this.hasPackage = object instanceof Gate && ((Gate) object).hasPackage();
+        }
+
+        private Entry(WorldObject object, double[] objectToWorld, boolean hasPackage){
+            this.object = object;
+            System.arraycopy(objectToWorld, 0, this.objectToWorld, 0, 12);
+            this.hasPackage = hasPackage;
+        }
+
+        /**
+         * Returns the object of this entry. Its type and name can be used safely,
+         * but its transformations may already have changed after the snapshot was taken.
+         */
+        public WorldObject getObject() {
+            return object;
+        }
+
+        public double getWorldX() {
+            return objectToWorld[3];
+        }
+
+        public double getWorldY() {
+            return objectToWorld[7];
+        }
+
+        public double getWorldZ() {
+            return objectToWorld[11];
+        }
+
+        /**
+         * Returns the position of the object in world coordinates when the snapshot was taken.
+         */
+        public RealVector getWorldPosition() {
+            return new ArrayRealVector(new double[]{objectToWorld[3], objectToWorld[7], objectToWorld[11]}, false);
+        }
+
+        /**
+         * Returns the rotation of the object relative to the world axis when the snapshot was taken, see WorldObject.getWorldRotation().
+         */
+        public Rotation getWorldRotation() {
+            return WorldObject.toRotation(objectToWorld);
+        }
+
+        /**
+         * Returns the object to world transformation of the object when the snapshot was taken, see WorldObject.getObjectToWorldTransform().
+         * @return a non-null 4x4 homogeneous transformation matrix, that must not be modified
+         */
+        public RealMatrix getObjectToWorldTransform() {
+            RealMatrix matrix = objectToWorldMatrix;
+            if(matrix == null){
+                matrix = WorldObject.toMatrix(objectToWorld);
+                objectToWorldMatrix = matrix;
+            }
+            return matrix;
+        }
+
+        /**
+         * Returns true if the object is a gate that had a package when the snapshot was taken.
+         */
+        public boolean hasPackage() {
+            return hasPackage;
+        }
+    }
+}
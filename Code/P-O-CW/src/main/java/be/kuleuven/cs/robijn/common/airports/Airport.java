@@ -1,5 +1,6 @@
 package be.kuleuven.cs.robijn.common.airports;
 
+import be.kuleuven.cs.robijn.autopilot.RouteCache;
 import be.kuleuven.cs.robijn.autopilot.routeCalculator;
 import be.kuleuven.cs.robijn.common.WorldObject;
 import be.kuleuven.cs.robijn.worldObjects.Drone;
@@ -8,9 +9,9 @@ import org.apache.commons.math3.geometry.euclidean.threed.Rotation;
 import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
 import org.apache.commons.math3.geometry.euclidean.twod.Vector2D;
 import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.RealMatrix;
 import org.apache.commons.math3.linear.RealVector;
 
-import java.awt.Polygon;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -23,6 +24,9 @@ public class Airport extends WorldObject {
     private double angle;
     
     public float width;
+
+    //The route geometry of the routes that take off from or land on this airport, see routeCalculator
+    private final RouteCache routeCache = new RouteCache();
     
 //    private ArrayList<Drone> currentDrones = new ArrayList<Drone>();
 
@@ -58,7 +62,7 @@ public class Airport extends WorldObject {
         this.width = width;
     }
     
-    public ArrayList<Airport>getAllAirports() {
+    public List<Airport> getAllAirports() {
     	return this.getParent().getChildrenOfType(Airport.class);
     }
     
@@ -75,6 +79,14 @@ public class Airport extends WorldObject {
         return id;
     }
 
+    /**
+     * Returns the cache of the routes that take off from or land on this airport.
+     * The cache lives as long as this airport, so it is not shared between simulations.
+     */
+    public RouteCache getRouteCache() {
+        return routeCache;
+    }
+
     public Vector2D getSize() {
         return size;
     }
@@ -207,70 +219,20 @@ public class Airport extends WorldObject {
      * Get the airport at the given position
      */
 	public Airport getAirportAt(RealVector position) {
-		for(Airport airport : this.getAllAirports()) {
-			if(airport.isOnAirport(position)) {
-				return airport;
-			}
-		}
-		return null;
+		return AirportIndex.of(this.getParent()).getAirportAt(position.getEntry(0), position.getEntry(2));
 	}
 	
 	/**
 	 * Check if the given location is on (or above) the given airport
 	 */
 	public boolean isOnAirport(RealVector place) {
-//		Vector2D airport2DPos = new Vector2D(this.getXPositionMiddle(), this.getZPositionMiddle());
-//		Vector2D airportSize = this.getSize();
-//		double angle = this.getAngle() + Math.PI;
-		Vector2D positionToCheck = new Vector2D(place.getEntry(0), place.getEntry(2));
-		
-//		Vector2D up = new Vector2D(airportSize.getX()/2, new Vector2D(-Math.cos(angle), -Math.sin(angle)));		
-//		Vector2D down = new Vector2D(airportSize.getX()/2, new Vector2D(Math.cos(angle), Math.sin(angle)));		
-//		Vector2D right = new Vector2D(airportSize.getY()/2, new Vector2D(-Math.sin(angle), Math.cos(angle)));		
-//		Vector2D left = new Vector2D(airportSize.getY()/2, new Vector2D(Math.sin(angle), -Math.cos(angle)));
-		RealVector orientation11 = this.getRunways()[0].getWorldPosition().subtract(this.getWorldPosition());
-		if (orientation11.getNorm() != 0)
-			orientation11 = orientation11.mapMultiply((this.getSize().getX()/2)/orientation11.getNorm());
-		RealVector orientation111 = this.getGates()[0].getWorldPosition().subtract(this.getWorldPosition());
-		if (orientation111.getNorm() != 0)
-			orientation111 = orientation111.mapMultiply((this.getSize().getY()/2)/orientation111.getNorm());
-		RealVector orientation222 = this.getGates()[1].getWorldPosition().subtract(this.getWorldPosition());
-		if (orientation222.getNorm() != 0)
-			orientation222 = orientation222.mapMultiply((this.getSize().getY()/2)/orientation222.getNorm());
-		RealVector orientation12 = this.getRunways()[1].getWorldPosition().subtract(this.getWorldPosition());
-		if (orientation12.getNorm() != 0)
-			orientation12 = orientation12.mapMultiply((this.getSize().getX()/2)/orientation12.getNorm());
-		RealVector upRight = orientation111.add(orientation11).add(this.getWorldPosition());
-		RealVector upLeft = orientation222.add(orientation11).add(this.getWorldPosition());
-		RealVector downRight = orientation111.add(orientation12).add(this.getWorldPosition());
-		RealVector downLeft = orientation222.add(orientation12).add(this.getWorldPosition());
-//		Vector2D rightUpCorner = airport2DPos.add(up).add(right);
-//		Vector2D rightDownCorner = airport2DPos.add(up).add(left);
-//		Vector2D leftDownCorner = airport2DPos.add(down).add(left);
-//		Vector2D leftUpCorner = airport2DPos.add(down).add(right);
-		
-//		Vector2D leftUpCorner = airport2DPos.add(up).add(right);
-//		Vector2D leftDownCorner = airport2DPos.add(up).add(left);
-//		Vector2D rightDownCorner = airport2DPos.add(down).add(left);
-//		Vector2D rightUpCorner = airport2DPos.add(down).add(right);
-		
-//		//The rectangle consists out of four vectors. If the positionToCheck is left of all four vectors, it's located within the rectangle's area.
-//		if ( Math.atan2(leftDownCorner.getY()-leftUpCorner.getY(), leftDownCorner.getX() - leftUpCorner.getX()) >= Math.atan2(positionToCheck.getY()-leftUpCorner.getY(), positionToCheck.getX()-leftUpCorner.getX()) &&
-//				Math.atan2(rightDownCorner.getY()-leftDownCorner.getY(), rightDownCorner.getX() - leftDownCorner.getX()) >= Math.atan2(positionToCheck.getY()-leftDownCorner.getY(), positionToCheck.getX()-leftDownCorner.getX()) &&
-//				Math.atan2(rightUpCorner.getY()-rightDownCorner.getY(), rightUpCorner.getX() - rightDownCorner.getX()) >= Math.atan2(positionToCheck.getY()-rightDownCorner.getY(), positionToCheck.getX()-rightDownCorner.getX()) &&
-//				Math.atan2(leftUpCorner.getY()-rightUpCorner.getY(), leftUpCorner.getX() - rightUpCorner.getX()) >= Math.atan2(positionToCheck.getY()-rightUpCorner.getY(), positionToCheck.getX()-rightUpCorner.getX()) ) {
-//			return true;
-//		}
-//		return false;
-		
-		int[] xPos = {(int) upRight.getEntry(0), (int) upLeft.getEntry(0), (int) downLeft.getEntry(0), (int) downRight.getEntry(0)};
-		int[] yPos = {(int) upRight.getEntry(2), (int) upLeft.getEntry(2), (int) downLeft.getEntry(2), (int) downRight.getEntry(2)};
-		
-		
-		Polygon airportPolygon = new Polygon(xPos, yPos, 4);
-		
-		return airportPolygon.contains(positionToCheck.getX(), positionToCheck.getY());
-
+		//Coordinates of the location along the runways and along the gates of this airport
+		RealMatrix transform = this.getObjectToWorldTransform();
+		double dx = place.getEntry(0) - this.getWorldX();
+		double dz = place.getEntry(2) - this.getWorldZ();
+		double alongRunways = dx*transform.getEntry(0, 0) + dz*transform.getEntry(2, 0);
+		double alongGates = dx*transform.getEntry(0, 2) + dz*transform.getEntry(2, 2);
+		return Math.abs(alongRunways) < this.getSize().getX()/2 && Math.abs(alongGates) < this.getSize().getY()/2;
 	}
 	
     public double getAngle() {
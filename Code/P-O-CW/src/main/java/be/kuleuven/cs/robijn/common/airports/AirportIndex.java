@@ -0,0 +1,199 @@
+package be.kuleuven.cs.robijn.common.airports;
+
+import be.kuleuven.cs.robijn.common.WorldObject;
+import org.apache.commons.math3.linear.RealMatrix;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Function;
+
+/**
+ * A spatial index of the airports of a world, and of their gates and runways, for point queries on the ground plane.
+ *
+ * Every airport, gate and runway is stored as a rectangle in the XZ-plane, which is put in the cells of a uniform grid
+ * that it overlaps. A query only tests the rectangles in the cell of the point, so it takes constant time on average
+ * instead of time proportional to the amount of airports.
+ * The index is built from the positions of the airports when it is created, so the airports must not move afterwards.
+ */
+public final class AirportIndex {
+
+    private static final Map<WorldObject, AirportIndex> indices = new WeakHashMap<>();
+
+    private final int airportCount;
+    private final RectangleGrid<Airport> airports;
+    private final RectangleGrid<Gate> gates;
+    private final RectangleGrid<Runway> runways;
+
+    private AirportIndex(List<Airport> airportList){
+        this.airportCount = airportList.size();
+
+        List<Gate> gateList = new ArrayList<>();
+        List<Runway> runwayList = new ArrayList<>();
+        for(Airport airport : airportList){
+            for(Gate gate : airport.getGates()){
+                gateList.add(gate);
+            }
+            for(Runway runway : airport.getRunways()){
+                runwayList.add(runway);
+            }
+        }
+
+        airports = new RectangleGrid<>(airportList, a -> new Rectangle(a, a.getSize().getX()/2, a.getSize().getY()/2, true));
+        runways = new RectangleGrid<>(runwayList, r -> new Rectangle(r, r.getSize().getX()/2, r.getSize().getY()/2, true));
+        //Same area as Gate.isDroneAbove: axis aligned, and twice the size of the gate
+        gates = new RectangleGrid<>(gateList, g -> new Rectangle(g, g.getSize().getX(), g.getSize().getY(), false));
+    }
+
+    /**
+     * Returns the index of the airports that are children of the specified world.
+     * The index is built on the first call, and is built again when airports were added or removed.
+     * @param world the world that contains the airports. Must not be null.
+     */
+    public static AirportIndex of(WorldObject world){
+        if(world == null){
+            throw new IllegalArgumentException("world cannot be null");
+        }
+
+        List<Airport> airportList = world.getChildrenOfType(Airport.class);
+        synchronized (indices){
+            AirportIndex index = indices.get(world);
+            if(index == null || index.airportCount != airportList.size()){
+                index = new AirportIndex(new ArrayList<>(airportList));
+                indices.put(world, index);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Returns the first airport, in the order of the children of the world, that contains the specified point.
+     * @return the airport, or null if the point is not on an airport.
+     */
+    public Airport getAirportAt(double x, double z){
+        return airports.getFirstAt(x, z);
+    }
+
+    /**
+     * Returns the first runway that contains the specified point, or null if there is none.
+     */
+    public Runway getRunwayAt(double x, double z){
+        return runways.getFirstAt(x, z);
+    }
+
+    /**
+     * Returns the first gate above which a drone at the specified point is, see Gate.isDroneAbove.
+     * @return the gate, or null if the point is not above a gate.
+     */
+    public Gate getGateAt(double x, double z){
+        return gates.getFirstAt(x, z);
+    }
+
+    /**
+     * A rectangle in the XZ-plane, with its center and its half extents along the local X- and Z-axis of an object.
+     */
+    static class Rectangle {
+        final double centerX, centerZ;
+        //The local X-axis in world coordinates, the local Z-axis is (-axisZ, axisX)
+        final double axisX, axisZ;
+        final double halfX, halfZ;
+
+        Rectangle(WorldObject obj, double halfX, double halfZ, boolean oriented){
+            this.centerX = obj.getWorldX();
+            this.centerZ = obj.getWorldZ();
+            double axisX = 1, axisZ = 0;
+            if(oriented){
+                RealMatrix transform = obj.getObjectToWorldTransform();
+                double length = Math.hypot(transform.getEntry(0, 0), transform.getEntry(2, 0));
+                if(length != 0){
+                    axisX = transform.getEntry(0, 0) / length;
+                    axisZ = transform.getEntry(2, 0) / length;
+                }
+            }
+            this.axisX = axisX;
+            this.axisZ = axisZ;
+            this.halfX = Math.abs(halfX);
+            this.halfZ = Math.abs(halfZ);
+        }
+
+        boolean contains(double x, double z){
+            double dx = x - centerX, dz = z - centerZ;
+            return Math.abs(dx*axisX + dz*axisZ) < halfX && Math.abs(-dx*axisZ + dz*axisX) < halfZ;
+        }
+
+        double getBoundingHalfX(){
+            return Math.abs(axisX)*halfX + Math.abs(axisZ)*halfZ;
+        }
+
+        double getBoundingHalfZ(){
+            return Math.abs(axisZ)*halfX + Math.abs(axisX)*halfZ;
+        }
+
+        boolean sameAs(Rectangle other){
+            return centerX == other.centerX && centerZ == other.centerZ && axisX == other.axisX
+                    && axisZ == other.axisZ && halfX == other.halfX && halfZ == other.halfZ;
+        }
+    }
+
+    /**
+     * A uniform grid of square cells, with for every cell the rectangles that overlap it, in the order of the objects.
+     */
+    private static class RectangleGrid<T extends WorldObject> {
+        private final List<T> objects;
+        private final Rectangle[] rectangles;
+        private final Map<Long, int[]> cells = new HashMap<>();
+        private final double cellSize;
+
+        private RectangleGrid(List<T> objects, Function<T, Rectangle> toRectangle){
+            this.objects = objects;
+            this.rectangles = new Rectangle[objects.size()];
+            double largest = 0;
+            for(int i = 0; i < rectangles.length; i++){
+                rectangles[i] = toRectangle.apply(objects.get(i));
+                largest = Math.max(largest, 2*Math.max(rectangles[i].getBoundingHalfX(), rectangles[i].getBoundingHalfZ()));
+            }
+            //Every rectangle overlaps at most 2x2 cells
+            this.cellSize = (largest > 0) ? largest : 1;
+
+            Map<Long, List<Integer>> lists = new HashMap<>();
+            for(int i = 0; i < rectangles.length; i++){
+                Rectangle rectangle = rectangles[i];
+                long minX = cell(rectangle.centerX - rectangle.getBoundingHalfX());
+                long maxX = cell(rectangle.centerX + rectangle.getBoundingHalfX());
+                long minZ = cell(rectangle.centerZ - rectangle.getBoundingHalfZ());
+                long maxZ = cell(rectangle.centerZ + rectangle.getBoundingHalfZ());
+                for(long cx = minX; cx <= maxX; cx++){
+                    for(long cz = minZ; cz <= maxZ; cz++){
+                        lists.computeIfAbsent(key(cx, cz), k -> new ArrayList<>()).add(i);
+                    }
+                }
+            }
+            for(Map.Entry<Long, List<Integer>> entry : lists.entrySet()){
+                cells.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+            }
+        }
+
+        private long cell(double coordinate){
+            return (long) Math.floor(coordinate / cellSize);
+        }
+
+        private static long key(long cx, long cz){
+            return (cx << 32) ^ (cz & 0xffffffffL);
+        }
+
+        private T getFirstAt(double x, double z){
+            int[] candidates = cells.get(key(cell(x), cell(z)));
+            if(candidates == null){
+                return null;
+            }
+            for(int i : candidates){
+                if(rectangles[i].contains(x, z)){
+                    return objects.get(i);
+                }
+            }
+            return null;
+        }
+    }
+}
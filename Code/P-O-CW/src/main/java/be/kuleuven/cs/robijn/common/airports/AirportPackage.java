@@ -7,6 +7,8 @@ import be.kuleuven.cs.robijn.common.WorldObject;
 import be.kuleuven.cs.robijn.worldObjects.Drone;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.function.Consumer;
 
@@ -173,15 +175,19 @@ public class AirportPackage extends WorldObject{
         return packageList;
     }
     
-    public boolean droneCanStart(Drone drone, Gate fromGate, Gate toGate, Airport currentAirport) {
+    /**
+     * Returns true if the runways and the destination gate of a flight of the drone can be reserved now,
+     * see ReservationScheduler.canBook.
+     */
+    public boolean droneCanStart(Drone drone, Gate fromGate, Gate toGate, Airport currentAirport, float time) {
     	if(currentAirport == null) {
     		return false;
     	}
 		Runway toTakeOff = routeCalculator.getFromRunway(drone, fromGate);
 		Runway toLand = routeCalculator.getToRunway(drone, fromGate, toGate, toTakeOff, drone.getHeight());
 		
-		System.out.println(Runway.areRunwaysAvailable(toTakeOff, toLand) + " " + !toGate.hasDrone());
-    	return (Runway.areRunwaysAvailable(toTakeOff, toLand) && !toGate.hasDrone());
+    	return module.getReservationScheduler().canBook(drone, toTakeOff, toLand, toGate,
+    			routeCalculator.getRouteDistance(drone, fromGate, toGate), time);
     }
     
     private static Gate findClosestGate(Drone drone) {
@@ -194,34 +200,74 @@ public class AirportPackage extends WorldObject{
     	throw new IllegalStateException();
     }
     
-    private void lockEverything(Drone drone, Gate fromGate, Gate toGate) {
+    /**
+     * Reserves the runways and the destination gate of a flight of the drone, and locks the takeoff runway.
+     * The landing runway is only reserved while the drone is expected to land, and the destination gate
+     * is only locked now if its drone has left already.
+     */
+    private void lockEverything(Drone drone, Gate fromGate, Gate toGate, float time, boolean reposition) {
         Runway takeOffRunway = routeCalculator.getFromRunway(drone, fromGate);
 		Runway landRunway = routeCalculator.getToRunway(drone, fromGate, toGate, takeOffRunway, drone.getHeight());
+		double distance = routeCalculator.getRouteDistance(drone, fromGate, toGate);
 		
-		System.out.println(landRunway.getCurrentDrone() + " " + drone);
-		
+		if(reposition) {
+			module.getReservationScheduler().bookReposition(drone, takeOffRunway, landRunway, fromGate, toGate, distance, time);
+		}
+		else {
+			module.getReservationScheduler().book(drone, takeOffRunway, landRunway, fromGate, toGate, distance, time);
+		}
         takeOffRunway.setCurrentDrone(drone);
-    	landRunway.setCurrentDrone(drone);
         drone.setDestinationRunway(landRunway);
-        toGate.setCurrentDrone(drone);
+        if(! toGate.hasDrone()) {
+        	toGate.setCurrentDrone(drone);
+        }
     }
 
-    public void assignPackages() {
-    	int oldAmountOfPackages = this.getAllPackagesToAssign().size();
-    	for(AirportPackage p : this.getAllPackagesToAssign()){
+    /**
+     * Returns the drones that are on an airport and can get a package.
+     */
+    public ArrayList<Drone> getAllDronesToAssign(){
+    	ArrayList<Drone> droneList = new ArrayList<Drone>();
+    	for (Airport airport : this.getParent().getChildrenOfType(Airport.class)) {
+    		for (Drone drone : airport.getCurrentDrones()) {
+    			//A drone can be on a gate and a runway at once
+    			if(drone.isAvailable() && drone.canBeAssigned() && drone.getAirportOfDrone() != null && ! droneList.contains(drone)) {
+    				droneList.add(drone);
+    			}
+    		}
+    	}
+    	return droneList;
+    }
+
+    /**
+     * Assigns all packages that wait at a gate, see assignPackages(List, float).
+     */
+    public void assignPackages(float time) {
+    	this.assignPackages(this.getAllPackagesToAssign(), time);
+    }
+
+    /**
+     * Assigns the specified waiting packages to the available drones with the package assigner of the module,
+     * and lets the assigned drones taxi and fly if their runways and gates are free.
+     * @param packages the packages that wait at a gate.
+     * @param time the current time of the simulation, in seconds.
+     */
+    public void assignPackages(List<AirportPackage> packages, float time) {
+    	int startedFlights = 0;
+    	Map<AirportPackage, Drone> assignment = module.getPackageAssigner().assign(packages, this.getAllDronesToAssign(), time);
+    	for(Map.Entry<AirportPackage, Drone> entry : assignment.entrySet()){
+    		AirportPackage p = entry.getKey();
             Airport fromAirport = p.getOrigin().getAirport(); 
             Gate fromGate = p.getOrigin();
             Gate toGate = p.getDestination();
-            Drone drone = fromAirport.getAvailableDrone(fromGate);
+            Drone drone = entry.getValue();
            
-            if(drone != null && drone.canBeAssigned()) {
+            if(drone.canBeAssigned() && drone.isAvailable() && p.getState() == State.AT_GATE) {
             	if(drone.getCurrentAirport() != fromAirport) {
-            		if(drone.getAirportOfDrone() == null) {
-            			throw new IllegalStateException();
-            		}
             		Gate newFromGate = findClosestGate(drone);
-            		if(p.droneCanStart(drone, newFromGate, fromGate, drone.getAirportOfDrone())) {
-	            		p.lockEverything(drone, newFromGate, fromGate);
+            		if(p.droneCanStart(drone, newFromGate, fromGate, drone.getAirportOfDrone(), time)) {
+	            		p.lockEverything(drone, newFromGate, fromGate, time, false);
+	            		startedFlights++;
 	            		drone.setCanBeAssigned(false);
 	            		
 	            		Autopilot autopilot = module.autopilots.get(drone);
@@ -230,34 +276,73 @@ public class AirportPackage extends WorldObject{
 	            		
 		            	module.taxiToGateAndFly(drone, newFromGate, fromGate);
             		}
-            		else {
-            			System.out.println("HIERO1 " + this.getAllPackagesToAssign().size());
-            		}
             	}
-	            else if (p.droneCanStart(drone, fromGate, toGate, fromAirport)) {
+	            else if (p.droneCanStart(drone, fromGate, toGate, fromAirport, time)) {
 	            	p.markAsInTransit(drone);
-		            p.lockEverything(drone, fromGate, toGate);
+		            p.lockEverything(drone, fromGate, toGate, time, false);
+		            startedFlights++;
 	                module.taxiToGateAndFly(drone, fromGate, toGate);
 	            }
-	            else {
-	            	System.out.println("HIERO2 " + this.getAllPackagesToAssign().size());
-	            }
             }
         }
     	
-    	if(oldAmountOfPackages != 0 && this.getAllPackagesToAssign().size() == oldAmountOfPackages) {//No package was assigned to a drone
-    		boolean isDeadlock = true;
-    		for(Drone d : this.getParent().getChildrenOfType(Drone.class)) {
-    			if(!d.canBeAssigned() || d.hasPackage()) {
-    				isDeadlock = false;
-    				break;
+    	//No flight was started, and a package waits for which no drone is on its way
+    	if(startedFlights == 0 && this.hasUnservedPackage(packages)) {
+    		this.repositionIdleDrone(packages, time);
+    	}
+    }
+
+    /**
+     * Lets an idle drone that stands on the destination gate of a waiting package fly to the closest free gate
+     * that is not the destination of a waiting package, so that the package can be delivered.
+     * At most one drone is moved per call.
+     * @return true if a drone was moved.
+     */
+    private boolean repositionIdleDrone(List<AirportPackage> packages, float time) {
+    	List<Gate> destinations = new ArrayList<Gate>();
+    	for(AirportPackage p : packages) {
+    		destinations.add(p.getDestination());
+    	}
+    	
+    	for(AirportPackage p : packages) {
+    		Drone drone = p.getDestination().getCurrentDrone();
+    		if(p.getState() != State.AT_GATE || drone == null || !drone.isAvailable() || !drone.canBeAssigned()
+    				|| drone.getAirportOfDrone() == null) {
+    			continue;
+    		}
+    		Gate fromGate = p.getDestination();
+    		Gate bestGate = null;
+    		double bestDistance = Double.POSITIVE_INFINITY;
+    		for(Gate gate : Gate.getAllGates(this.getParent())) {
+    			if(gate.getAirport() == fromGate.getAirport() || gate.hasDrone() || destinations.contains(gate)) {
+    				continue;
+    			}
+    			double distance = routeCalculator.getRouteDistance(drone, fromGate, gate);
+    			if(distance < bestDistance && this.droneCanStart(drone, fromGate, gate, drone.getAirportOfDrone(), time)) {
+    				bestDistance = distance;
+    				bestGate = gate;
     			}
     		}
-    		
-    		if(isDeadlock) {
-	    		//TODO laat een vliegtuig (op een airp zonder pakje) naar een vrije gate vliegen zodat 'deadlock' wordt opgelost
-	    		System.out.println("--------------------------------- DEADLOCK: " + oldAmountOfPackages);
+    		if(bestGate != null) {
+    			this.lockEverything(drone, fromGate, bestGate, time, true);
+    			drone.setCanBeAssigned(false);
+    			module.autopilots.get(drone).setTargetPosition(bestGate.getWorldPosition());
+    			module.taxiToGateAndFly(drone, fromGate, bestGate);
+    			return true;
+    		}
+    	}
+    	return false;
+    }
+
+    /**
+     * Returns true if one of the specified packages waits at its gate, and no drone is on its way to that gate.
+     */
+    private boolean hasUnservedPackage(List<AirportPackage> packages) {
+    	for(AirportPackage p : packages) {
+    		if(p.getState() == State.AT_GATE && ! module.getReservationScheduler().isOnTheWayTo(p.getOrigin())) {
+    			return true;
     		}
     	}
+    	return false;
     }
 }
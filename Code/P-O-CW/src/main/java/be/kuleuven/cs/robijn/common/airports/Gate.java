@@ -4,9 +4,11 @@ import be.kuleuven.cs.robijn.common.WorldObject;
 import be.kuleuven.cs.robijn.worldObjects.Drone;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 import org.apache.commons.math3.geometry.euclidean.twod.Vector2D;
-import org.apache.commons.math3.linear.RealVector;
 
 public class Gate extends WorldObject{
     private final Airport parent;
@@ -14,6 +16,7 @@ public class Gate extends WorldObject{
     private AirportPackage queuedPackage;
     
     private Drone currentDrone = null;
+    private final List<Consumer<Gate>> droneRemovedEventHandlers = new CopyOnWriteArrayList<>();
 
     public Gate(Airport parent, int id){
         this.parent = parent;
@@ -49,13 +52,12 @@ public class Gate extends WorldObject{
     }
 
     public boolean isDroneAbove(Drone drone) {
-        RealVector dronePos = drone.getWorldPosition();
-        RealVector gatePos = this.getWorldPosition();
-        RealVector droneToGateVect = gatePos.subtract(dronePos);
+        double droneToGateX = this.getWorldX() - drone.getWorldX();
+        double droneToGateZ = this.getWorldZ() - drone.getWorldZ();
         Vector2D gateSize = this.getSize();
 
-        return Math.abs(droneToGateVect.getEntry(0)) < gateSize.getX() &&
-                Math.abs(droneToGateVect.getEntry(2)) < gateSize.getY();
+        return Math.abs(droneToGateX) < gateSize.getX() &&
+                Math.abs(droneToGateZ) < gateSize.getY();
     }
     
     public static ArrayList<Gate> getAllGates(WorldObject world){
@@ -88,6 +90,20 @@ public class Gate extends WorldObject{
 	}
 
 	public void removeCurrentDrone() {
+		boolean freed = this.currentDrone != null;
 		this.currentDrone = null;
+		if(freed) {
+			for(Consumer<Gate> handler : droneRemovedEventHandlers) {
+				handler.accept(this);
+			}
+		}
+	}
+
+	/**
+	 * Adds a handler that is called when a drone is removed from this gate.
+	 * The handler may be called on the thread of the autopilot of that drone.
+	 */
+	public void addDroneRemovedEventHandler(Consumer<Gate> handler) {
+		droneRemovedEventHandlers.add(handler);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,289 @@
+package be.kuleuven.cs.robijn.common.airports;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A raster of the type of the ground (grass, tarmac or runway) on the XZ-plane, built from the layout of the airports.
+ *
+ * The ground is divided in square cells of the resolution of the map, and the type of a cell is the type at its center.
+ * The cells are grouped in tiles of TILE_SIZE x TILE_SIZE cells, and only the tiles that contain tarmac are stored,
+ * as two bitsets with one bit per cell: one for tarmac and one for runway. Everything outside these tiles is grass,
+ * so a lookup takes constant time and the memory grows with the area of the airports instead of the area of the world.
+ *
+ * When the airports change, only the tiles of the airports that were added, removed or moved are rasterized again.
+ * An update publishes a new set of tiles at once, so lookups on other threads never see a partially updated map.
+ */
+public final class GroundTypeMap {
+
+    /**
+     * The types of ground.
+     */
+    public enum GroundType {
+        GRASS, TARMAC, RUNWAY
+    }
+
+    /**
+     * The default size (in meters) of the cells.
+     */
+    public static final double DEFAULT_RESOLUTION = 1;
+
+    /**
+     * The amount of cells along each side of a tile.
+     */
+    public static final int TILE_SIZE = 64;
+
+    private static final int TILE_BITS = 6;
+
+    private final double resolution;
+    //The stored tiles, replaced as a whole by every update
+    private volatile Map<Long, Tile> tiles = new HashMap<>();
+    //The airports of the last update, and for every tile the airports that overlap it
+    private Map<Airport, Footprint> footprints = new IdentityHashMap<>();
+    private final Map<Long, List<Airport>> airportsByTile = new HashMap<>();
+    private int lastRasterizedTileCount = 0;
+
+    public GroundTypeMap(){
+        this(DEFAULT_RESOLUTION);
+    }
+
+    /**
+     * @param resolution the size (in meters) of the cells. Must be positive and finite.
+     */
+    public GroundTypeMap(double resolution){
+        if(! (resolution > 0) || Double.isInfinite(resolution)){
+            throw new IllegalArgumentException("resolution must be positive and finite");
+        }
+        this.resolution = resolution;
+    }
+
+    public double getResolution() {
+        return resolution;
+    }
+
+    /**
+     * Returns the amount of tiles that are stored. Each tile takes 2 * TILE_SIZE longs.
+     */
+    public int getTileCount() {
+        return tiles.size();
+    }
+
+    /**
+     * Returns the amount of tiles that were rasterized by the last update.
+     */
+    public int getLastRasterizedTileCount() {
+        return lastRasterizedTileCount;
+    }
+
+    /**
+     * Updates this map to the specified airports.
+     * Only the tiles of the airports that were added, removed or moved since the last update are rasterized again.
+     * This must not be called by multiple threads at once.
+     * @param airports the airports. Must not be null.
+     */
+    public void update(List<Airport> airports){
+        if(airports == null){
+            throw new IllegalArgumentException("airports cannot be null");
+        }
+
+        Set<Long> dirtyTiles = new HashSet<>();
+        Map<Airport, Footprint> newFootprints = new IdentityHashMap<>();
+        for(Airport airport : airports){
+            Footprint footprint = new Footprint(airport);
+            Footprint old = footprints.remove(airport);
+            if(old != null && old.sameAs(footprint)){
+                newFootprints.put(airport, old);
+                continue;
+            }
+            if(old != null){
+                removeFootprint(airport, old, dirtyTiles);
+            }
+            addFootprint(airport, footprint, dirtyTiles);
+            newFootprints.put(airport, footprint);
+        }
+        //The airports that are left were removed
+        for(Map.Entry<Airport, Footprint> removed : footprints.entrySet()){
+            removeFootprint(removed.getKey(), removed.getValue(), dirtyTiles);
+        }
+        footprints = newFootprints;
+
+        Map<Long, Tile> newTiles = new HashMap<>(tiles);
+        for(long key : dirtyTiles){
+            Tile tile = rasterize(key);
+            if(tile == null){
+                newTiles.remove(key);
+            }else{
+                newTiles.put(key, tile);
+            }
+        }
+        lastRasterizedTileCount = dirtyTiles.size();
+        tiles = newTiles;
+    }
+
+    /**
+     * Returns the type of the ground at the specified point.
+     */
+    public GroundType getGroundType(double x, double z){
+        long cellX = (long) Math.floor(x / resolution);
+        long cellZ = (long) Math.floor(z / resolution);
+        Tile tile = tiles.get(key(cellX >> TILE_BITS, cellZ >> TILE_BITS));
+        if(tile == null){
+            return GroundType.GRASS;
+        }
+        int row = (int) (cellZ & (TILE_SIZE - 1));
+        long bit = 1L << (cellX & (TILE_SIZE - 1));
+        if((tile.runway[row] & bit) != 0){
+            return GroundType.RUNWAY;
+        }
+        return ((tile.tarmac[row] & bit) != 0) ? GroundType.TARMAC : GroundType.GRASS;
+    }
+
+    /**
+     * Returns true if the ground at the specified point is not part of an airport.
+     */
+    public boolean isGrass(double x, double z){
+        return getGroundType(x, z) == GroundType.GRASS;
+    }
+
+    private void addFootprint(Airport airport, Footprint footprint, Set<Long> dirtyTiles){
+        for(long tileX = footprint.minTileX; tileX <= footprint.maxTileX; tileX++){
+            for(long tileZ = footprint.minTileZ; tileZ <= footprint.maxTileZ; tileZ++){
+                if(! footprint.overlapsTile(tileX, tileZ)){
+                    continue;
+                }
+                long key = key(tileX, tileZ);
+                airportsByTile.computeIfAbsent(key, k -> new ArrayList<>()).add(airport);
+                dirtyTiles.add(key);
+            }
+        }
+    }
+
+    private void removeFootprint(Airport airport, Footprint footprint, Set<Long> dirtyTiles){
+        for(long tileX = footprint.minTileX; tileX <= footprint.maxTileX; tileX++){
+            for(long tileZ = footprint.minTileZ; tileZ <= footprint.maxTileZ; tileZ++){
+                if(! footprint.overlapsTile(tileX, tileZ)){
+                    continue;
+                }
+                long key = key(tileX, tileZ);
+                List<Airport> list = airportsByTile.get(key);
+                list.remove(airport);
+                if(list.isEmpty()){
+                    airportsByTile.remove(key);
+                }
+                dirtyTiles.add(key);
+            }
+        }
+    }
+
+    /**
+     * Returns a new tile with the ground types of the airports that overlap it, or null if it only contains grass.
+     */
+    private Tile rasterize(long key){
+        List<Airport> airports = airportsByTile.get(key);
+        if(airports == null){
+            return null;
+        }
+
+        long firstCellX = (key >> 32) << TILE_BITS;
+        long firstCellZ = ((long) (int) key) << TILE_BITS;
+        Tile tile = new Tile();
+        boolean empty = true;
+        for(int row = 0; row < TILE_SIZE; row++){
+            double z = (firstCellZ + row + 0.5) * resolution;
+            for(int column = 0; column < TILE_SIZE; column++){
+                double x = (firstCellX + column + 0.5) * resolution;
+                for(Airport airport : airports){
+                    Footprint footprint = footprints.get(airport);
+                    if(footprint.airport.contains(x, z)){
+                        tile.tarmac[row] |= 1L << column;
+                        empty = false;
+                        if(footprint.isOnRunway(x, z)){
+                            tile.runway[row] |= 1L << column;
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+        return empty ? null : tile;
+    }
+
+    private static long key(long tileX, long tileZ){
+        return (tileX << 32) | (tileZ & 0xffffffffL);
+    }
+
+    /**
+     * The bitsets of one tile, with one long per row of cells.
+     */
+    private static class Tile {
+        private final long[] tarmac = new long[TILE_SIZE];
+        private final long[] runway = new long[TILE_SIZE];
+    }
+
+    /**
+     * The rectangles of an airport and its runways, and the tiles that they overlap.
+     */
+    private class Footprint {
+        private final AirportIndex.Rectangle airport;
+        private final AirportIndex.Rectangle[] runways;
+        private final long minTileX, maxTileX, minTileZ, maxTileZ;
+
+        private Footprint(Airport airport){
+            this.airport = new AirportIndex.Rectangle(airport, airport.getSize().getX()/2, airport.getSize().getY()/2, true);
+            Runway[] runwayList = airport.getRunways();
+            this.runways = new AirportIndex.Rectangle[runwayList.length];
+            for(int i = 0; i < runwayList.length; i++){
+                Runway runway = runwayList[i];
+                runways[i] = new AirportIndex.Rectangle(runway, runway.getSize().getX()/2, runway.getSize().getY()/2, true);
+            }
+            minTileX = tile(this.airport.centerX - this.airport.getBoundingHalfX());
+            maxTileX = tile(this.airport.centerX + this.airport.getBoundingHalfX());
+            minTileZ = tile(this.airport.centerZ - this.airport.getBoundingHalfZ());
+            maxTileZ = tile(this.airport.centerZ + this.airport.getBoundingHalfZ());
+        }
+
+        private long tile(double coordinate){
+            return ((long) Math.floor(coordinate / resolution)) >> TILE_BITS;
+        }
+
+        /**
+         * Returns true if the rectangle of the airport overlaps the specified tile, with the separating axis test.
+         */
+        private boolean overlapsTile(long tileX, long tileZ){
+            double half = TILE_SIZE * resolution / 2;
+            double dx = (tileX * TILE_SIZE * resolution + half) - airport.centerX;
+            double dz = (tileZ * TILE_SIZE * resolution + half) - airport.centerZ;
+            double projectedHalf = half * (Math.abs(airport.axisX) + Math.abs(airport.axisZ));
+            return Math.abs(dx) <= half + airport.getBoundingHalfX()
+                    && Math.abs(dz) <= half + airport.getBoundingHalfZ()
+                    && Math.abs(dx*airport.axisX + dz*airport.axisZ) <= airport.halfX + projectedHalf
+                    && Math.abs(-dx*airport.axisZ + dz*airport.axisX) <= airport.halfZ + projectedHalf;
+        }
+
+        private boolean isOnRunway(double x, double z){
+            for(AirportIndex.Rectangle runway : runways){
+                if(runway.contains(x, z)){
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean sameAs(Footprint other){
+            if(! airport.sameAs(other.airport) || runways.length != other.runways.length){
+                return false;
+            }
+            for(int i = 0; i < runways.length; i++){
+                if(! runways[i].sameAs(other.runways[i])){
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package be.kuleuven.cs.robijn.common.airports;
+
+import be.kuleuven.cs.robijn.autopilot.routeCalculator;
+import be.kuleuven.cs.robijn.common.math.AssignmentSolver;
+import be.kuleuven.cs.robijn.worldObjects.Drone;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Assigns the packages that wait at a gate to the available drones, such that the total distance
+ * that the drones have to travel to the packages is minimal.
+ *
+ * The cost of a drone for a package is the distance on the ground to the gate of the package if the drone is
+ * on the same airport, and otherwise the length of the route from the closest gate of the drone to that gate.
+ * The route lengths only depend on the gates, the runway a drone takes off from and the height of the drone,
+ * so they are taken from the route cache of the airport of the drone. The assignment is only solved again when
+ * the waiting packages or the available drones changed since the previous call.
+ *
+ * The assigner also keeps the time between the first time a package was waiting and the time it was picked up,
+ * which is read from the simulation clock when the package changes state.
+ */
+public class PackageAssigner {
+
+    //The time at which the waiting packages were first seen
+    private final Map<AirportPackage, Float> waitingSince = new IdentityHashMap<>();
+
+    private List<AirportPackage> lastPackages = new ArrayList<>();
+    private List<Drone> lastDrones = new ArrayList<>();
+    private Map<AirportPackage, Drone> lastAssignment = new LinkedHashMap<>();
+
+    private final DoubleSupplier clock;
+    private int solveCount = 0;
+    private int pickupCount = 0;
+    private double totalPickupLatency = 0;
+
+    /**
+     * @param clock the current time of the simulation, in seconds. Must not be null.
+     */
+    public PackageAssigner(DoubleSupplier clock){
+        if(clock == null){
+            throw new IllegalArgumentException("clock cannot be null");
+        }
+        this.clock = clock;
+    }
+
+    /**
+     * Returns an optimal assignment of the specified packages to the specified drones.
+     * If there are more packages than drones, the packages that are cheapest to serve get a drone,
+     * and the other packages are not in the result.
+     * @param packages the packages that wait at a gate. Must not be null.
+     * @param drones the drones that are available on an airport. Must not be null.
+     * @param time the current time of the simulation, in seconds.
+     * @return the drone of every assigned package, in the order of the packages.
+     */
+    public synchronized Map<AirportPackage, Drone> assign(List<AirportPackage> packages, List<Drone> drones, float time){
+        if(packages == null || drones == null){
+            throw new IllegalArgumentException("packages and drones cannot be null");
+        }
+
+        for(AirportPackage p : packages){
+            if(! waitingSince.containsKey(p)){
+                waitingSince.put(p, time);
+                p.addStateUpdateEventHandler(this::packageStateUpdated);
+            }
+        }
+
+        if(isSameAsLast(packages, drones)){
+            return lastAssignment;
+        }
+
+        double[][] costs = new double[packages.size()][drones.size()];
+        for(int i = 0; i < packages.size(); i++){
+            for(int j = 0; j < drones.size(); j++){
+                costs[i][j] = getCost(drones.get(j), packages.get(i).getOrigin());
+            }
+        }
+        int[] droneOfPackage = AssignmentSolver.solve(costs);
+        solveCount++;
+
+        Map<AirportPackage, Drone> assignment = new LinkedHashMap<>();
+        for(int i = 0; i < packages.size(); i++){
+            if(droneOfPackage[i] != -1){
+                assignment.put(packages.get(i), drones.get(droneOfPackage[i]));
+            }
+        }
+        lastPackages = new ArrayList<>(packages);
+        lastDrones = new ArrayList<>(drones);
+        lastAssignment = assignment;
+        return assignment;
+    }
+
+    /**
+     * Returns the cost of sending the specified drone, which must be on an airport, to the specified gate.
+     */
+    private double getCost(Drone drone, Gate gate){
+        Airport airport = drone.getAirportOfDrone();
+        if(airport == gate.getAirport()){
+            return drone.getWorldPosition().getDistance(gate.getWorldPosition());
+        }
+
+        return routeCalculator.getRouteDistance(drone, drone.getClosestGate(airport), gate);
+    }
+
+    private boolean isSameAsLast(List<AirportPackage> packages, List<Drone> drones){
+        if(packages.size() != lastPackages.size() || drones.size() != lastDrones.size()){
+            return false;
+        }
+        for(int i = 0; i < packages.size(); i++){
+            if(packages.get(i) != lastPackages.get(i)){
+                return false;
+            }
+        }
+        for(int i = 0; i < drones.size(); i++){
+            if(drones.get(i) != lastDrones.get(i)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //The state of a package can change on the thread of the autopilot of its drone
+    private synchronized void packageStateUpdated(AirportPackage p){
+        Float since = waitingSince.remove(p);
+        if(since == null){
+            return;
+        }
+        if(p.getState() == AirportPackage.State.IN_TRANSIT){
+            pickupCount++;
+            totalPickupLatency += clock.getAsDouble() - since;
+        }
+    }
+
+    /**
+     * Returns the amount of times the assignment was solved, instead of reused from the previous call.
+     */
+    public synchronized int getSolveCount() {
+        return solveCount;
+    }
+
+    /**
+     * Returns the amount of packages that were picked up since they were first passed to this assigner.
+     */
+    public synchronized int getPickupCount() {
+        return pickupCount;
+    }
+
+    /**
+     * Returns the average time (in seconds) between the first assignment of a package and its pickup,
+     * or 0 if no package was picked up yet.
+     */
+    public synchronized double getAveragePickupLatency() {
+        return (pickupCount == 0) ? 0 : totalPickupLatency / pickupCount;
+    }
+}
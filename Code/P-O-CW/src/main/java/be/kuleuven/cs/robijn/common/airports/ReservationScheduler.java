@@ -0,0 +1,343 @@
+package be.kuleuven.cs.robijn.common.airports;
+
+import be.kuleuven.cs.robijn.common.WorldObject;
+import be.kuleuven.cs.robijn.worldObjects.Drone;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Books time windows on the runways and gates for the flights of the drones, using estimated flight durations.
+ *
+ * A flight reserves its takeoff runway while it takes off, its landing runway only while it is expected to land,
+ * and its destination gate from then on until it departs again with a next flight. A flight can be booked if none
+ * of its windows overlaps a window of another flight, and if the destination gate is free or its drone departs
+ * before the flight arrives. So a drone does not hold its landing runway during the whole flight,
+ * and more drones can be in the air at once.
+ *
+ * The estimates can be wrong, so a landing window is kept until the drone becomes available again, and the
+ * takeoff runway must also be free on the ground. A takeoff window ends early when the drone releases its runway,
+ * so the next flight from that runway can be booked as soon as the runway is freed. The scheduler listens to the
+ * drones, runways and gates of its world, and can be used by multiple threads at once.
+ */
+public class ReservationScheduler {
+
+    /**
+     * The default duration (in seconds) of taxiing to the runway and taking off.
+     */
+    public static final float DEFAULT_TAKEOFF_DURATION = 60;
+
+    /**
+     * The default duration (in seconds) of landing and taxiing to the gate.
+     */
+    public static final float DEFAULT_LANDING_DURATION = 90;
+
+    /**
+     * The default time (in seconds) that is added on both sides of a landing window.
+     */
+    public static final float DEFAULT_MARGIN = 30;
+
+    /**
+     * The kinds of reservations.
+     */
+    public enum Kind {
+        TAKEOFF, LANDING, STAY
+    }
+
+    /**
+     * A time window in which a drone uses a runway or gate. The end of a stay is infinite.
+     */
+    public static class Reservation {
+        private final Drone drone;
+        private final Kind kind;
+        private final float start, end;
+
+        private Reservation(Drone drone, Kind kind, float start, float end){
+            this.drone = drone;
+            this.kind = kind;
+            this.start = start;
+            this.end = end;
+        }
+
+        public Drone getDrone() {
+            return drone;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public float getStart() {
+            return start;
+        }
+
+        public float getEnd() {
+            return end;
+        }
+    }
+
+    private final float cruiseSpeed, takeoffDuration, landingDuration, margin;
+    //The reservations of every runway and gate
+    private final Map<WorldObject, List<Reservation>> reservations = new HashMap<>();
+    //The time at which the drone on a gate has taken off, for the gates of which the drone has a booked flight
+    private final Map<Gate, Float> departures = new HashMap<>();
+    //The gate on which every drone has its open-ended stay
+    private final Map<Drone, Gate> stays = new HashMap<>();
+    private final List<Gate> gates = new ArrayList<>();
+    private final Set<Drone> inFlight = new HashSet<>();
+    private float time = 0;
+
+    private int bookingCount = 0;
+    private int refusalCount = 0;
+    private int repositionCount = 0;
+    private int peakInFlightCount = 0;
+
+    /**
+     * Create a scheduler for the drones and gates of the specified world, with the default durations.
+     * @param cruiseSpeed the speed (in meters per second) with which the duration of a flight is estimated.
+     */
+    public ReservationScheduler(WorldObject world, float cruiseSpeed){
+        this(world, cruiseSpeed, DEFAULT_TAKEOFF_DURATION, DEFAULT_LANDING_DURATION, DEFAULT_MARGIN);
+    }
+
+    /**
+     * @param world the world of which the drones and gates are followed. Must not be null.
+     * @param cruiseSpeed the speed (in meters per second) with which the duration of a flight is estimated. Must be positive.
+     * @param takeoffDuration the duration (in seconds) of taxiing and taking off. Must not be negative.
+     * @param landingDuration the duration (in seconds) of landing and taxiing. Must not be negative.
+     * @param margin the time (in seconds) that is added on both sides of a landing window. Must not be negative.
+     */
+    public ReservationScheduler(WorldObject world, float cruiseSpeed, float takeoffDuration, float landingDuration, float margin){
+        if(world == null){
+            throw new IllegalArgumentException("world cannot be null");
+        }
+        if(! (cruiseSpeed > 0) || ! (takeoffDuration >= 0) || ! (landingDuration >= 0) || ! (margin >= 0)){
+            throw new IllegalArgumentException("invalid speed or durations");
+        }
+        this.cruiseSpeed = cruiseSpeed;
+        this.takeoffDuration = takeoffDuration;
+        this.landingDuration = landingDuration;
+        this.margin = margin;
+
+        for(Drone drone : world.getChildrenOfType(Drone.class)){
+            drone.addAvailabilityEventHandler(this::droneAvailable);
+        }
+        for(Airport airport : world.getChildrenOfType(Airport.class)){
+            for(Gate gate : airport.getGates()){
+                gates.add(gate);
+                gate.addDroneRemovedEventHandler(this::gateFreed);
+            }
+            for(Runway runway : airport.getRunways()){
+                runway.addDroneRemovedEventHandler(this::runwayFreed);
+            }
+        }
+    }
+
+    /**
+     * Returns true if a flight of the specified drone can be booked now.
+     * @param distance the length (in meters) of the route of the flight.
+     * @param time the current time of the simulation, in seconds.
+     */
+    public synchronized boolean canBook(Drone drone, Runway takeoffRunway, Runway landingRunway, Gate toGate,
+                                        double distance, float time){
+        this.time = time;
+        if(! isFree(drone, takeoffRunway, landingRunway, toGate, distance, time)){
+            refusalCount++;
+            return false;
+        }
+        return true;
+    }
+
+    private boolean isFree(Drone drone, Runway takeoffRunway, Runway landingRunway, Gate toGate, double distance, float time){
+        removeExpiredTakeoffs();
+        float takeoffEnd = time + takeoffDuration;
+        float landingStart = getLandingStart(distance, time);
+        float landingEnd = landingStart + landingDuration + 2*margin;
+
+        if(takeoffRunway.hasDrone() && takeoffRunway.getCurrentDrone() != drone){
+            return false;
+        }
+        if(overlaps(takeoffRunway, drone, time, takeoffEnd) || overlaps(landingRunway, drone, landingStart, landingEnd)){
+            return false;
+        }
+        //The destination gate must be free when the drone arrives
+        if(overlaps(toGate, drone, landingStart, Float.POSITIVE_INFINITY)){
+            return false;
+        }
+        Drone occupant = toGate.getCurrentDrone();
+        if(occupant != null && occupant != drone){
+            Float departure = departures.get(toGate);
+            return departure != null && departure <= landingStart;
+        }
+        return true;
+    }
+
+    /**
+     * Books a flight of the specified drone from the specified gate, see canBook.
+     * The previous stay of the drone ends, on whatever gate it was, also if the drone first has to taxi
+     * to the specified gate.
+     * @throws IllegalStateException the flight cannot be booked.
+     */
+    public synchronized void book(Drone drone, Runway takeoffRunway, Runway landingRunway, Gate fromGate, Gate toGate,
+                                  double distance, float time) throws IllegalStateException {
+        this.time = time;
+        if(! isFree(drone, takeoffRunway, landingRunway, toGate, distance, time)){
+            throw new IllegalStateException("The runways or the gate are reserved.");
+        }
+        Gate previousStay = stays.remove(drone);
+        if(previousStay != null){
+            release(previousStay, drone, Kind.STAY);
+        }
+        release(fromGate, drone, Kind.STAY);
+        float takeoffEnd = time + takeoffDuration;
+        float landingStart = getLandingStart(distance, time);
+
+        add(takeoffRunway, new Reservation(drone, Kind.TAKEOFF, time, takeoffEnd));
+        add(landingRunway, new Reservation(drone, Kind.LANDING, landingStart, landingStart + landingDuration + 2*margin));
+        add(toGate, new Reservation(drone, Kind.STAY, landingStart, Float.POSITIVE_INFINITY));
+        stays.put(drone, toGate);
+        //The drone departs from the gate it stands on, which is not the specified gate if it first taxis to a package
+        for(Gate gate : gates){
+            if(gate.getCurrentDrone() == drone){
+                departures.put(gate, takeoffEnd);
+            }
+        }
+        inFlight.add(drone);
+        peakInFlightCount = Math.max(peakInFlightCount, inFlight.size());
+        bookingCount++;
+    }
+
+    /**
+     * Books a flight without a package, that moves an idle drone out of the way, see book.
+     */
+    public synchronized void bookReposition(Drone drone, Runway takeoffRunway, Runway landingRunway, Gate fromGate, Gate toGate,
+                                            double distance, float time) throws IllegalStateException {
+        book(drone, takeoffRunway, landingRunway, fromGate, toGate, distance, time);
+        repositionCount++;
+    }
+
+    /**
+     * Returns the reservations of the specified runway or gate, in the order in which they were booked.
+     */
+    public synchronized List<Reservation> getReservations(WorldObject runwayOrGate){
+        return new ArrayList<>(reservations.getOrDefault(runwayOrGate, new ArrayList<>()));
+    }
+
+    private float getLandingStart(double distance, float time){
+        return (float) (time + takeoffDuration + distance / cruiseSpeed) - margin;
+    }
+
+    /**
+     * Returns true if a reservation of another drone on the specified runway or gate overlaps the specified window.
+     * A landing that was not released yet lasts at least until the current time plus the landing duration.
+     */
+    private boolean overlaps(WorldObject runwayOrGate, Drone drone, float start, float end){
+        List<Reservation> list = reservations.get(runwayOrGate);
+        if(list == null){
+            return false;
+        }
+        for(Reservation reservation : list){
+            if(reservation.drone == drone){
+                continue;
+            }
+            float reservationEnd = reservation.end;
+            if(reservation.kind == Kind.LANDING){
+                reservationEnd = Math.max(reservationEnd, time + landingDuration);
+            }
+            if(reservation.start < end && start < reservationEnd){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void add(WorldObject runwayOrGate, Reservation reservation){
+        reservations.computeIfAbsent(runwayOrGate, k -> new ArrayList<>()).add(reservation);
+    }
+
+    private void release(WorldObject runwayOrGate, Drone drone, Kind kind){
+        List<Reservation> list = reservations.get(runwayOrGate);
+        if(list != null){
+            list.removeIf(r -> r.drone == drone && r.kind == kind);
+        }
+    }
+
+    /**
+     * Removes the takeoffs that have ended, the runway itself is locked until the drone has taken off.
+     */
+    private void removeExpiredTakeoffs(){
+        for(List<Reservation> list : reservations.values()){
+            list.removeIf(r -> r.kind == Kind.TAKEOFF && r.end <= time);
+        }
+    }
+
+    private synchronized void droneAvailable(Drone drone){
+        for(List<Reservation> list : reservations.values()){
+            list.removeIf(r -> r.drone == drone && r.kind == Kind.LANDING);
+        }
+        inFlight.remove(drone);
+    }
+
+    /**
+     * Ends the takeoffs from the specified runway, whose drone has taken off.
+     * The drone that booked a takeoff locks the runway until it has taken off, so the takeoffs of other drones
+     * than the current drone of the runway have ended.
+     */
+    private synchronized void runwayFreed(Runway runway){
+        List<Reservation> list = reservations.get(runway);
+        if(list != null){
+            Drone current = runway.getCurrentDrone();
+            list.removeIf(r -> r.kind == Kind.TAKEOFF && r.drone != current);
+        }
+    }
+
+    private synchronized void gateFreed(Gate gate){
+        departures.remove(gate);
+    }
+
+    /**
+     * Returns true if a drone that has booked a flight to the specified gate did not become available again,
+     * so that drone is on its way to the gate.
+     */
+    public synchronized boolean isOnTheWayTo(Gate gate){
+        for(Map.Entry<Drone, Gate> stay : stays.entrySet()){
+            if(stay.getValue() == gate && inFlight.contains(stay.getKey())){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the amount of drones that have booked a flight and did not become available again.
+     */
+    public synchronized int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    public synchronized int getPeakInFlightCount() {
+        return peakInFlightCount;
+    }
+
+    public synchronized int getBookingCount() {
+        return bookingCount;
+    }
+
+    /**
+     * Returns the amount of times canBook returned false.
+     */
+    public synchronized int getRefusalCount() {
+        return refusalCount;
+    }
+
+    /**
+     * Returns the amount of flights that moved an idle drone out of the way.
+     */
+    public synchronized int getRepositionCount() {
+        return repositionCount;
+    }
+}
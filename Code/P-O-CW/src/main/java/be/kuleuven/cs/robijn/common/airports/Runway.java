@@ -5,9 +5,14 @@ import org.apache.commons.math3.geometry.euclidean.twod.Vector2D;
 import be.kuleuven.cs.robijn.common.WorldObject;
 import be.kuleuven.cs.robijn.worldObjects.Drone;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
 
 public class Runway extends WorldObject{
 	private Drone currentDrone = null;
+	private final List<Consumer<Runway>> droneRemovedEventHandlers = new CopyOnWriteArrayList<>();
     private final Airport parent;
     private final int id;
     
@@ -47,6 +52,20 @@ public class Runway extends WorldObject{
 		}
 	}
 	public void removeCurrentDrone() {
+		boolean freed = this.currentDrone != null;
 		this.currentDrone = null;
+		if(freed) {
+			for(Consumer<Runway> handler : droneRemovedEventHandlers) {
+				handler.accept(this);
+			}
+		}
+	}
+
+	/**
+	 * Adds a handler that is called when a drone is removed from this runway.
+	 * The handler may be called on the thread of the autopilot of that drone.
+	 */
+	public void addDroneRemovedEventHandler(Consumer<Runway> handler) {
+		droneRemovedEventHandlers.add(handler);
 	}
 }
\ No newline at end of file
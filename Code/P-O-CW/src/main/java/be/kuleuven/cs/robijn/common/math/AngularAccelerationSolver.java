@@ -0,0 +1,71 @@
+package be.kuleuven.cs.robijn.common.math;
+
+/**
+ * A class for solving the system of equations that gives the angular accelerations of a drone.
+ *
+ * The coefficient matrix of this system always has the structure
+ * 		{Ixx * cos(pitch) * sin(roll),    Ixx * cos(roll),     0},
+ * 		{Iyy * cos(pitch) * cos(roll),    -Iyy * sin(roll),    0},
+ * 		{-Izz * sin(pitch),               0,                   Izz}
+ * with Ixx, Iyy and Izz the diagonal elements of the inertia matrix of the drone.
+ * The determinant of this matrix is -Ixx*Iyy*Izz*cos(pitch), so the system can be solved in closed form
+ * instead of with a general LU decomposition.
+ * The system is singular for a pitch of +90 or -90 degrees (gimbal lock). Near these angles the cosine of the pitch
+ * is kept at MIN_COS_PITCH, so the solution stays finite.
+ */
+public class AngularAccelerationSolver {
+
+	/**
+	 * The smallest absolute value of the cosine of the pitch that is used to solve the system.
+	 */
+	public static final double MIN_COS_PITCH = 1e-6;
+
+	/**
+	 * Solve the system of equations for the angular accelerations of a drone.
+	 *
+	 * @param inertiaXX
+	 * 			The inertia of the drone around its X-axis.
+	 * @param inertiaYY
+	 * 			The inertia of the drone around its Y-axis.
+	 * @param inertiaZZ
+	 * 			The inertia of the drone around its Z-axis.
+	 * @param sinPitch
+	 * 			The sine of the pitch of the drone.
+	 * @param cosPitch
+	 * 			The cosine of the pitch of the drone.
+	 * @param sinRoll
+	 * 			The sine of the roll of the drone.
+	 * @param cosRoll
+	 * 			The cosine of the roll of the drone.
+	 * @param constants
+	 * 			The right hand side of the system.
+	 * @param solution
+	 * 			The array in which the heading, pitch and roll angular accelerations are stored.
+	 */
+	public static void solve(double inertiaXX, double inertiaYY, double inertiaZZ,
+			double sinPitch, double cosPitch, double sinRoll, double cosRoll, double[] constants, double[] solution) {
+		if (Math.abs(cosPitch) < MIN_COS_PITCH)
+			cosPitch = (cosPitch < 0) ? -MIN_COS_PITCH : MIN_COS_PITCH;
+
+		double b0 = constants[0] / inertiaXX;
+		double b1 = constants[1] / inertiaYY;
+		double b2 = constants[2] / inertiaZZ;
+
+		double heading = (b0*sinRoll + b1*cosRoll) / cosPitch;
+		solution[0] = heading;
+		solution[1] = b0*cosRoll - b1*sinRoll;
+		solution[2] = b2 + sinPitch*heading;
+	}
+
+	/**
+	 * Solve the system of equations for the angular accelerations of a drone with the given pitch and roll.
+	 *
+	 * @return The heading, pitch and roll angular accelerations.
+	 * @see AngularAccelerationSolver#solve(double, double, double, double, double, double, double, double[], double[])
+	 */
+	public static double[] solve(double inertiaXX, double inertiaYY, double inertiaZZ, double pitch, double roll, double[] constants) {
+		double[] solution = new double[3];
+		solve(inertiaXX, inertiaYY, inertiaZZ, Math.sin(pitch), Math.cos(pitch), Math.sin(roll), Math.cos(roll), constants, solution);
+		return solution;
+	}
+}
@@ -0,0 +1,126 @@
+package be.kuleuven.cs.robijn.common.math;
+
+import java.util.Arrays;
+
+/**
+ * A solver for the assignment problem: given a matrix of costs, assign every row to a different column
+ * such that the total cost is minimal.
+ *
+ * This is the Hungarian method with potentials, which takes O(n^2 * m) time for n rows and m >= n columns.
+ * If there are more rows than columns, only as many rows as there are columns are assigned.
+ */
+public class AssignmentSolver {
+
+	private AssignmentSolver() {
+	}
+
+	/**
+	 * Returns an assignment of the rows to the columns with a minimal total cost.
+	 *
+	 * @param costs
+	 * 			The costs, with costs[i][j] the cost of assigning row i to column j.
+	 * 			All rows must have the same length and all costs must be finite.
+	 * @return The column of every row, or -1 for the rows that are not assigned.
+	 * 			Every column is assigned to at most one row, and min(rows, columns) rows are assigned.
+	 * @throws IllegalArgumentException
+	 * 			The costs are null, not rectangular or not finite.
+	 */
+	public static int[] solve(double[][] costs) throws IllegalArgumentException {
+		if (costs == null)
+			throw new IllegalArgumentException("costs cannot be null");
+		int rows = costs.length;
+		int columns = (rows == 0) ? 0 : costs[0].length;
+		for (double[] row : costs) {
+			if (row == null || row.length != columns)
+				throw new IllegalArgumentException("costs must be rectangular");
+			for (double cost : row) {
+				if (Double.isNaN(cost) || Double.isInfinite(cost))
+					throw new IllegalArgumentException("costs must be finite");
+			}
+		}
+
+		int[] result = new int[rows];
+		Arrays.fill(result, -1);
+		if (rows == 0 || columns == 0)
+			return result;
+
+		//The method needs at most as many rows as columns, so solve the transposed problem otherwise
+		if (rows > columns) {
+			double[][] transposed = new double[columns][rows];
+			for (int i = 0; i < rows; i++) {
+				for (int j = 0; j < columns; j++)
+					transposed[j][i] = costs[i][j];
+			}
+			int[] columnToRow = solveRectangular(transposed);
+			for (int j = 0; j < columns; j++)
+				result[columnToRow[j]] = j;
+			return result;
+		}
+		return solveRectangular(costs);
+	}
+
+	/**
+	 * Solve the assignment problem for at most as many rows as columns, so every row is assigned.
+	 */
+	private static int[] solveRectangular(double[][] costs) {
+		int n = costs.length;
+		int m = costs[0].length;
+		//The potentials of the rows and columns, and for every column its row, all indexed from 1
+		double[] u = new double[n + 1];
+		double[] v = new double[m + 1];
+		int[] rowOfColumn = new int[m + 1];
+		int[] way = new int[m + 1];
+		double[] minSlack = new double[m + 1];
+		boolean[] used = new boolean[m + 1];
+
+		for (int i = 1; i <= n; i++) {
+			//Find a shortest augmenting path from row i, with column 0 as a virtual start
+			rowOfColumn[0] = i;
+			int column = 0;
+			Arrays.fill(minSlack, Double.POSITIVE_INFINITY);
+			Arrays.fill(used, false);
+			do {
+				used[column] = true;
+				int row = rowOfColumn[column];
+				double delta = Double.POSITIVE_INFINITY;
+				int next = 0;
+				for (int j = 1; j <= m; j++) {
+					if (used[j])
+						continue;
+					double slack = costs[row - 1][j - 1] - u[row] - v[j];
+					if (slack < minSlack[j]) {
+						minSlack[j] = slack;
+						way[j] = column;
+					}
+					if (minSlack[j] < delta) {
+						delta = minSlack[j];
+						next = j;
+					}
+				}
+				for (int j = 0; j <= m; j++) {
+					if (used[j]) {
+						u[rowOfColumn[j]] += delta;
+						v[j] -= delta;
+					} else {
+						minSlack[j] -= delta;
+					}
+				}
+				column = next;
+			} while (rowOfColumn[column] != 0);
+
+			//Flip the assignments along the path
+			do {
+				int previous = way[column];
+				rowOfColumn[column] = rowOfColumn[previous];
+				column = previous;
+			} while (column != 0);
+		}
+
+		int[] result = new int[n];
+		for (int j = 1; j <= m; j++) {
+			if (rowOfColumn[j] != 0)
+				result[rowOfColumn[j] - 1] = j - 1;
+		}
+		return result;
+	}
+}
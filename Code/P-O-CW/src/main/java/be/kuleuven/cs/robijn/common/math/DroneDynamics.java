@@ -0,0 +1,645 @@
+package be.kuleuven.cs.robijn.common.math;
+
+import java.util.List;
+
+import org.apache.commons.math3.linear.RealVector;
+
+import be.kuleuven.cs.robijn.common.exceptions.CrashException;
+import be.kuleuven.cs.robijn.tyres.LeftRearWheel;
+import be.kuleuven.cs.robijn.tyres.RearWheel;
+import be.kuleuven.cs.robijn.tyres.RightRearWheel;
+import be.kuleuven.cs.robijn.tyres.Tyre;
+import be.kuleuven.cs.robijn.worldObjects.Drone;
+
+/**
+ * A flight dynamics kernel that calculates the same accelerations as Drone.getAcceleration
+ * and Drone.getAngularAccelerations, but works on primitive doubles only.
+ * All temporary values are kept in fields of this kernel, so an evaluation does not allocate
+ * any objects on the heap. Because of this, one kernel must not be used by multiple threads at the same time.
+ *
+ * The state that is passed to this kernel has the same layout as the state of SystemDifferentialEquations:
+ * {x, vx, y, vy, z, vz, heading, headingAngularVelocity, pitch, pitchAngularVelocity, roll, rollAngularVelocity}.
+ */
+public class DroneDynamics {
+
+	/**
+	 * The number of elements in the state array.
+	 */
+	public static final int STATE_SIZE = 12;
+
+	/**
+	 * The number of elements in the result array:
+	 * {ax, ay, az, headingAngularAcceleration, pitchAngularAcceleration, rollAngularAcceleration}.
+	 */
+	public static final int RESULT_SIZE = 6;
+
+	private static final int FRONT_BRAKE = 0;
+	private static final int LEFT_BRAKE = 1;
+	private static final int RIGHT_BRAKE = 2;
+
+	/**
+	 * Create a new kernel for the given drone.
+	 * Only the airframe configuration of the drone (masses, sizes, slopes and tyres) is read,
+	 * the state of the drone is never used.
+	 *
+	 * @param drone
+	 * 			The drone to create a kernel for.
+	 * @throws IllegalArgumentException
+	 * 			The given drone is null.
+	 */
+	public DroneDynamics(Drone drone) throws IllegalArgumentException {
+		if (drone == null)
+			throw new IllegalArgumentException("drone cannot be null");
+		this.gravity = drone.getGravity();
+		this.engineMass = drone.getEngineMass();
+		this.wingMass = drone.getWingMass();
+		this.tailMass = drone.getTailMass();
+		this.wingX = drone.getWingX();
+		this.tailSize = drone.getTailSize();
+		this.engineDistance = drone.getEngineDistance();
+		this.maxThrust = drone.getMaxThrust();
+		this.maxAOA = drone.getMaxAOA();
+		this.wingLiftSlope = drone.getWingLiftSlope();
+		this.horStabLiftSlope = drone.getHorStabLiftSlope();
+		this.verStabLiftSlope = drone.getVerStabLiftSlope();
+		this.totalMass = this.engineMass + (2*this.wingMass) + this.tailMass;
+
+		this.inertiaXX = (float) (this.tailMass*Math.pow(this.tailSize,2) + this.engineMass*Math.pow(this.engineDistance, 2));
+		this.inertiaZZ = (float) (2*(this.wingMass*Math.pow(this.wingX,2)));
+		this.inertiaYY = this.inertiaXX + this.inertiaZZ;
+
+		List<Tyre> tyres = drone.getChildrenOfType(Tyre.class);
+		int amount = tyres.size();
+		this.tyreCount = amount;
+		this.tyreX = new float[amount];
+		this.tyreY = new float[amount];
+		this.tyreZ = new float[amount];
+		this.tyreRadius = new float[amount];
+		this.tyreSlope = new float[amount];
+		this.dampSlope = new float[amount];
+		this.rMax = new float[amount];
+		this.fcMax = new float[amount];
+		this.hasFriction = new boolean[amount];
+		this.brakeIndex = new int[amount];
+		float reach = 0;
+		for (int i = 0; i < amount; i++) {
+			Tyre tyre = tyres.get(i);
+			this.tyreX[i] = tyre.getWheelX();
+			this.tyreY[i] = tyre.getWheelY();
+			this.tyreZ[i] = tyre.getWheelZ();
+			this.tyreRadius[i] = tyre.getTyreRadius();
+			this.tyreSlope[i] = tyre.getTyreSlope();
+			this.dampSlope[i] = tyre.getDampSlope();
+			this.rMax[i] = tyre.getRMax();
+			this.fcMax[i] = tyre.getFcMax();
+			this.hasFriction[i] = (tyre instanceof RearWheel);
+			if (tyre instanceof RightRearWheel)
+				this.brakeIndex[i] = RIGHT_BRAKE;
+			else if (tyre instanceof LeftRearWheel)
+				this.brakeIndex[i] = LEFT_BRAKE;
+			else
+				this.brakeIndex[i] = FRONT_BRAKE;
+			reach = Math.max(reach, tyre.getWheelReach());
+		}
+		this.wheelReach = reach;
+	}
+
+    //     -----------------     //
+    //                           //
+    //     AIRFRAME CONSTANTS    //
+    //                           //
+    //     -----------------     //
+	private final float gravity;
+	private final float engineMass;
+	private final float wingMass;
+	private final float tailMass;
+	private final float wingX;
+	private final float tailSize;
+	private final float engineDistance;
+	private final float maxThrust;
+	private final float maxAOA;
+	private final float wingLiftSlope;
+	private final float horStabLiftSlope;
+	private final float verStabLiftSlope;
+	private final float totalMass;
+	private final float inertiaXX;
+	private final float inertiaYY;
+	private final float inertiaZZ;
+
+	private final int tyreCount;
+	private final float[] tyreX;
+	private final float[] tyreY;
+	private final float[] tyreZ;
+	private final float[] tyreRadius;
+	private final float[] tyreSlope;
+	private final float[] dampSlope;
+	private final float[] rMax;
+	private final float[] fcMax;
+	private final boolean[] hasFriction;
+	private final int[] brakeIndex;
+
+	/**
+	 * The largest wheel reach of the tyres, see Tyre.getWheelReach.
+	 * Above this altitude no tyre touches the ground and the tyre stage is skipped.
+	 */
+	private final float wheelReach;
+
+	public float getTotalMass() {
+		return this.totalMass;
+	}
+
+	public float getMaxThrust() {
+		return this.maxThrust;
+	}
+
+	/**
+	 * Store the current state of the given drone in the given state array.
+	 *
+	 * @param drone
+	 * 			The drone to read the state of.
+	 * @param state
+	 * 			The array to store the state in, with a length of at least STATE_SIZE.
+	 */
+	public static void readState(Drone drone, double[] state) {
+		state[0] = drone.getWorldX();
+		state[2] = drone.getWorldY();
+		state[4] = drone.getWorldZ();
+		RealVector velocity = drone.getVelocity();
+		state[1] = velocity.getEntry(0);
+		state[3] = velocity.getEntry(1);
+		state[5] = velocity.getEntry(2);
+		state[6] = drone.getHeading();
+		state[7] = drone.getHeadingAngularVelocity();
+		state[8] = drone.getPitch();
+		state[9] = drone.getPitchAngularVelocity();
+		state[10] = drone.getRoll();
+		state[11] = drone.getRollAngularVelocity();
+	}
+
+    //     -----------------     //
+    //                           //
+    //       SCRATCH BUFFERS     //
+    //                           //
+    //     -----------------     //
+	/**
+	 * The rotation matrix from drone coordinates to world coordinates (row major).
+	 * The transposed matrix transforms world coordinates to drone coordinates.
+	 */
+	private final double[] rotation = new double[9];
+
+	/**
+	 * Sines and cosines of the heading, pitch and roll of the state that is being evaluated.
+	 */
+	private double sinH, cosH, sinP, cosP, sinR, cosR;
+
+	/**
+	 * The angular velocities (heading, pitch, roll) of the state that is being evaluated.
+	 */
+	private final double[] stateVelocities = new double[3];
+
+	/**
+	 * The velocity of the center of mass and the total angular velocity, both in drone coordinates.
+	 */
+	private final double[] velocityDrone = new double[3];
+	private final double[] angularVelocityDrone = new double[3];
+
+	/**
+	 * The total angular velocity in world coordinates.
+	 */
+	private final double[] angularVelocityWorld = new double[3];
+
+	/**
+	 * Accumulated forces in drone coordinates (lift and thrust) and in world coordinates (gravity and tyres),
+	 * and accumulated moments in drone coordinates.
+	 */
+	private final double[] forceDrone = new double[3];
+	private final double[] forceWorld = new double[3];
+	private final double[] moment = new double[3];
+
+	/**
+	 * The lift force of the last evaluated airfoil, in drone coordinates.
+	 */
+	private final double[] lift = new double[3];
+	private final double[] tail = new double[3];
+
+	/**
+	 * General purpose temporary vectors.
+	 */
+	private final double[] tmp = new double[3];
+	private final double[] tmp2 = new double[3];
+	private final double[] tyreGround = new double[3];
+	private final double[] tyreForce = new double[3];
+
+	/**
+	 * The linear system for the angular accelerations.
+	 */
+	private final double[] constants = new double[3];
+	private final double[] solution = new double[3];
+
+    //     -----------------     //
+    //                           //
+    //         EVALUATION        //
+    //                           //
+    //     -----------------     //
+	/**
+	 * Calculate the acceleration of the center of mass and the angular accelerations of a drone in the given state.
+	 *
+	 * @param state
+	 * 			The state of the drone, with the layout of SystemDifferentialEquations.
+	 * @param thrust
+	 * 			The current Thrust of the Engine.
+	 * @param leftWingInclination
+	 * 			The current inclination of the Left Wing.
+	 * @param rightWingInclination
+	 * 			The current inclination of the Right Wing.
+	 * @param horStabInclination
+	 * 			The current inclination of the Horizontal Stabilizer.
+	 * @param verStabInclination
+	 * 			The current inclination of the Vertical Stabilizer.
+	 * @param frontBrakeForce
+	 * 			The current brake force on the front wheel.
+	 * @param leftBrakeForce
+	 * 			The current brake force on the left rear wheel.
+	 * @param rightBrakeForce
+	 * 			The current brake force on the right rear wheel.
+	 * @param result
+	 * 			The array to store the result in:
+	 * 			{ax, ay, az, headingAngularAcceleration, pitchAngularAcceleration, rollAngularAcceleration}.
+	 * @throws IllegalArgumentException
+	 * 			The given thrust is larger than the maximum thrust,
+	 * 			an airfoil stalls or a brake force is not valid.
+	 * @throws CrashException
+	 * 			One of the tyres is under the ground.
+	 */
+	public void computeAccelerations(double[] state, float thrust, float leftWingInclination, float rightWingInclination,
+			float horStabInclination, float verStabInclination, float frontBrakeForce, float leftBrakeForce, float rightBrakeForce,
+			double[] result) throws IllegalArgumentException, CrashException {
+		if (thrust > this.maxThrust)
+			throw new IllegalArgumentException();
+
+		this.prepareState(state);
+
+		zero(this.forceDrone);
+		zero(this.moment);
+
+		//Lift forces, calculated in drone coordinates.
+		this.computeHorizontalLift(-this.wingX, 0, 0, leftWingInclination, this.wingLiftSlope);
+		addTo(this.forceDrone, this.lift);
+		this.addMoment(-this.wingX, 0, 0, this.lift);
+
+		this.computeHorizontalLift(this.wingX, 0, 0, rightWingInclination, this.wingLiftSlope);
+		addTo(this.forceDrone, this.lift);
+		this.addMoment(this.wingX, 0, 0, this.lift);
+
+		this.computeHorizontalLift(0, 0, this.tailSize, horStabInclination, this.horStabLiftSlope);
+		addTo(this.forceDrone, this.lift);
+		copy(this.lift, this.tail);
+
+		this.computeVerticalLift(0, 0, this.tailSize, verStabInclination, this.verStabLiftSlope);
+		addTo(this.forceDrone, this.lift);
+		addTo(this.tail, this.lift);
+		this.addMoment(0, 0, this.tailSize, this.tail);
+
+		//Thrust
+		this.forceDrone[2] -= thrust;
+
+		//Gravity
+		this.forceWorld[0] = 0;
+		this.forceWorld[1] = -(this.engineMass * this.gravity) - (this.tailMass * this.gravity) - 2*(this.wingMass * this.gravity);
+		this.forceWorld[2] = 0;
+
+		//Tyres
+		boolean inReach = state[2] <= this.wheelReach;
+		for (int i = 0; i < this.tyreCount; i++) {
+			float brakeForce;
+			switch (this.brakeIndex[i]) {
+				case RIGHT_BRAKE:
+					brakeForce = rightBrakeForce;
+					break;
+				case LEFT_BRAKE:
+					brakeForce = leftBrakeForce;
+					break;
+				default:
+					brakeForce = frontBrakeForce;
+			}
+			if ((brakeForce > this.rMax[i]) || (brakeForce < 0))
+				throw new IllegalArgumentException();
+			if (inReach)
+				this.computeTyre(i, state, brakeForce);
+		}
+
+		this.toWorld(this.forceDrone, this.tmp);
+		addTo(this.forceWorld, this.tmp);
+
+		result[0] = this.forceWorld[0] * (1/this.totalMass);
+		result[1] = this.forceWorld[1] * (1/this.totalMass);
+		result[2] = this.forceWorld[2] * (1/this.totalMass);
+
+		this.computeAngularAccelerations(result);
+	}
+
+	/**
+	 * Check whether the center of mass and all the tyres of a drone in the given state are above the ground.
+	 *
+	 * @param state
+	 * 			The state of the drone, with the layout of SystemDifferentialEquations.
+	 * @throws CrashException
+	 * 			The drone or one of its tyres is under the ground.
+	 */
+	public void checkGround(double[] state) throws CrashException {
+		if (state[2] <= 0)
+			throw new CrashException();
+		if (state[2] > this.wheelReach)
+			return;
+		double sinP = Math.sin(state[8]);
+		double cosP = Math.cos(state[8]);
+		double sinR = Math.sin(state[10]);
+		double cosR = Math.cos(state[10]);
+		for (int i = 0; i < this.tyreCount; i++) {
+			//Second row of the rotation matrix, see prepareState
+			double height = state[2] + cosP*sinR*this.tyreX[i] + cosP*cosR*this.tyreY[i] - sinP*this.tyreZ[i];
+			if (height <= 0)
+				throw new CrashException();
+		}
+	}
+
+	/**
+	 * Calculate the rotation matrix and the velocities in drone coordinates for the given state.
+	 */
+	private void prepareState(double[] state) {
+		double heading = state[6];
+		double pitch = state[8];
+		double roll = state[10];
+		this.sinH = Math.sin(heading);
+		this.cosH = Math.cos(heading);
+		this.sinP = Math.sin(pitch);
+		this.cosP = Math.cos(pitch);
+		this.sinR = Math.sin(roll);
+		this.cosR = Math.cos(roll);
+
+		//inverseHeading * inversePitch * inverseRoll, see Drone.getRotationMatrix()
+		double[] m = this.rotation;
+		m[0] = this.cosH*this.cosR + this.sinH*this.sinP*this.sinR;
+		m[1] = -this.cosH*this.sinR + this.sinH*this.sinP*this.cosR;
+		m[2] = this.sinH*this.cosP;
+		m[3] = this.cosP*this.sinR;
+		m[4] = this.cosP*this.cosR;
+		m[5] = -this.sinP;
+		m[6] = -this.sinH*this.cosR + this.cosH*this.sinP*this.sinR;
+		m[7] = this.sinH*this.sinR + this.cosH*this.sinP*this.cosR;
+		m[8] = this.cosH*this.cosP;
+
+		double headingVelocity = state[7];
+		double pitchVelocity = state[9];
+		double rollVelocity = state[11];
+		this.stateVelocities[0] = headingVelocity;
+		this.stateVelocities[1] = pitchVelocity;
+		this.stateVelocities[2] = rollVelocity;
+		//Heading, pitch and roll angular velocity vectors in world coordinates, summed.
+		this.angularVelocityWorld[0] = this.cosH*pitchVelocity + this.sinH*this.cosP*rollVelocity;
+		this.angularVelocityWorld[1] = headingVelocity - this.sinP*rollVelocity;
+		this.angularVelocityWorld[2] = -this.sinH*pitchVelocity + this.cosH*this.cosP*rollVelocity;
+		this.toDrone(this.angularVelocityWorld, this.angularVelocityDrone);
+
+		this.tmp[0] = state[1];
+		this.tmp[1] = state[3];
+		this.tmp[2] = state[5];
+		this.toDrone(this.tmp, this.velocityDrone);
+	}
+
+	/**
+	 * Calculate the lift force on a horizontal airfoil (a wing or the horizontal stabilizer) in drone coordinates
+	 * and store it in the lift buffer.
+	 */
+	private void computeHorizontalLift(double x, double y, double z, float inclination, float liftSlope) {
+		double sin = Math.sin(inclination);
+		double cos = Math.cos(inclination);
+		this.projectedVelocity(x, y, z, 0);
+		double[] v = this.tmp;
+		//Normal = axis (1, 0, 0) x attack vector (0, sin, -cos)
+		float liftForce = this.liftForce(
+				cos*v[1] + sin*v[2],
+				sin*v[1] - cos*v[2],
+				v, liftSlope);
+		this.lift[0] = 0;
+		this.lift[1] = cos*liftForce;
+		this.lift[2] = sin*liftForce;
+	}
+
+	/**
+	 * Calculate the lift force on the vertical stabilizer in drone coordinates and store it in the lift buffer.
+	 */
+	private void computeVerticalLift(double x, double y, double z, float inclination, float liftSlope) {
+		double sin = Math.sin(inclination);
+		double cos = Math.cos(inclination);
+		this.projectedVelocity(x, y, z, 1);
+		double[] v = this.tmp;
+		//Normal = axis (0, 1, 0) x attack vector (-sin, 0, -cos)
+		float liftForce = this.liftForce(
+				-cos*v[0] + sin*v[2],
+				-sin*v[0] - cos*v[2],
+				v, liftSlope);
+		this.lift[0] = -cos*liftForce;
+		this.lift[1] = 0;
+		this.lift[2] = sin*liftForce;
+	}
+
+	/**
+	 * Store the velocity of the point with the given position (in drone coordinates) in the tmp buffer,
+	 * in drone coordinates and with the given component set to zero.
+	 */
+	private void projectedVelocity(double x, double y, double z, int zeroComponent) {
+		double[] w = this.angularVelocityDrone;
+		double[] v = this.tmp;
+		v[0] = this.velocityDrone[0] + w[1]*z - w[2]*y;
+		v[1] = this.velocityDrone[1] + w[2]*x - w[0]*z;
+		v[2] = this.velocityDrone[2] + w[0]*y - w[1]*x;
+		v[zeroComponent] = 0;
+	}
+
+	/**
+	 * Return the magnitude of the lift force, see Drone.getLiftForceLeftWing(float).
+	 */
+	private float liftForce(double normalDotVelocity, double attackDotVelocity, double[] projectedVelocity, float liftSlope)
+			throws IllegalArgumentException {
+		float AOA = (float) -Math.atan2(normalDotVelocity, attackDotVelocity);
+		float liftForce = (float) (AOA * liftSlope * dot(projectedVelocity, projectedVelocity));
+		if ((liftForce >= 50) && ((AOA > this.maxAOA) || (AOA < -this.maxAOA)))
+			throw new IllegalArgumentException();
+		return liftForce;
+	}
+
+	/**
+	 * Add the moment of the given force (in drone coordinates) on the point with the given position (in drone coordinates).
+	 */
+	private void addMoment(double x, double y, double z, double[] force) {
+		this.moment[0] += y*force[2] - z*force[1];
+		this.moment[1] += z*force[0] - x*force[2];
+		this.moment[2] += x*force[1] - y*force[0];
+	}
+
+	/**
+	 * Add the force and moment of the tyre with the given index, see Tyre.getTyreForce(Drone, float)
+	 * and Tyre.getTyreMoment(Drone, float).
+	 */
+	private void computeTyre(int i, double[] state, float wheelBrakeForce) throws IllegalArgumentException, CrashException {
+		//Position of the tyre relative to the center of mass, in world coordinates.
+		this.tmp[0] = this.tyreX[i];
+		this.tmp[1] = this.tyreY[i];
+		this.tmp[2] = this.tyreZ[i];
+		this.toWorld(this.tmp, this.tyreGround);
+
+		double height = state[2] + this.tyreGround[1];
+		if (height <= 0)
+			throw new CrashException();
+		float d = (float) (this.tyreRadius[i] - height);
+		if (d <= 0)
+			return;
+
+		//Position of the contact point with the ground, relative to the center of mass, in world coordinates.
+		double distanceToGround = this.tyreRadius[i] - d;
+		this.tyreGround[0] -= this.rotation[1]*distanceToGround;
+		this.tyreGround[1] -= this.rotation[4]*distanceToGround;
+		this.tyreGround[2] -= this.rotation[7]*distanceToGround;
+
+		//Velocity of the contact point, in world and in drone coordinates.
+		double[] w = this.angularVelocityWorld;
+		double[] r = this.tyreGround;
+		double[] velocity = this.tmp;
+		velocity[0] = state[1] + w[1]*r[2] - w[2]*r[1];
+		velocity[1] = state[3] + w[2]*r[0] - w[0]*r[2];
+		velocity[2] = state[5] + w[0]*r[1] - w[1]*r[0];
+		this.toDrone(velocity, this.tmp2);
+		float velocityD = (float) -this.tmp2[1];
+		float lateralVelocity = (float) this.tmp2[0];
+
+		double[] force = this.tyreForce;
+		force[0] = 0;
+		force[1] = this.tyreSlope[i]*d + this.dampSlope[i]*velocityD;
+		force[2] = 0;
+
+		if (this.hasFriction[i]) {
+			double friction = -this.fcMax[i] * force[1] * lateralVelocity;
+			force[0] += this.rotation[0]*friction;
+			force[1] += this.rotation[3]*friction;
+			force[2] += this.rotation[6]*friction;
+		}
+
+		double brakeX = velocity[0];
+		double brakeZ = velocity[2];
+		double norm = Math.sqrt(brakeX*brakeX + brakeZ*brakeZ);
+		if (norm == 0) {
+			brakeX = force[1];
+			brakeZ = force[2];
+			norm = Math.sqrt(brakeX*brakeX + brakeZ*brakeZ);
+			if (norm < wheelBrakeForce)
+				throw new IllegalArgumentException();
+		}
+		if (norm != 0) {
+			brakeX *= -(1/norm);
+			brakeZ *= -(1/norm);
+		}
+		force[0] += brakeX * wheelBrakeForce;
+		force[2] += brakeZ * wheelBrakeForce;
+
+		addTo(this.forceWorld, force);
+
+		//Moment in drone coordinates
+		this.toDrone(this.tyreGround, this.tmp);
+		this.toDrone(force, this.tmp2);
+		this.addMoment(this.tmp[0], this.tmp[1], this.tmp[2], this.tmp2);
+	}
+
+	/**
+	 * Solve the momentum equation for the angular accelerations, see Drone.getAngularAccelerations.
+	 * The angular accelerations are stored in the last three elements of the given result array.
+	 */
+	private void computeAngularAccelerations(double[] result) {
+		double[] w = this.angularVelocityDrone;
+		double ixx = this.inertiaXX;
+		double iyy = this.inertiaYY;
+		double izz = this.inertiaZZ;
+
+		double[] b = this.constants;
+		copy(this.moment, b);
+
+		//Subtract w x (I w)
+		double lx = ixx*w[0];
+		double ly = iyy*w[1];
+		double lz = izz*w[2];
+		b[0] -= w[1]*lz - w[2]*ly;
+		b[1] -= w[2]*lx - w[0]*lz;
+		b[2] -= w[0]*ly - w[1]*lx;
+
+		//Subtract I (headingVector x pitchVector + (headingVector + pitchVector) x rollVector), in drone coordinates
+		double headingVelocity = this.stateVelocities[0];
+		double pitchVelocity = this.stateVelocities[1];
+		double rollVelocity = this.stateVelocities[2];
+		double hx = 0, hy = headingVelocity, hz = 0;
+		double px = this.cosH*pitchVelocity, py = 0, pz = -this.sinH*pitchVelocity;
+		double rx = this.sinH*this.cosP*rollVelocity, ry = -this.sinP*rollVelocity, rz = this.cosH*this.cosP*rollVelocity;
+		double sx = hx + px, sy = hy + py, sz = hz + pz;
+		this.tmp[0] = (hy*pz - hz*py) + (sy*rz - sz*ry);
+		this.tmp[1] = (hz*px - hx*pz) + (sz*rx - sx*rz);
+		this.tmp[2] = (hx*py - hy*px) + (sx*ry - sy*rx);
+		this.toDrone(this.tmp, this.tmp2);
+		b[0] -= ixx*this.tmp2[0];
+		b[1] -= iyy*this.tmp2[1];
+		b[2] -= izz*this.tmp2[2];
+
+		AngularAccelerationSolver.solve(ixx, iyy, izz, this.sinP, this.cosP, this.sinR, this.cosR, b, this.solution);
+
+		result[3] = (float) this.solution[0];
+		result[4] = (float) this.solution[1];
+		result[5] = (float) this.solution[2];
+	}
+
+    //     -----------------     //
+    //                           //
+    //       HELPER METHODS      //
+    //                           //
+    //     -----------------     //
+	/**
+	 * Transform the given vector from drone coordinates to world coordinates.
+	 */
+	private void toWorld(double[] v, double[] out) {
+		double[] m = this.rotation;
+		double x = v[0], y = v[1], z = v[2];
+		out[0] = m[0]*x + m[1]*y + m[2]*z;
+		out[1] = m[3]*x + m[4]*y + m[5]*z;
+		out[2] = m[6]*x + m[7]*y + m[8]*z;
+	}
+
+	/**
+	 * Transform the given vector from world coordinates to drone coordinates.
+	 */
+	private void toDrone(double[] v, double[] out) {
+		double[] m = this.rotation;
+		double x = v[0], y = v[1], z = v[2];
+		out[0] = m[0]*x + m[3]*y + m[6]*z;
+		out[1] = m[1]*x + m[4]*y + m[7]*z;
+		out[2] = m[2]*x + m[5]*y + m[8]*z;
+	}
+
+	private static void zero(double[] v) {
+		v[0] = 0;
+		v[1] = 0;
+		v[2] = 0;
+	}
+
+	private static void copy(double[] from, double[] to) {
+		to[0] = from[0];
+		to[1] = from[1];
+		to[2] = from[2];
+	}
+
+	private static void addTo(double[] v, double[] w) {
+		v[0] += w[0];
+		v[1] += w[1];
+		v[2] += w[2];
+	}
+
+	private static double dot(double[] v, double[] w) {
+		return v[0]*w[0] + v[1]*w[1] + v[2]*w[2];
+	}
+}
@@ -0,0 +1,106 @@
+package be.kuleuven.cs.robijn.common.math;
+
+import java.util.Arrays;
+
+/**
+ * A uniform grid of cubic cells over a set of points, stored in a hash table.
+ *
+ * Two points of which the distance is smaller than the size of a cell are always in the same
+ * or in a neighbouring cell, so only those pairs have to be tested for proximity instead of all pairs.
+ * The hash is rebuilt for every set of points and reuses its arrays, so it does not allocate
+ * once it has been built for the largest amount of points.
+ */
+public class SpatialHash {
+
+	/**
+	 * An action that is performed for a pair of points.
+	 */
+	public interface PairConsumer {
+
+		/**
+		 * @param i
+		 * 			The index of the first point.
+		 * @param j
+		 * 			The index of the second point, with i < j.
+		 */
+		void accept(int i, int j);
+	}
+
+	//The cells of the points, indexed like the points
+	private long[] cellX = new long[0], cellY = new long[0], cellZ = new long[0];
+	//The first point of every bucket and the next point in the same bucket, or -1
+	private int[] bucketHead = new int[0];
+	private int[] nextInBucket = new int[0];
+	private int amount = 0;
+
+	/**
+	 * Put the given points in the hash, with cubic cells of the given size.
+	 *
+	 * @param positions
+	 * 			The coordinates of the points: {x0, y0, z0, x1, y1, z1, ...}.
+	 * @param amount
+	 * 			The amount of points.
+	 * @param cellSize
+	 * 			The size of the cells.
+	 * @throws IllegalArgumentException
+	 * 			The cell size is not positive and finite.
+	 */
+	public void build(double[] positions, int amount, double cellSize) throws IllegalArgumentException {
+		if (! (cellSize > 0) || Double.isInfinite(cellSize))
+			throw new IllegalArgumentException("cell size must be positive and finite");
+		if (this.cellX.length < amount) {
+			this.cellX = new long[amount];
+			this.cellY = new long[amount];
+			this.cellZ = new long[amount];
+			this.nextInBucket = new int[amount];
+		}
+		//At least twice as many buckets as points, as a power of two
+		int buckets = Integer.highestOneBit(Math.max(1, amount)) * 4;
+		if (this.bucketHead.length != buckets)
+			this.bucketHead = new int[buckets];
+		Arrays.fill(this.bucketHead, -1);
+
+		int mask = buckets - 1;
+		for (int i = 0; i < amount; i++) {
+			this.cellX[i] = (long) Math.floor(positions[3*i] / cellSize);
+			this.cellY[i] = (long) Math.floor(positions[3*i + 1] / cellSize);
+			this.cellZ[i] = (long) Math.floor(positions[3*i + 2] / cellSize);
+			int bucket = hash(this.cellX[i], this.cellY[i], this.cellZ[i]) & mask;
+			this.nextInBucket[i] = this.bucketHead[bucket];
+			this.bucketHead[bucket] = i;
+		}
+		this.amount = amount;
+	}
+
+	/**
+	 * Perform the given action once for every pair of points in the same or in neighbouring cells.
+	 *
+	 * @return The amount of pairs.
+	 */
+	public int forEachNeighbourPair(PairConsumer action) {
+		int mask = this.bucketHead.length - 1;
+		int pairs = 0;
+		for (int i = 0; i < this.amount; i++) {
+			for (long dx = -1; dx <= 1; dx++) {
+				for (long dy = -1; dy <= 1; dy++) {
+					for (long dz = -1; dz <= 1; dz++) {
+						long cx = this.cellX[i] + dx, cy = this.cellY[i] + dy, cz = this.cellZ[i] + dz;
+						for (int j = this.bucketHead[hash(cx, cy, cz) & mask]; j >= 0; j = this.nextInBucket[j]) {
+							//Skip points of other cells in the same bucket, and visit every pair only once
+							if (j <= i || this.cellX[j] != cx || this.cellY[j] != cy || this.cellZ[j] != cz)
+								continue;
+							pairs++;
+							action.accept(i, j);
+						}
+					}
+				}
+			}
+		}
+		return pairs;
+	}
+
+	private static int hash(long cx, long cy, long cz) {
+		long h = cx * 73856093L ^ cy * 19349663L ^ cz * 83492791L;
+		return (int) (h ^ (h >>> 32));
+	}
+}
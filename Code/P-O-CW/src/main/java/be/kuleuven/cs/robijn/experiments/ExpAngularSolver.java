@@ -0,0 +1,85 @@
+package be.kuleuven.cs.robijn.experiments;
+
+import java.util.Random;
+
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.DecompositionSolver;
+import org.apache.commons.math3.linear.LUDecomposition;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.RealVector;
+
+import be.kuleuven.cs.robijn.common.math.AngularAccelerationSolver;
+
+/**
+ * Microbenchmark comparing the closed form solver for the angular accelerations of a drone
+ * with the LU decomposition that was used before.
+ */
+public class ExpAngularSolver {
+
+	private static final int SAMPLES = 1024;
+	private static final int ITERATIONS = 2000;
+	private static final int ROUNDS = 5;
+
+	private static final double INERTIA_XX = 29.0;
+	private static final double INERTIA_ZZ = 250.0;
+	private static final double INERTIA_YY = INERTIA_XX + INERTIA_ZZ;
+
+	public static void main(String[] args) {
+		Random random = new Random(42);
+		double[] pitches = new double[SAMPLES];
+		double[] rolls = new double[SAMPLES];
+		double[][] constants = new double[SAMPLES][];
+		for (int i = 0; i < SAMPLES; i++) {
+			pitches[i] = (random.nextDouble() - 0.5) * 0.9 * Math.PI;
+			rolls[i] = random.nextDouble() * 2 * Math.PI;
+			constants[i] = new double[] {random.nextGaussian()*100, random.nextGaussian()*100, random.nextGaussian()*100};
+		}
+
+		double maxError = 0;
+		for (int i = 0; i < SAMPLES; i++) {
+			double[] lu = solveLU(pitches[i], rolls[i], constants[i]);
+			double[] closedForm = AngularAccelerationSolver.solve(INERTIA_XX, INERTIA_YY, INERTIA_ZZ, pitches[i], rolls[i], constants[i]);
+			for (int k = 0; k < 3; k++)
+				maxError = Math.max(maxError, Math.abs(lu[k] - closedForm[k]));
+		}
+		System.out.println("Maximum difference between both solvers: " + maxError);
+
+		double[] solution = new double[3];
+		for (int round = 0; round < ROUNDS; round++) {
+			double checksum = 0;
+			long start = System.nanoTime();
+			for (int it = 0; it < ITERATIONS; it++) {
+				for (int i = 0; i < SAMPLES; i++)
+					checksum += solveLU(pitches[i], rolls[i], constants[i])[0];
+			}
+			long luTime = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			for (int it = 0; it < ITERATIONS; it++) {
+				for (int i = 0; i < SAMPLES; i++) {
+					AngularAccelerationSolver.solve(INERTIA_XX, INERTIA_YY, INERTIA_ZZ,
+							Math.sin(pitches[i]), Math.cos(pitches[i]), Math.sin(rolls[i]), Math.cos(rolls[i]), constants[i], solution);
+					checksum -= solution[0];
+				}
+			}
+			long closedFormTime = System.nanoTime() - start;
+
+			double solves = (double) ITERATIONS * SAMPLES;
+			System.out.printf("Round %d: LU %.1f ns/solve, closed form %.1f ns/solve, speedup %.1fx (checksum %.3f)%n",
+					round, luTime / solves, closedFormTime / solves, (double) luTime / closedFormTime, checksum);
+		}
+	}
+
+	private static double[] solveLU(double pitch, double roll, double[] constants) {
+		RealMatrix coefficients =
+				new Array2DRowRealMatrix(new double[][] {
+					{INERTIA_XX * Math.cos(pitch) * Math.sin(roll),    INERTIA_XX * Math.cos(roll),     0},
+					{INERTIA_YY * Math.cos(pitch) * Math.cos(roll),    -INERTIA_YY * Math.sin(roll),    0},
+					{-INERTIA_ZZ * Math.sin(pitch),                    0,                               INERTIA_ZZ}
+				}, false);
+		DecompositionSolver solver = new LUDecomposition(coefficients).getSolver();
+		RealVector solution = solver.solve(new ArrayRealVector(constants, false));
+		return solution.toArray();
+	}
+}
@@ -0,0 +1,99 @@
+package be.kuleuven.cs.robijn.experiments;
+
+import be.kuleuven.cs.robijn.common.PackageLoadGenerator;
+import be.kuleuven.cs.robijn.common.PackageLoadGenerator.ArrivalProcess;
+import be.kuleuven.cs.robijn.common.Resources;
+import be.kuleuven.cs.robijn.common.SimulationDriver;
+import be.kuleuven.cs.robijn.common.SimulationSettings;
+import be.kuleuven.cs.robijn.common.SimulationSettings.AirportDefinition;
+import be.kuleuven.cs.robijn.common.SimulationSettings.DroneDefinition;
+import be.kuleuven.cs.robijn.common.airports.generator.AirportGenerator;
+import be.kuleuven.cs.robijn.common.airports.generator.GridAirportGenerator;
+import be.kuleuven.cs.robijn.common.stopwatch.ConstantIntervalStopwatch;
+import interfaces.AutopilotConfig;
+import interfaces.AutopilotConfigReader;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Supplier;
+
+/**
+ * Runs the same package load on fleets of different sizes and prints the sustained deliveries per simulated hour.
+ */
+public class ThroughputBenchmark {
+    private static final int AIRPORT_COUNT = 4;
+    private static final float AIRPORT_DISTANCE = 2000;
+    private static final int UPDATES_PER_SECOND = 30;
+    private static final double RUNTIME_IN_SECONDS = 2 * 3600;
+    //The deliveries during the warmup are left out
+    private static final double WARMUP_IN_SECONDS = 1800;
+    private static final long SEED = 42;
+
+    public static void main(String[] args) {
+        runLoad("Poisson", () -> ArrivalProcess.poisson(60));
+        runLoad("Bursty", () -> ArrivalProcess.bursty(60, 4, 300, 1200));
+        runLoad("Diurnal", () -> ArrivalProcess.diurnal(60, 0.8, RUNTIME_IN_SECONDS));
+    }
+
+    private static void runLoad(String name, Supplier<ArrivalProcess> process){
+        System.out.printf("%s load:\n", name);
+        System.out.printf("    %-10s | %-15s | %-15s | %-15s | %-15s\n", "Drones", "Added", "Dropped", "Delivered", "Deliveries/hour");
+        for(int droneCount = 1; droneCount <= 2 * AIRPORT_COUNT; droneCount *= 2){
+            try{
+                PackageLoadGenerator generator = run(droneCount, process.get());
+                long delivered = generator.getRecords().stream().filter(PackageLoadGenerator.PackageRecord::isDelivered).count();
+                System.out.printf("    %-10d | %-15d | %-15d | %-15d | %-15f\n", droneCount, generator.getRecords().size(),
+                        generator.getDroppedCount(), delivered,
+                        generator.getDeliveriesPerHour(WARMUP_IN_SECONDS, RUNTIME_IN_SECONDS));
+            }catch (Exception ex){
+                System.err.printf("    %-10d | CRITICAL_FAILURE (%s)\n", droneCount, ex.getMessage());
+            }
+        }
+        System.out.println();
+    }
+
+    private static PackageLoadGenerator run(int droneCount, ArrivalProcess process){
+        AirportGenerator.Settings airportSettings = new AirportGenerator.Settings();
+        airportSettings.setAirportCount(AIRPORT_COUNT);
+        airportSettings.setXDistBetweenAirports(AIRPORT_DISTANCE);
+        airportSettings.setZDistBetweenAirports(AIRPORT_DISTANCE);
+        AirportDefinition[] airports = new GridAirportGenerator().generate(airportSettings);
+
+        //Spread the drones over the gates of the airports
+        AutopilotConfig config = getDefaultConfig();
+        DroneDefinition[] drones = new DroneDefinition[droneCount];
+        for(int i = 0; i < droneCount; i++){
+            drones[i] = new DroneDefinition(config)
+                    .setAirport(airports[i % AIRPORT_COUNT])
+                    .setGate(i / AIRPORT_COUNT)
+                    .setRunwayToFace(0);
+        }
+
+        SimulationSettings settings = new SimulationSettings()
+                .setGateLength(30)
+                .setRunwayLength(280)
+                .setAirports(airports)
+                .setDrones(drones);
+
+        SimulationDriver driver = new SimulationDriver(settings, new ConstantIntervalStopwatch(1d/UPDATES_PER_SECOND), true);
+        PackageLoadGenerator generator = new PackageLoadGenerator(driver, process, SEED);
+        generator.start();
+
+        while(driver.getSimulationTime() < RUNTIME_IN_SECONDS){
+            driver.runUpdate();
+            if(driver.hasSimulationFinished() || driver.hasSimulationCrashed() || driver.hasSimulationThrownException()){
+                throw new IllegalStateException("the simulation stopped at " + driver.getSimulationTime() + " seconds");
+            }
+        }
+        return generator;
+    }
+
+    private static AutopilotConfig getDefaultConfig(){
+        try(DataInputStream in = new DataInputStream(Resources.getResourceStream("/default_autopilot_config.bin"))){
+            return AutopilotConfigReader.read(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
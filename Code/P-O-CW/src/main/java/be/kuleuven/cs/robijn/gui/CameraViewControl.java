@@ -38,6 +38,7 @@ import java.awt.image.DataBufferByte;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.Future;
 
@@ -183,7 +184,7 @@ public class CameraViewControl extends AnchorPane {
                 drone.addChild(label);
             }
 
-            ArrayList<Airport> childrenOfType = world.getChildrenOfType(Airport.class);
+            List<Airport> childrenOfType = world.getChildrenOfType(Airport.class);
             for (int i = 0; i < childrenOfType.size(); i++) {
                 Airport airport = childrenOfType.get(i);
                 Label3D label = new Label3D("Airport "+i);
@@ -524,7 +525,6 @@ public class CameraViewControl extends AnchorPane {
 
         TestBed testBed = simulationProperty.get().getTestBed();
         Renderer renderer = testBed.getRenderer();
-        WorldObject world = testBed.getWorldRepresentation();
 
         //Get the active camera and set its camera FOV to match the image width to height ratio so the image isnt warped/stretched.
         double aspect = ((double)frameBuffer.getWidth())/((double)frameBuffer.getHeight());
@@ -558,7 +558,7 @@ public class CameraViewControl extends AnchorPane {
         }
 
         if(renderTask == null || renderTask.isDone()){
-            renderTask = renderer.startRender(world, frameBuffer, activeCamera, testBed.getWorldStateLock());
+            renderTask = renderer.startRender(testBed.getLatestSnapshot(), frameBuffer, activeCamera);
         }
 
         //Update FPS counter
@@ -97,9 +97,8 @@ public class PackageListControl extends AnchorPane {
 
     public void addRandomPackage(Gate originGate){
         Gate[] gates = getSimulation().getTestBed().getWorldRepresentation()
-                .getDescendantsStream()
-                .filter(obj -> obj instanceof Gate && originGate != obj)
-                .map(o -> (Gate)o)
+                .getDescendantsOfType(Gate.class).stream()
+                .filter(g -> originGate != g)
                 .toArray(Gate[]::new);
 
         Gate destinationGate = gates[random.nextInt(gates.length)];
@@ -109,9 +108,7 @@ public class PackageListControl extends AnchorPane {
 
     public void addRandomPackage(){
         Gate[] gates = getSimulation().getTestBed().getWorldRepresentation()
-                .getDescendantsStream()
-                .filter(obj -> obj instanceof Gate)
-                .map(o -> (Gate)o)
+                .getDescendantsOfType(Gate.class).stream()
                 .toArray(Gate[]::new);
 
         Gate destinationGate = gates[random.nextInt(gates.length)];
@@ -210,7 +210,7 @@ public class SidebarControl extends VBox {
 
         positionLabel.setText(String.format("X:%6.2f  Y:%6.2f  Z:%6.2f", in.getX(), in.getY(), in.getZ()));
 
-        upsLabel.setText(getSimulation().getUpdatesPerSecond()+"");
+        upsLabel.setText(String.format("%d (%.2fs behind, %d asleep)", getSimulation().getUpdatesPerSecond(), getSimulation().getSecondsBehind(), getSimulation().getSleepingDroneCount()));
 
         //Heading
         setIndicatorValue(headingIndicator, remap360to180(in.getHeading()), Math.PI*2d);
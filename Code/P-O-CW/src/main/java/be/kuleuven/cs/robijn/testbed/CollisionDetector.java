@@ -0,0 +1,219 @@
+package be.kuleuven.cs.robijn.testbed;
+
+import be.kuleuven.cs.robijn.common.math.SpatialHash;
+import be.kuleuven.cs.robijn.worldObjects.Drone;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds the pairs of drones that are closer to each other than the collision distance.
+ *
+ * The broad phase puts every drone in a spatial hash with the collision distance as cell size,
+ * which is rebuilt on every call. Only the drones in the same or in a neighbouring cell
+ * can collide, so only those pairs are passed to the exact distance check of the narrow phase.
+ * The amount of candidate pairs is kept as a metric of the cost of the broad phase.
+ *
+ * Positions that are only sampled at the end of each step can miss two drones that pass through each other
+ * within one step. The swept check therefore tests the spheres that the drones sweep from their start to their
+ * end position: every drone moves at a constant velocity during the step, and the pair collides if the smallest
+ * distance between the centers during the step is smaller than the collision distance.
+ */
+public class CollisionDetector {
+
+	/**
+	 * The default distance (in meters) between the centers of two drones under which they collide.
+	 */
+	public static final double DEFAULT_COLLISION_DISTANCE = 5;
+
+	private final double collisionDistance;
+
+	//Positions of the drones in findCollidingDrones and midpoints of the swept check, indexed like the points
+	private double[] positions = new double[0];
+	private double[] midpoints = new double[0];
+	private final SpatialHash grid = new SpatialHash();
+
+	private int lastCandidatePairCount = 0;
+	private long lastDetectionNanos = 0;
+
+	public CollisionDetector() {
+		this(DEFAULT_COLLISION_DISTANCE);
+	}
+
+	/**
+	 * @param collisionDistance
+	 * 			The distance between the centers of two drones under which they collide.
+	 * @throws IllegalArgumentException
+	 * 			The given distance is not positive and finite.
+	 */
+	public CollisionDetector(double collisionDistance) throws IllegalArgumentException {
+		if (! (collisionDistance > 0) || Double.isInfinite(collisionDistance))
+			throw new IllegalArgumentException("collision distance must be positive and finite");
+		this.collisionDistance = collisionDistance;
+	}
+
+	public double getCollisionDistance() {
+		return this.collisionDistance;
+	}
+
+	/**
+	 * Return the amount of pairs that the broad phase passed to the narrow phase in the last collision check.
+	 * A brute force check would test n*(n-1)/2 pairs.
+	 */
+	public int getLastCandidatePairCount() {
+		return this.lastCandidatePairCount;
+	}
+
+	/**
+	 * Return the time (in nanoseconds) spent in the last collision check, including the narrow phase.
+	 */
+	public long getLastDetectionNanos() {
+		return this.lastDetectionNanos;
+	}
+
+	/**
+	 * Store the world positions of the given drones in the given array, as {x0, y0, z0, x1, y1, z1, ...}.
+	 *
+	 * @return The given array, or a new array if the given array is null or too small.
+	 */
+	public static double[] getPositions(List<Drone> drones, double[] result) {
+		if (result == null || result.length < 3*drones.size())
+			result = new double[3*drones.size()];
+		for (int i = 0; i < drones.size(); i++) {
+			Drone drone = drones.get(i);
+			result[3*i] = drone.getWorldX();
+			result[3*i + 1] = drone.getWorldY();
+			result[3*i + 2] = drone.getWorldZ();
+		}
+		return result;
+	}
+
+	/**
+	 * Return the drones of the given list that collide with at least one other drone, in the order of the given list.
+	 */
+	public List<Drone> findCollidingDrones(List<Drone> drones) {
+		this.positions = getPositions(drones, this.positions);
+		return select(drones, this.findCollidingPairs(this.positions, drones.size()));
+	}
+
+	/**
+	 * Return the drones of the given list that collided with at least one other drone while they moved
+	 * from the given start positions to their current positions, in the order of the given list.
+	 *
+	 * @param startPositions
+	 * 			The positions of the drones at the start of the step, see getPositions.
+	 * @throws IllegalArgumentException
+	 * 			There is no start position for every drone.
+	 */
+	public List<Drone> findCollidingDrones(List<Drone> drones, double[] startPositions) throws IllegalArgumentException {
+		if (startPositions.length < 3*drones.size())
+			throw new IllegalArgumentException("there must be a start position for every drone");
+		this.positions = getPositions(drones, this.positions);
+		return select(drones, this.findCollidingPairs(startPositions, this.positions, drones.size()));
+	}
+
+	private static List<Drone> select(List<Drone> drones, List<int[]> pairs) {
+		boolean[] colliding = new boolean[drones.size()];
+		for (int[] pair : pairs) {
+			colliding[pair[0]] = true;
+			colliding[pair[1]] = true;
+		}
+		List<Drone> result = new ArrayList<>();
+		for (int i = 0; i < drones.size(); i++) {
+			if (colliding[i])
+				result.add(drones.get(i));
+		}
+		return result;
+	}
+
+	/**
+	 * Return all the pairs of points of which the distance is smaller than the collision distance.
+	 * Every pair is returned once as {i, j} with i < j.
+	 *
+	 * @param positions
+	 * 			The coordinates of the points: {x0, y0, z0, x1, y1, z1, ...}.
+	 * @param amount
+	 * 			The amount of points.
+	 */
+	public List<int[]> findCollidingPairs(double[] positions, int amount) {
+		return this.findPairs(positions, null, amount);
+	}
+
+	/**
+	 * Return all the pairs of points that came closer to each other than the collision distance
+	 * while they moved in a straight line from their start to their end position.
+	 * Every pair is returned once as {i, j} with i < j.
+	 *
+	 * @param startPositions
+	 * 			The coordinates of the points at the start of the step: {x0, y0, z0, x1, y1, z1, ...}.
+	 * @param endPositions
+	 * 			The coordinates of the points at the end of the step.
+	 * @param amount
+	 * 			The amount of points.
+	 */
+	public List<int[]> findCollidingPairs(double[] startPositions, double[] endPositions, int amount) {
+		return this.findPairs(startPositions, endPositions, amount);
+	}
+
+	/**
+	 * Return the pairs of points that collide, with a swept check if the end positions are not null.
+	 */
+	private List<int[]> findPairs(double[] start, double[] end, int amount) {
+		long startTime = System.nanoTime();
+		if (end == null) {
+			this.grid.build(start, amount, this.collisionDistance);
+		} else {
+			//Two segments that come closer than the collision distance have midpoints that are at most
+			//the collision distance plus half of both displacements apart
+			if (this.midpoints.length < 3*amount)
+				this.midpoints = new double[3*amount];
+			double maxDisplacement = 0;
+			for (int i = 0; i < 3*amount; i += 3) {
+				double dx = end[i] - start[i], dy = end[i + 1] - start[i + 1], dz = end[i + 2] - start[i + 2];
+				maxDisplacement = Math.max(maxDisplacement, Math.sqrt(dx*dx + dy*dy + dz*dz));
+				this.midpoints[i] = (start[i] + end[i]) / 2;
+				this.midpoints[i + 1] = (start[i + 1] + end[i + 1]) / 2;
+				this.midpoints[i + 2] = (start[i + 2] + end[i + 2]) / 2;
+			}
+			this.grid.build(this.midpoints, amount, this.collisionDistance + maxDisplacement);
+		}
+
+		List<int[]> pairs = new ArrayList<>();
+		double limit = this.collisionDistance * this.collisionDistance;
+		int candidates = this.grid.forEachNeighbourPair((i, j) -> {
+			double distance = (end == null) ? squaredDistance(start, i, j) : squaredSweptDistance(start, end, i, j);
+			if (distance < limit)
+				pairs.add(new int[] {i, j});
+		});
+		this.lastCandidatePairCount = candidates;
+		this.lastDetectionNanos = System.nanoTime() - startTime;
+		return pairs;
+	}
+
+	private static double squaredDistance(double[] positions, int i, int j) {
+		double deltaX = positions[3*i] - positions[3*j];
+		double deltaY = positions[3*i + 1] - positions[3*j + 1];
+		double deltaZ = positions[3*i + 2] - positions[3*j + 2];
+		return deltaX*deltaX + deltaY*deltaY + deltaZ*deltaZ;
+	}
+
+	/**
+	 * Return the smallest squared distance between the points i and j during the step.
+	 * The relative position is p + t*v with t in [0, 1], which is closest to the origin
+	 * | t = clamp(-(p . v) / (v . v), 0, 1)
+	 */
+	private static double squaredSweptDistance(double[] start, double[] end, int i, int j) {
+		double px = start[3*i] - start[3*j];
+		double py = start[3*i + 1] - start[3*j + 1];
+		double pz = start[3*i + 2] - start[3*j + 2];
+		double vx = (end[3*i] - end[3*j]) - px;
+		double vy = (end[3*i + 1] - end[3*j + 1]) - py;
+		double vz = (end[3*i + 2] - end[3*j + 2]) - pz;
+		double vv = vx*vx + vy*vy + vz*vz;
+		double t = 0;
+		if (vv > 0)
+			t = Math.min(1, Math.max(0, -(px*vx + py*vy + pz*vz) / vv));
+		double x = px + t*vx, y = py + t*vy, z = pz + t*vz;
+		return x*x + y*y + z*z;
+	}
+}
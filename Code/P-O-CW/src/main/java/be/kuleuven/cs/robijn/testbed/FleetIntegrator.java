@@ -0,0 +1,431 @@
+package be.kuleuven.cs.robijn.testbed;
+
+import be.kuleuven.cs.robijn.common.airports.AirportPackage;
+import be.kuleuven.cs.robijn.common.exceptions.CrashException;
+import be.kuleuven.cs.robijn.common.math.DroneDynamics;
+import be.kuleuven.cs.robijn.common.math.SystemDifferentialEquations;
+import be.kuleuven.cs.robijn.testbed.integration.Derivatives;
+import be.kuleuven.cs.robijn.testbed.integration.IntegrationMethod;
+import be.kuleuven.cs.robijn.testbed.integration.StateIntegrator;
+import be.kuleuven.cs.robijn.worldObjects.Drone;
+import interfaces.AutopilotOutputs;
+import org.apache.commons.math3.linear.ArrayRealVector;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Integrates the movement of all the drones of a simulation at once.
+ *
+ * The states of all drones are kept in one contiguous array, with the layout of SystemDifferentialEquations
+ * for every drone. A step integrates this array with the chosen integration method, split in chunks of drones
+ * that are divided over the cores with fork/join. Every drone has its own integrator, which is reused between steps.
+ * The drone objects themselves are only updated by commit(), so multiple steps can be taken before the rest of the world
+ * has to see the new states.
+ *
+ * Once a drone is loaded, this integrator owns its state: the state is only read from the drone when it is loaded,
+ * and commit() overwrites any change that was made to the position, velocity or orientation of the drone in another way.
+ * Call reload(Drone) after such a change.
+ *
+ * Drones that stand still without thrust, for example while they wait at a gate, are put to sleep:
+ * their state is no longer integrated until their autopilot outputs or their package change.
+ */
+public class FleetIntegrator {
+
+	/**
+	 * The number of autopilot outputs that are stored for every drone:
+	 * {thrust, leftWing, rightWing, horStab, verStab, frontBrake, leftBrake, rightBrake}.
+	 */
+	public static final int CONTROL_SIZE = 8;
+
+	/**
+	 * The default amount of drones that is integrated by one task.
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 16;
+
+	/**
+	 * The amount of consecutive quiet steps after which a drone is put to sleep.
+	 */
+	public static final int STEPS_BEFORE_SLEEP = 10;
+
+	/**
+	 * The thresholds under which a drone is quiet: speed (m/s), angular velocities (rad/s),
+	 * acceleration (m/s^2), angular accelerations (rad/s^2) and thrust (N).
+	 */
+	public static final double SLEEP_VELOCITY = 0.01;
+	public static final double SLEEP_ANGULAR_VELOCITY = 0.001;
+	public static final double SLEEP_ACCELERATION = 0.01;
+	public static final double SLEEP_ANGULAR_ACCELERATION = 0.001;
+	public static final float SLEEP_THRUST = 0.001f;
+
+	private static final int STATE_SIZE = DroneDynamics.STATE_SIZE;
+
+	private final ForkJoinPool pool;
+	private final int chunkSize;
+
+	private IntegrationMethod integrationMethod = IntegrationMethod.RUNGE_KUTTA;
+	private boolean sleepEnabled = true;
+
+	private Drone[] drones = new Drone[0];
+	private DroneSlot[] slots = new DroneSlot[0];
+	private double[] states = new double[0];
+	private float[] controls = new float[0];
+
+	public FleetIntegrator() {
+		this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * @param pool
+	 * 			The pool that executes the integration tasks.
+	 * @param chunkSize
+	 * 			The amount of drones that is integrated by one task.
+	 * @throws IllegalArgumentException
+	 * 			The given pool is null or the given chunk size is not positive.
+	 */
+	public FleetIntegrator(ForkJoinPool pool, int chunkSize) throws IllegalArgumentException {
+		if (pool == null)
+			throw new IllegalArgumentException("pool cannot be null");
+		if (chunkSize <= 0)
+			throw new IllegalArgumentException("chunk size must be positive");
+		this.pool = pool;
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Make this integrator handle the given drones, in the given order.
+	 * If the drones differ from the drones that were loaded before, the state of every drone is read again.
+	 * Otherwise the states are not read, see reload(Drone).
+	 */
+	public void load(List<Drone> drones) {
+		if (isLoaded(drones))
+			return;
+
+		int amount = drones.size();
+		this.drones = drones.toArray(new Drone[amount]);
+		this.slots = new DroneSlot[amount];
+		this.states = new double[amount * STATE_SIZE];
+		this.controls = new float[amount * CONTROL_SIZE];
+		for (int i = 0; i < amount; i++) {
+			DroneSlot slot = new DroneSlot(i, this.drones[i].getDynamics(), this.integrationMethod.createIntegrator(STATE_SIZE));
+			slot.knownPackage = this.drones[i].getPackage();
+			DroneDynamics.readState(this.drones[i], slot.y);
+			System.arraycopy(slot.y, 0, this.states, i * STATE_SIZE, STATE_SIZE);
+			this.slots[i] = slot;
+		}
+	}
+
+	/**
+	 * Read the state of the given drone again, if it is loaded, and wake it.
+	 * This must be called after the drone was moved, turned or given a velocity outside this integrator,
+	 * or the next commit() undoes that change.
+	 */
+	public void reload(Drone drone) {
+		for (int i = 0; i < this.drones.length; i++) {
+			if (this.drones[i] == drone) {
+				DroneSlot slot = this.slots[i];
+				DroneDynamics.readState(drone, slot.y);
+				System.arraycopy(slot.y, 0, this.states, i * STATE_SIZE, STATE_SIZE);
+				slot.moved = false;
+				slot.wake();
+			}
+		}
+	}
+
+	private boolean isLoaded(List<Drone> drones) {
+		if (drones.size() != this.drones.length)
+			return false;
+		for (int i = 0; i < this.drones.length; i++) {
+			if (drones.get(i) != this.drones[i])
+				return false;
+		}
+		return true;
+	}
+
+	public IntegrationMethod getIntegrationMethod() {
+		return this.integrationMethod;
+	}
+
+	/**
+	 * Use the given integration method for all drones from now on.
+	 * The integrators of the loaded drones are replaced, which resets their statistics.
+	 *
+	 * @throws IllegalArgumentException
+	 * 			The given method is null.
+	 */
+	public void setIntegrationMethod(IntegrationMethod integrationMethod) throws IllegalArgumentException {
+		if (integrationMethod == null)
+			throw new IllegalArgumentException("integration method cannot be null");
+		this.integrationMethod = integrationMethod;
+		for (DroneSlot slot : this.slots)
+			slot.integrator = integrationMethod.createIntegrator(STATE_SIZE);
+	}
+
+	/**
+	 * Return the amount of times the derivatives of a drone were calculated by the integrators of the loaded drones.
+	 */
+	public long getEvaluationCount() {
+		long count = 0;
+		for (DroneSlot slot : this.slots)
+			count += slot.integrator.getEvaluationCount();
+		return count;
+	}
+
+	/**
+	 * Return the amount of steps the integrators of the loaded drones have taken.
+	 */
+	public long getAcceptedStepCount() {
+		long count = 0;
+		for (DroneSlot slot : this.slots)
+			count += slot.integrator.getAcceptedStepCount();
+		return count;
+	}
+
+	/**
+	 * Return the amount of steps the integrators of the loaded drones have rejected because the error was too large.
+	 */
+	public long getRejectedStepCount() {
+		long count = 0;
+		for (DroneSlot slot : this.slots)
+			count += slot.integrator.getRejectedStepCount();
+		return count;
+	}
+
+	public boolean isSleepEnabled() {
+		return this.sleepEnabled;
+	}
+
+	/**
+	 * Enable or disable putting quiet drones to sleep. Disabling it wakes all drones.
+	 */
+	public void setSleepEnabled(boolean sleepEnabled) {
+		this.sleepEnabled = sleepEnabled;
+		if (!sleepEnabled) {
+			for (DroneSlot slot : this.slots)
+				slot.wake();
+		}
+	}
+
+	/**
+	 * Return whether the drone with the given index is asleep.
+	 */
+	public boolean isSleeping(int drone) {
+		return this.slots[drone].sleeping;
+	}
+
+	/**
+	 * Return the amount of loaded drones that are asleep.
+	 */
+	public int getSleepingDroneCount() {
+		int count = 0;
+		for (DroneSlot slot : this.slots) {
+			if (slot.sleeping)
+				count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Wake the given drone, if it is loaded and asleep.
+	 */
+	public void wake(Drone drone) {
+		for (int i = 0; i < this.drones.length; i++) {
+			if (this.drones[i] == drone)
+				this.slots[i].wake();
+		}
+	}
+
+	public int getDroneCount() {
+		return this.drones.length;
+	}
+
+	/**
+	 * Return the given element of the state of the drone with the given index,
+	 * with the layout of SystemDifferentialEquations.
+	 */
+	public double getState(int drone, int element) {
+		return this.states[drone * STATE_SIZE + element];
+	}
+
+	/**
+	 * Use the given autopilot outputs for the drone with the given index in the next steps.
+	 * A sleeping drone is woken if the outputs differ from its previous outputs.
+	 */
+	public void setOutputs(int drone, AutopilotOutputs outputs) {
+		int offset = drone * CONTROL_SIZE;
+		boolean changed = setControl(offset, outputs.getThrust());
+		changed |= setControl(offset + 1, outputs.getLeftWingInclination());
+		changed |= setControl(offset + 2, outputs.getRightWingInclination());
+		changed |= setControl(offset + 3, outputs.getHorStabInclination());
+		changed |= setControl(offset + 4, outputs.getVerStabInclination());
+		changed |= setControl(offset + 5, outputs.getFrontBrakeForce());
+		changed |= setControl(offset + 6, outputs.getLeftBrakeForce());
+		changed |= setControl(offset + 7, outputs.getRightBrakeForce());
+		if (changed)
+			this.slots[drone].wake();
+	}
+
+	private boolean setControl(int index, float value) {
+		boolean changed = (this.controls[index] != value);
+		this.controls[index] = value;
+		return changed;
+	}
+
+	/**
+	 * Integrate the states of all drones over the given time.
+	 * The drone objects are not changed.
+	 *
+	 * @throws IllegalArgumentException
+	 * 			The given time is negative.
+	 * @throws CrashException
+	 * 			One of the drones or its tyres ends up under the ground.
+	 */
+	public void step(double seconds) throws IllegalArgumentException {
+		if (seconds < 0)
+			throw new IllegalArgumentException();
+		if (seconds == 0)
+			return;
+		StepTask task = new StepTask(0, this.drones.length, seconds);
+		if (this.drones.length <= this.chunkSize)
+			task.compute();
+		else
+			this.pool.invoke(task);
+	}
+
+	/**
+	 * Write the states of all drones to the drone objects.
+	 * The heading, pitch and roll are brought back between 0 and 2*PI and the angles and angular velocities
+	 * are rounded to floats, like they are stored in the drones.
+	 * Drones that have not moved since the last commit are skipped.
+	 */
+	public void commit() {
+		for (int i = 0; i < this.drones.length; i++) {
+			if (!this.slots[i].moved)
+				continue;
+			this.slots[i].moved = false;
+			int offset = i * STATE_SIZE;
+			double[] s = this.states;
+			s[offset + 6] = SystemDifferentialEquations.wrapAngle(s[offset + 6]);
+			s[offset + 8] = SystemDifferentialEquations.wrapAngle(s[offset + 8]);
+			s[offset + 10] = SystemDifferentialEquations.wrapAngle(s[offset + 10]);
+			s[offset + 7] = (float) s[offset + 7];
+			s[offset + 9] = (float) s[offset + 9];
+			s[offset + 11] = (float) s[offset + 11];
+
+			Drone drone = this.drones[i];
+			drone.setRelativePosition(new ArrayRealVector(new double[] {s[offset], s[offset + 2], s[offset + 4]}, false));
+			drone.setVelocity(new ArrayRealVector(new double[] {s[offset + 1], s[offset + 3], s[offset + 5]}, false));
+			drone.setHeading((float) s[offset + 6]);
+			drone.setPitch((float) s[offset + 8]);
+			drone.setRoll((float) s[offset + 10]);
+			drone.setHeadingAngularVelocity((float) s[offset + 7]);
+			drone.setPitchAngularVelocity((float) s[offset + 9]);
+			drone.setRollAngularVelocity((float) s[offset + 11]);
+		}
+	}
+
+	/**
+	 * A task that integrates the drones from start (inclusive) to end (exclusive).
+	 */
+	private class StepTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int start;
+		private final int end;
+		private final double seconds;
+
+		private StepTask(int start, int end, double seconds) {
+			this.start = start;
+			this.end = end;
+			this.seconds = seconds;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.end - this.start > chunkSize) {
+				int middle = (this.start + this.end) >>> 1;
+				invokeAll(new StepTask(this.start, middle, this.seconds), new StepTask(middle, this.end, this.seconds));
+				return;
+			}
+
+			for (int i = this.start; i < this.end; i++) {
+				int offset = i * STATE_SIZE;
+				DroneSlot slot = slots[i];
+				if (drones[i].getPackage() != slot.knownPackage) {
+					slot.knownPackage = drones[i].getPackage();
+					slot.wake();
+				}
+				if (slot.sleeping)
+					continue;
+				System.arraycopy(states, offset, slot.y, 0, STATE_SIZE);
+				slot.integrator.integrate(slot, slot.y, this.seconds);
+				slot.dynamics.checkGround(slot.y);
+				System.arraycopy(slot.y, 0, states, offset, STATE_SIZE);
+				slot.moved = true;
+				if (sleepEnabled)
+					slot.updateSleep();
+			}
+		}
+	}
+
+	/**
+	 * The integrator, the temporary arrays and the derivatives of one drone.
+	 */
+	private class DroneSlot implements Derivatives {
+
+		private final int index;
+		private final DroneDynamics dynamics;
+		private StateIntegrator integrator;
+		private final double[] y = new double[STATE_SIZE];
+		private final double[] accelerations = new double[DroneDynamics.RESULT_SIZE];
+
+		private boolean sleeping = false;
+		private int quietSteps = 0;
+		private boolean moved = false;
+		private AirportPackage knownPackage = null;
+
+		private DroneSlot(int index, DroneDynamics dynamics, StateIntegrator integrator) {
+			this.index = index;
+			this.dynamics = dynamics;
+			this.integrator = integrator;
+		}
+
+		@Override
+		public void compute(double[] y, double[] yDot) {
+			if (y[2] <= 0)
+				throw new CrashException();
+			int c = this.index * CONTROL_SIZE;
+			float[] u = controls;
+			this.dynamics.computeAccelerations(y, u[c], u[c + 1], u[c + 2], u[c + 3], u[c + 4], u[c + 5], u[c + 6], u[c + 7], this.accelerations);
+			for (int k = 0; k < 6; k++) {
+				yDot[2*k] = y[2*k + 1];
+				yDot[2*k + 1] = this.accelerations[k];
+			}
+		}
+
+		private void wake() {
+			this.sleeping = false;
+			this.quietSteps = 0;
+		}
+
+		/**
+		 * Put this drone to sleep if it has been quiet for STEPS_BEFORE_SLEEP steps.
+		 * The accelerations of the last evaluation of the derivatives are used.
+		 */
+		private void updateSleep() {
+			double[] y = this.y;
+			double[] a = this.accelerations;
+			boolean quiet = (controls[this.index * CONTROL_SIZE] <= SLEEP_THRUST)
+					&& (y[1]*y[1] + y[3]*y[3] + y[5]*y[5] < SLEEP_VELOCITY*SLEEP_VELOCITY)
+					&& (Math.abs(y[7]) < SLEEP_ANGULAR_VELOCITY) && (Math.abs(y[9]) < SLEEP_ANGULAR_VELOCITY) && (Math.abs(y[11]) < SLEEP_ANGULAR_VELOCITY)
+					&& (a[0]*a[0] + a[1]*a[1] + a[2]*a[2] < SLEEP_ACCELERATION*SLEEP_ACCELERATION)
+					&& (Math.abs(a[3]) < SLEEP_ANGULAR_ACCELERATION) && (Math.abs(a[4]) < SLEEP_ANGULAR_ACCELERATION) && (Math.abs(a[5]) < SLEEP_ANGULAR_ACCELERATION);
+			if (!quiet)
+				this.quietSteps = 0;
+			else if (++this.quietSteps >= STEPS_BEFORE_SLEEP)
+				this.sleeping = true;
+		}
+	}
+}
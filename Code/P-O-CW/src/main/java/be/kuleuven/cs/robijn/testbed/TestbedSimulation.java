@@ -1,32 +1,56 @@
 package be.kuleuven.cs.robijn.testbed;
 
-import be.kuleuven.cs.robijn.common.airports.AirportPackage;
+import be.kuleuven.cs.robijn.common.airports.AirportIndex;
 import be.kuleuven.cs.robijn.common.airports.Gate;
-import org.apache.commons.math3.linear.ArrayRealVector;
-import org.apache.commons.math3.linear.RealVector;
-import org.apache.commons.math3.ode.FirstOrderDifferentialEquations;
-import org.apache.commons.math3.ode.FirstOrderIntegrator;
-import org.apache.commons.math3.ode.nonstiff.ClassicalRungeKuttaIntegrator;
 import be.kuleuven.cs.robijn.common.WorldObject;
-import be.kuleuven.cs.robijn.common.math.SystemDifferentialEquations;
-import be.kuleuven.cs.robijn.tyres.Tyre;
 import be.kuleuven.cs.robijn.worldObjects.Drone;
 import interfaces.AutopilotOutputs;
 
-import java.util.Optional;
+import java.util.List;
 
 public class TestbedSimulation {
     private final WorldObject world;
     private float elapsedTime = 0;
+    private final FleetIntegrator fleetIntegrator = new FleetIntegrator();
+
+    /**
+     * The default amount of physics steps per simulated second.
+     */
+    public static final double DEFAULT_PHYSICS_RATE = 240;
+
+    /**
+     * The default maximum amount of physics steps in one update.
+     */
+    public static final int DEFAULT_MAX_SUB_STEPS = 1000;
+
+    private double physicsStepSize = 1 / DEFAULT_PHYSICS_RATE;
+    private int maxSubSteps = DEFAULT_MAX_SUB_STEPS;
+
+    /**
+     * The simulated time that has not been integrated yet, because it is smaller than one physics step
+     * or because the maximum amount of sub steps was reached.
+     */
+    private double accumulator = 0;
+    private int lastSubStepCount = 0;
+
+    /**
+     * The simulated time up to which the drones have been integrated by moveDrones.
+     */
+    private double integratedTime = 0;
 
     public TestbedSimulation(WorldObject world){
         this.world = world;
     }
 
-    public void updateDrone(Drone drone, float secondsSinceStart, float secondsSinceLastUpdate, AutopilotOutputs output){
+    /**
+     * Update all the given drones at once, with the given autopilot outputs.
+     * The outputs must be in the same order as the drones.
+     */
+    public void updateDrones(List<Drone> drones, float secondsSinceStart, float secondsSinceLastUpdate, AutopilotOutputs[] outputs){
 		this.setElapsedTime(secondsSinceStart);
-		this.moveDrone(drone, secondsSinceLastUpdate, output);
-		this.checkForPackages(drone);
+		this.moveDrones(drones, secondsSinceLastUpdate, outputs);
+		for (Drone drone : drones)
+			this.checkForPackages(drone);
     }
 
 	public void setElapsedTime(float elapsedTime) throws IllegalArgumentException {
@@ -43,145 +67,121 @@ public class TestbedSimulation {
 		return ((elapsedTime >= 0) & (elapsedTime <= Float.MAX_VALUE));
 	}
 	
-    /**
-	 * Method to move the drone of this virtual testbed.
-	 * The position and the velocity of the center of mass, the heading, the pitch, the roll
-	 * and the angular velocities get updated
-	 * using the outputs from the autopilot (thrust, leftWingInclination,
-	 * rightWingInclination, horStabInclination, verStabInclination).
+	public double getPhysicsRate() {
+		return 1 / this.physicsStepSize;
+	}
+
+	/**
+	 * Set the amount of physics steps per simulated second that is used by moveDrones.
+	 *
+	 * @throws IllegalArgumentException
+	 * 		   The given rate is not positive and finite.
+	 */
+	public void setPhysicsRate(double stepsPerSecond) throws IllegalArgumentException {
+		if (stepsPerSecond <= 0 || Double.isNaN(stepsPerSecond) || Double.isInfinite(stepsPerSecond))
+			throw new IllegalArgumentException("physics rate must be finite, positive and non-zero");
+		this.physicsStepSize = 1 / stepsPerSecond;
+	}
+
+	/**
+	 * Returns the integrator that moves the drones in moveDrones.
+	 * It can be used to choose the integration method and to read the amount of steps and evaluations.
+	 */
+	public FleetIntegrator getFleetIntegrator() {
+		return this.fleetIntegrator;
+	}
+
+	public int getMaxSubSteps() {
+		return this.maxSubSteps;
+	}
+
+	/**
+	 * Set the maximum amount of physics steps that is taken in one update.
+	 * Time that does not fit in these steps is kept for the next updates.
+	 *
+	 * @throws IllegalArgumentException
+	 * 		   The given amount is not positive.
+	 */
+	public void setMaxSubSteps(int maxSubSteps) throws IllegalArgumentException {
+		if (maxSubSteps <= 0)
+			throw new IllegalArgumentException("the maximum amount of sub steps must be positive");
+		this.maxSubSteps = maxSubSteps;
+	}
+
+	/**
+	 * Return how many seconds of simulated time the physics of moveDrones is behind on the time it was given.
+	 */
+	public double getSecondsBehind() {
+		return this.accumulator;
+	}
+
+	/**
+	 * Return the amount of drones that are asleep in the fleet integrator.
+	 */
+	public int getSleepingDroneCount() {
+		return this.fleetIntegrator.getSleepingDroneCount();
+	}
+
+	/**
+	 * Return the simulated time (in seconds) up to which moveDrones has integrated the drones.
+	 * This is a whole amount of physics steps, so it lags at most getSecondsBehind() behind the time that was given.
+	 */
+	public double getIntegratedTime() {
+		return this.integratedTime;
+	}
+
+	/**
+	 * Return the amount of physics steps that were taken by the last call of moveDrones.
+	 */
+	public int getLastSubStepCount() {
+		return this.lastSubStepCount;
+	}
+
+	/**
+	 * Method to move all the given drones at once, with the fleet integrator.
+	 * The drones are integrated in chunks on multiple cores and are only updated when all of them are integrated.
+	 * The given time is added to an accumulator, which is integrated in fixed steps of 1/getPhysicsRate() seconds,
+	 * with at most getMaxSubSteps() steps. The rest of the time is kept for the next update.
 	 *
 	 * @param  secondsSinceLastUpdate
-	 * 		   Time duration (in seconds) to move this drone.
+	 * 		   Time duration (in seconds) to move the drones.
 	 * @throws IllegalArgumentException
 	 * 		   The given time duration is negative.
 	 * 		 | dt < 0
-	 * @throws IllegalStateException
-	 *         This virtual testbed has no drone.
-	 *         drone == null
 	 */
-	public void moveDrone(Drone drone, float secondsSinceLastUpdate, AutopilotOutputs output) throws IllegalArgumentException, IllegalStateException {
-		boolean useDiffEquations = true;
-		
+	public void moveDrones(List<Drone> drones, float secondsSinceLastUpdate, AutopilotOutputs[] outputs) throws IllegalArgumentException {
 		if (secondsSinceLastUpdate < 0)
 			throw new IllegalArgumentException();
-		if (drone == null)
-			throw new IllegalStateException("this virtual testbed has no drone");
-		RealVector position = drone.getWorldPosition();
-		RealVector velocity = drone.getVelocity();
-		RealVector acceleration = drone.getAcceleration(output.getThrust(),
-				output.getLeftWingInclination(), output.getRightWingInclination(), output.getHorStabInclination(), output.getVerStabInclination(),
-				output.getFrontBrakeForce(), output.getLeftBrakeForce(), output.getRightBrakeForce());
-		
-		float[] angularAccelerations = drone.getAngularAccelerations(output.getLeftWingInclination(),
-				output.getRightWingInclination(), output.getHorStabInclination(), output.getVerStabInclination(),
-				output.getFrontBrakeForce(), output.getLeftBrakeForce(), output.getRightBrakeForce());
-		float heading = drone.getHeading();
-		float headingAngularVelocity = drone.getHeadingAngularVelocity();
-		float headingAngularAcceleration = angularAccelerations[0];
-		float pitch = drone.getPitch();
-		float pitchAngularVelocity = drone.getPitchAngularVelocity();
-		float pitchAngularAcceleration = angularAccelerations[1];
-		float roll = drone.getRoll();
-		float rollAngularVelocity = drone.getRollAngularVelocity();
-		float rollAngularAcceleration = angularAccelerations[2];
-		
-		if (useDiffEquations){
-//			FirstOrderIntegrator dp853 = new DormandPrince853Integrator(1.0e-8, 100.0, 1.0e-5, 1.0e-5);
-			FirstOrderIntegrator rk4 = new ClassicalRungeKuttaIntegrator(secondsSinceLastUpdate);
-			//FirstOrderIntegrator euler = new EulerIntegrator(secondsSinceLastUpdate);
-			FirstOrderDifferentialEquations ode = new SystemDifferentialEquations(drone, output);
-			double[] y = new double[] { drone.getWorldPosition().getEntry(0), drone.getVelocity().getEntry(0), 
-					drone.getWorldPosition().getEntry(1), drone.getVelocity().getEntry(1),
-					drone.getWorldPosition().getEntry(2), drone.getVelocity().getEntry(2),
-					drone.getHeading(), drone.getHeadingAngularVelocity(),
-					drone.getPitch(), drone.getPitchAngularVelocity(),
-					drone.getRoll(), drone.getRollAngularVelocity() };
-			rk4.integrate(ode, 0.0, y, secondsSinceLastUpdate, y);
-			
-			drone.setRelativePosition(new ArrayRealVector(new double[] {y[0], y[2], y[4]}, false));
-			drone.setVelocity(new ArrayRealVector(new double[] {y[1], y[3], y[5]}, false));
-			
-			float newHeading = (float) y[6];
-			if (newHeading < 0)
-				newHeading += (2*Math.PI);
-			if (newHeading >= 2*Math.PI)
-				newHeading = 0;
-			float newPitch = (float) y[8];
-			if (newPitch < 0)
-				newPitch += (2*Math.PI);
-			if (newPitch >= 2*Math.PI)
-				newPitch = 0;
-			float newRoll = (float) y[10];
-			if (newRoll < 0)
-				newRoll += (2*Math.PI);
-			if (newRoll >= 2*Math.PI)
-				newRoll = 0;
-			drone.setHeading(newHeading);
-			drone.setPitch(newPitch);
-			drone.setRoll(newRoll);
-			
-			drone.setHeadingAngularVelocity((float) y[7]);
-			drone.setPitchAngularVelocity((float) y[9]);
-			drone.setRollAngularVelocity((float) y[11]);
-			
-			for (Tyre tyres: drone.getChildrenOfType(Tyre.class)) {
-				@SuppressWarnings("unused")
-				float d = tyres.getD(drone);
-			}
-		}
-
-		else {
-			drone.setRelativePosition(position.add(velocity.mapMultiply(secondsSinceLastUpdate)).add(acceleration.mapMultiply(Math.pow(secondsSinceLastUpdate, 2)/2)));
-			drone.setVelocity(velocity.add(acceleration.mapMultiply(secondsSinceLastUpdate)));
-			
-			float newHeading = (float) ((heading + headingAngularVelocity*secondsSinceLastUpdate + headingAngularAcceleration*(Math.pow(secondsSinceLastUpdate, 2)/2)) % (2*Math.PI));
-			if (newHeading < 0)
-				newHeading += (2*Math.PI);
-			if (newHeading >= 2*Math.PI)
-				newHeading = 0;
-			float newPitch = (float) ((pitch + pitchAngularVelocity*secondsSinceLastUpdate + pitchAngularAcceleration*(Math.pow(secondsSinceLastUpdate, 2)/2)) % (2*Math.PI));
-			if (newPitch < 0)
-				newPitch += (2*Math.PI);
-			if (newPitch >= 2*Math.PI)
-				newPitch = 0;
-			float newRoll = (float) ((roll + rollAngularVelocity*secondsSinceLastUpdate + rollAngularAcceleration*(Math.pow(secondsSinceLastUpdate, 2)/2)) % (2*Math.PI));
-			if (newRoll < 0)
-				newRoll += (2*Math.PI);
-			if (newRoll >= 2*Math.PI)
-				newRoll = 0;
-			drone.setHeading(newHeading);
-			drone.setPitch(newPitch);
-			drone.setRoll(newRoll);
-			
-			drone.setHeadingAngularVelocity(headingAngularVelocity + headingAngularAcceleration*secondsSinceLastUpdate);
-			drone.setPitchAngularVelocity(pitchAngularVelocity + pitchAngularAcceleration*secondsSinceLastUpdate);
-			drone.setRollAngularVelocity(rollAngularVelocity + rollAngularAcceleration*secondsSinceLastUpdate);
-			
-			for (Tyre tyres: drone.getChildrenOfType(Tyre.class)) {
-				@SuppressWarnings("unused")
-				float d = tyres.getD(drone);
-			}
+		fleetIntegrator.load(drones);
+		for (int i = 0; i < drones.size(); i++)
+			fleetIntegrator.setOutputs(i, outputs[i]);
+		accumulator += secondsSinceLastUpdate;
+		int subSteps = 0;
+		while (accumulator >= physicsStepSize && subSteps < maxSubSteps) {
+			fleetIntegrator.step(physicsStepSize);
+			accumulator -= physicsStepSize;
+			integratedTime += physicsStepSize;
+			subSteps++;
 		}
+		lastSubStepCount = subSteps;
+		if (subSteps > 0)
+			fleetIntegrator.commit();
 	}
 
 	private void checkForPackages(Drone drone) {
 		//Drone must be on the ground and moving slower than 1 m/s
-		if(drone.getVelocity().getNorm() > 1 || drone.getWorldPosition().getEntry(1) > 1.5){
+		if(drone.getVelocity().getNorm() > 1 || drone.getWorldY() > 1.5){
 			return;
 		}
 
 		//What gate is the drone currently at
-		Optional<Gate> gate = world.getDescendantsStream()
-				.filter(c -> c instanceof Gate).map(c -> (Gate)c)
-				.filter(g -> g.isDroneAbove(drone))
-				.findFirst();
-
-		if(gate.isPresent()){
-			AirportPackage p = gate.get().getPackage();
-			if(drone.getPackage() != null && drone.getPackage().getDestination().getWorldPosition().getDistance(gate.get().getWorldPosition()) < (gate.get().getAirport().width + 10)){
+		Gate gate = AirportIndex.of(world).getGateAt(drone.getWorldX(), drone.getWorldZ());
+
+		if(gate != null){
+			if(drone.getPackage() != null && drone.getPackage().getDestination().getWorldPosition().getDistance(gate.getWorldPosition()) < (gate.getAirport().width + 10)){
 				drone.getPackage().markAsDelivered();
-			}else if(drone.getPackage() == null && gate.get().hasPackage()){
-				gate.get().getPackage().markAsInTransit(drone);
+			}else if(drone.getPackage() == null && gate.hasPackage()){
+				gate.getPackage().markAsInTransit(drone);
 			}
 		}
 	}
@@ -20,9 +20,14 @@ public class VirtualTestbed implements TestBed {
 	private final TestbedSimulation simulation;
 	private final WorldObject world;
 	private final List<Drone> drones;
-	private final Semaphore worldStateLock = new Semaphore(1);
+	private final CollisionDetector collisionDetector = new CollisionDetector();
+	//Positions of the drones at the start of the last update, for the swept collision check
+	private double[] startPositions;
 
-	private final ExecutorService executor = Executors.newFixedThreadPool(4);
+	//Latest published world state, read by the renderer without locking
+	private volatile WorldSnapshot latestSnapshot;
+	private long snapshotVersion = 0;
+	private float snapshotTime = 0;
 
 	//Renderer
 	private AsyncOpenGLRenderer renderer;
@@ -35,7 +40,9 @@ public class VirtualTestbed implements TestBed {
 
 		//Create airports and drones
 		SimulationBuilder.buildSimulation(settings, world);
-		drones = world.getChildrenOfType(Drone.class);
+		//Copy, because drones that collide are removed from this list but stay in the world
+		drones = new ArrayList<>(world.getChildrenOfType(Drone.class));
+		publishSnapshot();
 
 		//Set initial autopilotinputs
 		List<Drone> drones = world.getChildrenOfType(Drone.class);
@@ -56,63 +63,63 @@ public class VirtualTestbed implements TestBed {
 	@Override
 	public boolean update(float secondsSinceStart, float secondsSinceLastUpdate, AutopilotOutputs[] outputs) {
 		try {
-			worldStateLock.acquire();
-
-			checkForCollisions();
-
 			if (drones.size() == 0){
 				throw new IllegalArgumentException("No more drone's in the world");
 			}
 			
-			// Start drone update tasks
-			ArrayList<Future<AutopilotInputs>> updateTasks = new ArrayList<>();
-			for(int i = 0; i < drones.size(); i++){
-				final Drone drone = drones.get(i);
-				final AutopilotOutputs curOutputs = outputs[i];
-				updateTasks.add(executor.submit(() -> {
-					simulation.updateDrone(drone, secondsSinceStart, secondsSinceLastUpdate, curOutputs);
-					byte[] image = null;
-					/*if(AUTOPILOT_CAMERA_ENABLED){
-						image = renderCameraView(drone);
-					}*/
-					return new VirtualTestbed.TestbedAutopilotInputs(drone, image, secondsSinceStart);
-				}));
-			}
-
-			// Wait for tasks to complete and gather AutopilotInputs
+			startPositions = CollisionDetector.getPositions(drones, startPositions);
+			simulation.updateDrones(drones, secondsSinceStart, secondsSinceLastUpdate, outputs);
+			checkForCollisions();
+			//Report the time of the integrated state, so the autopilot sees intervals of whole physics steps
+			float integratedTime = (float) simulation.getIntegratedTime();
 			for(int i = 0; i < drones.size(); i++){
-				inputs[i] = updateTasks.get(i).get();
+				inputs[i] = new VirtualTestbed.TestbedAutopilotInputs(drones.get(i), null, integratedTime);
 			}
 
 			return simulation.isSimulationFinished();
-		} catch (InterruptedException | ExecutionException e) {
-			throw new RuntimeException(e);
 		} finally {
-			worldStateLock.release();
+			//Also publish when the update failed, so the state of a crash is shown
+			snapshotTime = (float) simulation.getIntegratedTime();
+			publishSnapshot();
 		}
 	}
 
+	@Override
+	public double getSecondsBehind() {
+		return simulation.getSecondsBehind();
+	}
+
+	@Override
+	public int getSleepingDroneCount() {
+		return simulation.getSleepingDroneCount();
+	}
+
+	@Override
+	public void setPhysicsRate(double stepsPerSecond) {
+		simulation.setPhysicsRate(stepsPerSecond);
+	}
+
+	@Override
+	public double getPhysicsRate() {
+		return simulation.getPhysicsRate();
+	}
+
+	/**
+	 * Returns the collision detector of this testbed, which can be used to read the cost of the collision checks.
+	 */
+	public CollisionDetector getCollisionDetector() {
+		return collisionDetector;
+	}
+
+	/**
+	 * Checks the paths of the drones during the last update, so drones that pass through each other
+	 * within one update also collide.
+	 */
 	private void checkForCollisions(){
-		ArrayList<Drone> collidingDrones = new ArrayList<>();
-
-		for(int i = 0; i < drones.size()-1; i++){
-			for(int j = i+1; j < drones.size(); j++){
-				double deltaPosX = drones.get(i).getWorldPosition().getEntry(0)-drones.get(j).getWorldPosition().getEntry(0);
-				double deltaPosY = drones.get(i).getWorldPosition().getEntry(1)-drones.get(j).getWorldPosition().getEntry(1);
-				double deltaPosZ = drones.get(i).getWorldPosition().getEntry(2)-drones.get(j).getWorldPosition().getEntry(2);
-				double deltaRR = Math.sqrt(Math.pow(deltaPosX, 2) + Math.pow(deltaPosY, 2) + Math.pow(deltaPosZ, 2));
-
-				if (deltaRR < 5){
-					collidingDrones.add(drones.get(i));
-					collidingDrones.add(drones.get(j-1));
-				}
-			}
-		}
+		List<Drone> collidingDrones = collisionDetector.findCollidingDrones(drones, startPositions);
 
 		if(collidingDrones.size() > 0){
-			for (Drone d : collidingDrones) {
-				drones.remove(d);
-			}
+			drones.removeAll(collidingDrones);
 			throw new DroneCollisionException(collidingDrones);
 		}
 	}
@@ -129,8 +136,14 @@ public class VirtualTestbed implements TestBed {
 	}
 
 	@Override
-	public Semaphore getWorldStateLock(){
-		return worldStateLock;
+	public WorldSnapshot getLatestSnapshot(){
+		return latestSnapshot;
+	}
+
+	@Override
+	public void publishSnapshot(){
+		snapshotVersion++;
+		latestSnapshot = WorldSnapshot.capture(world, snapshotVersion, snapshotTime);
 	}
 
 	/////////////////
@@ -177,7 +190,8 @@ public class VirtualTestbed implements TestBed {
 		if(droneCamera == null){
 			droneCamera = createDroneCamera(drone);
 		}
-		renderer.startRender(world, frameBuffer, droneCamera, worldStateLock).waitUntilFinished();
+		publishSnapshot();
+		renderer.startRender(latestSnapshot, frameBuffer, droneCamera).waitUntilFinished();
 		try {
 			frameBuffer.readPixels(targetArray).get();
 		} catch (InterruptedException | ExecutionException e) {
@@ -216,9 +230,9 @@ public class VirtualTestbed implements TestBed {
 		public TestbedAutopilotInputs(Drone drone, byte[] image, float elapsedTime) {
 			this.image = image;
 
-			this.x = (float)drone.getWorldPosition().getEntry(0);
-			this.y = (float)drone.getWorldPosition().getEntry(1);
-			this.z = (float)drone.getWorldPosition().getEntry(2);
+			this.x = (float)drone.getWorldX();
+			this.y = (float)drone.getWorldY();
+			this.z = (float)drone.getWorldZ();
 
 			this.heading = drone.getHeading();
 			this.pitch = drone.getPitch();
@@ -0,0 +1,143 @@
+package be.kuleuven.cs.robijn.testbed.integration;
+
+/**
+ * An integrator that uses the embedded Runge-Kutta method of Dormand and Prince (order 5 with an error estimate of order 4).
+ * The time to integrate over is split in steps of which the size is adapted to keep the estimated error
+ * below the tolerances. The step size of the last step is remembered for the next call.
+ * A step that has too large an error is rejected and taken again with a smaller step size.
+ */
+public class AdaptiveRungeKuttaIntegrator extends StateIntegrator {
+
+	public static final double DEFAULT_ABSOLUTE_TOLERANCE = 1e-6;
+	public static final double DEFAULT_RELATIVE_TOLERANCE = 1e-6;
+	public static final double DEFAULT_MIN_STEP = 1e-6;
+
+	private static final double SAFETY = 0.9;
+	private static final double MIN_FACTOR = 0.2;
+	private static final double MAX_FACTOR = 5;
+
+	private static final double A21 = 1.0/5;
+	private static final double A31 = 3.0/40, A32 = 9.0/40;
+	private static final double A41 = 44.0/45, A42 = -56.0/15, A43 = 32.0/9;
+	private static final double A51 = 19372.0/6561, A52 = -25360.0/2187, A53 = 64448.0/6561, A54 = -212.0/729;
+	private static final double A61 = 9017.0/3168, A62 = -355.0/33, A63 = 46732.0/5247, A64 = 49.0/176, A65 = -5103.0/18656;
+	private static final double B1 = 35.0/384, B3 = 500.0/1113, B4 = 125.0/192, B5 = -2187.0/6784, B6 = 11.0/84;
+	//Difference between the weights of the fifth and the fourth order solution
+	private static final double E1 = 71.0/57600, E3 = -71.0/16695, E4 = 71.0/1920, E5 = -17253.0/339200, E6 = 22.0/525, E7 = -1.0/40;
+
+	public AdaptiveRungeKuttaIntegrator(int dimension) throws IllegalArgumentException {
+		this(dimension, DEFAULT_ABSOLUTE_TOLERANCE, DEFAULT_RELATIVE_TOLERANCE, DEFAULT_MIN_STEP);
+	}
+
+	/**
+	 * @throws IllegalArgumentException
+	 * 			One of the tolerances or the minimal step size is not positive.
+	 */
+	public AdaptiveRungeKuttaIntegrator(int dimension, double absoluteTolerance, double relativeTolerance, double minStep)
+			throws IllegalArgumentException {
+		super(dimension);
+		if (!(absoluteTolerance > 0) || !(relativeTolerance > 0) || !(minStep > 0))
+			throw new IllegalArgumentException("tolerances and minimal step must be positive");
+		this.absoluteTolerance = absoluteTolerance;
+		this.relativeTolerance = relativeTolerance;
+		this.minStep = minStep;
+		this.stage = new double[dimension];
+		this.next = new double[dimension];
+		this.k1 = new double[dimension];
+		this.k2 = new double[dimension];
+		this.k3 = new double[dimension];
+		this.k4 = new double[dimension];
+		this.k5 = new double[dimension];
+		this.k6 = new double[dimension];
+		this.k7 = new double[dimension];
+	}
+
+	private final double absoluteTolerance;
+	private final double relativeTolerance;
+	private final double minStep;
+
+	/**
+	 * The step size that will be tried first in the next step, 0 if no step has been taken yet.
+	 */
+	private double stepSize = 0;
+
+	private final double[] stage, next;
+	private double[] k1, k2, k3, k4, k5, k6, k7;
+
+	public double getStepSize() {
+		return this.stepSize;
+	}
+
+	/**
+	 * @throws IllegalStateException
+	 * 			The error estimate of a step is NaN or infinite, so the step size cannot be adapted.
+	 * 			The given state is only changed by the steps that were accepted before.
+	 */
+	@Override
+	public void integrate(Derivatives derivatives, double[] y, double seconds) throws IllegalArgumentException, IllegalStateException {
+		if (seconds < 0)
+			throw new IllegalArgumentException();
+		if (seconds == 0)
+			return;
+		int n = this.getDimension();
+		double h = (this.stepSize == 0) ? seconds : this.stepSize;
+		double t = 0;
+
+		this.evaluate(derivatives, y, this.k1);
+		while (t < seconds) {
+			double remaining = seconds - t;
+			boolean lastStep = (h >= remaining);
+			if (lastStep)
+				h = remaining;
+
+			for (int k = 0; k < n; k++)
+				this.stage[k] = y[k] + h*A21*k1[k];
+			this.evaluate(derivatives, this.stage, k2);
+			for (int k = 0; k < n; k++)
+				this.stage[k] = y[k] + h*(A31*k1[k] + A32*k2[k]);
+			this.evaluate(derivatives, this.stage, k3);
+			for (int k = 0; k < n; k++)
+				this.stage[k] = y[k] + h*(A41*k1[k] + A42*k2[k] + A43*k3[k]);
+			this.evaluate(derivatives, this.stage, k4);
+			for (int k = 0; k < n; k++)
+				this.stage[k] = y[k] + h*(A51*k1[k] + A52*k2[k] + A53*k3[k] + A54*k4[k]);
+			this.evaluate(derivatives, this.stage, k5);
+			for (int k = 0; k < n; k++)
+				this.stage[k] = y[k] + h*(A61*k1[k] + A62*k2[k] + A63*k3[k] + A64*k4[k] + A65*k5[k]);
+			this.evaluate(derivatives, this.stage, k6);
+			for (int k = 0; k < n; k++)
+				this.next[k] = y[k] + h*(B1*k1[k] + B3*k3[k] + B4*k4[k] + B5*k5[k] + B6*k6[k]);
+			this.evaluate(derivatives, this.next, k7);
+
+			double error = 0;
+			for (int k = 0; k < n; k++) {
+				double estimate = h*(E1*k1[k] + E3*k3[k] + E4*k4[k] + E5*k5[k] + E6*k6[k] + E7*k7[k]);
+				double scale = this.absoluteTolerance + this.relativeTolerance*Math.max(Math.abs(y[k]), Math.abs(this.next[k]));
+				error += (estimate/scale) * (estimate/scale);
+			}
+			error = Math.sqrt(error / n);
+			if (Double.isNaN(error) || Double.isInfinite(error))
+				throw new IllegalStateException("the error estimate is not finite");
+			double factor = (error == 0) ? MAX_FACTOR : Math.min(MAX_FACTOR, Math.max(MIN_FACTOR, SAFETY*Math.pow(error, -0.2)));
+
+			if ((error <= 1) || (h <= this.minStep)) {
+				System.arraycopy(this.next, 0, y, 0, n);
+				//First same as last: the derivatives at the end of this step are the first stage of the next step
+				double[] swap = k1;
+				k1 = k7;
+				k7 = swap;
+				t = lastStep ? seconds : t + h;
+				if (!lastStep || factor < 1)
+					this.stepSize = h*factor;
+				else if (this.stepSize == 0)
+					this.stepSize = h;
+				h = this.stepSize;
+				this.stepAccepted();
+			}
+			else {
+				h = Math.max(this.minStep, h*factor);
+				this.stepRejected();
+			}
+		}
+	}
+}
@@ -0,0 +1,12 @@
+package be.kuleuven.cs.robijn.testbed.integration;
+
+/**
+ * A function that calculates the derivatives of a state.
+ */
+public interface Derivatives {
+
+	/**
+	 * Calculate the derivatives of the given state and store them in the given array.
+	 */
+	void compute(double[] y, double[] yDot);
+}
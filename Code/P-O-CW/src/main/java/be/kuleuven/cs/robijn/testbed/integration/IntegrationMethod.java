@@ -0,0 +1,39 @@
+package be.kuleuven.cs.robijn.testbed.integration;
+
+/**
+ * The integration methods that can be used to move the drones of the testbed.
+ */
+public enum IntegrationMethod {
+	/**
+	 * The classical fourth order Runge-Kutta method, one step per physics step.
+	 */
+	RUNGE_KUTTA {
+		@Override
+		public StateIntegrator createIntegrator(int dimension) {
+			return new RungeKuttaIntegrator(dimension);
+		}
+	},
+	/**
+	 * The semi-implicit Euler method, one step per physics step.
+	 */
+	SEMI_IMPLICIT_EULER {
+		@Override
+		public StateIntegrator createIntegrator(int dimension) {
+			return new SemiImplicitEulerIntegrator(dimension);
+		}
+	},
+	/**
+	 * The Dormand-Prince method, with as many steps per physics step as needed to stay within the default tolerances.
+	 */
+	ADAPTIVE_RUNGE_KUTTA {
+		@Override
+		public StateIntegrator createIntegrator(int dimension) {
+			return new AdaptiveRungeKuttaIntegrator(dimension);
+		}
+	};
+
+	/**
+	 * Create a new integrator of this method for states with the given dimension.
+	 */
+	public abstract StateIntegrator createIntegrator(int dimension);
+}
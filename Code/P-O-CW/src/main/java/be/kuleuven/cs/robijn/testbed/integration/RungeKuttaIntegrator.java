@@ -0,0 +1,45 @@
+package be.kuleuven.cs.robijn.testbed.integration;
+
+/**
+ * An integrator that takes one step of the classical fourth order Runge-Kutta method.
+ */
+public class RungeKuttaIntegrator extends StateIntegrator {
+
+	public RungeKuttaIntegrator(int dimension) throws IllegalArgumentException {
+		super(dimension);
+		this.stage = new double[dimension];
+		this.k1 = new double[dimension];
+		this.k2 = new double[dimension];
+		this.k3 = new double[dimension];
+		this.k4 = new double[dimension];
+	}
+
+	private final double[] stage;
+	private final double[] k1;
+	private final double[] k2;
+	private final double[] k3;
+	private final double[] k4;
+
+	@Override
+	public void integrate(Derivatives derivatives, double[] y, double seconds) throws IllegalArgumentException {
+		if (seconds < 0)
+			throw new IllegalArgumentException();
+		double h = seconds;
+		int n = this.getDimension();
+
+		this.evaluate(derivatives, y, this.k1);
+		for (int k = 0; k < n; k++)
+			this.stage[k] = y[k] + h/2 * this.k1[k];
+		this.evaluate(derivatives, this.stage, this.k2);
+		for (int k = 0; k < n; k++)
+			this.stage[k] = y[k] + h/2 * this.k2[k];
+		this.evaluate(derivatives, this.stage, this.k3);
+		for (int k = 0; k < n; k++)
+			this.stage[k] = y[k] + h * this.k3[k];
+		this.evaluate(derivatives, this.stage, this.k4);
+
+		for (int k = 0; k < n; k++)
+			y[k] += h/6 * (this.k1[k] + 2*this.k2[k] + 2*this.k3[k] + this.k4[k]);
+		this.stepAccepted();
+	}
+}
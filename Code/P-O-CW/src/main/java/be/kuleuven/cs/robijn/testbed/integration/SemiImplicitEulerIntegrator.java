@@ -0,0 +1,35 @@
+package be.kuleuven.cs.robijn.testbed.integration;
+
+/**
+ * An integrator that takes one step of the semi-implicit (symplectic) Euler method.
+ * The state must consist of pairs of a value and its derivative, like the state of SystemDifferentialEquations.
+ * The derivatives are updated first, after which the values are updated with the new derivatives.
+ * This needs only one evaluation per step.
+ */
+public class SemiImplicitEulerIntegrator extends StateIntegrator {
+
+	/**
+	 * @throws IllegalArgumentException
+	 * 			The given dimension is not a positive even number.
+	 */
+	public SemiImplicitEulerIntegrator(int dimension) throws IllegalArgumentException {
+		super(dimension);
+		if (dimension % 2 != 0)
+			throw new IllegalArgumentException("the state must consist of pairs");
+		this.yDot = new double[dimension];
+	}
+
+	private final double[] yDot;
+
+	@Override
+	public void integrate(Derivatives derivatives, double[] y, double seconds) throws IllegalArgumentException {
+		if (seconds < 0)
+			throw new IllegalArgumentException();
+		this.evaluate(derivatives, y, this.yDot);
+		for (int k = 0; k < this.getDimension(); k += 2) {
+			y[k + 1] += seconds * this.yDot[k + 1];
+			y[k] += seconds * y[k + 1];
+		}
+		this.stepAccepted();
+	}
+}
@@ -0,0 +1,80 @@
+package be.kuleuven.cs.robijn.testbed.integration;
+
+/**
+ * A class of integrators that advance the state of one drone over time.
+ * An integrator keeps its temporary arrays between steps, so one instance should be reused for the same drone
+ * and must not be used by multiple threads at the same time.
+ * Every integrator counts the steps it takes and the amount of times it evaluates the derivatives.
+ */
+public abstract class StateIntegrator {
+
+	/**
+	 * @param dimension
+	 * 			The amount of elements in the states that are integrated.
+	 * @throws IllegalArgumentException
+	 * 			The given dimension is not positive.
+	 */
+	protected StateIntegrator(int dimension) throws IllegalArgumentException {
+		if (dimension <= 0)
+			throw new IllegalArgumentException("dimension must be positive");
+		this.dimension = dimension;
+	}
+
+	private final int dimension;
+
+	public int getDimension() {
+		return this.dimension;
+	}
+
+	/**
+	 * Integrate the given state over the given time. The result is stored in the given state.
+	 *
+	 * @param derivatives
+	 * 			The function that calculates the derivatives of a state.
+	 * @param y
+	 * 			The state to integrate, with a length of getDimension().
+	 * @param seconds
+	 * 			The time to integrate over.
+	 * @throws IllegalArgumentException
+	 * 			The given time is negative.
+	 */
+	public abstract void integrate(Derivatives derivatives, double[] y, double seconds) throws IllegalArgumentException;
+
+	private long evaluationCount = 0;
+	private long acceptedStepCount = 0;
+	private long rejectedStepCount = 0;
+
+	/**
+	 * Return the amount of times the derivatives were calculated by this integrator.
+	 */
+	public long getEvaluationCount() {
+		return this.evaluationCount;
+	}
+
+	/**
+	 * Return the amount of steps this integrator has taken.
+	 */
+	public long getAcceptedStepCount() {
+		return this.acceptedStepCount;
+	}
+
+	/**
+	 * Return the amount of steps this integrator has thrown away because the error was too large.
+	 */
+	public long getRejectedStepCount() {
+		return this.rejectedStepCount;
+	}
+
+	protected void evaluate(Derivatives derivatives, double[] y, double[] yDot) {
+		this.evaluationCount++;
+		derivatives.compute(y, yDot);
+	}
+
+	protected void stepAccepted() {
+		this.acceptedStepCount++;
+	}
+
+	protected void stepRejected() {
+		this.rejectedStepCount++;
+	}
+}
@@ -65,14 +65,14 @@ public class AsyncOpenGLRenderer implements Renderer {
     }
 
     @Override
-    public RenderTask startRender(WorldObject worldRoot, FrameBuffer asyncFrameBuffer, Camera camera, Semaphore worldStateLock) {
+    public RenderTask startRender(WorldSnapshot snapshot, FrameBuffer asyncFrameBuffer, Camera camera) {
         if(!(asyncFrameBuffer instanceof AsyncFrameBuffer)){
             throw new IllegalArgumentException("Wrong framebuffer type");
         }
         FrameBuffer frameBuffer = ((AsyncFrameBuffer)asyncFrameBuffer).getFrameBuffer();
 
         //Start render
-        Future<RenderTask> asyncRenderTask = executor.submit(() -> renderer.startRender(worldRoot, frameBuffer, camera, worldStateLock));
+        Future<RenderTask> asyncRenderTask = executor.submit(() -> renderer.startRender(snapshot, frameBuffer, camera));
 
         //Monitor render completion
         final Semaphore lock = new Semaphore(0);
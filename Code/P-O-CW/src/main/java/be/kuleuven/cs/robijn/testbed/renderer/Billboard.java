@@ -1,7 +1,6 @@
 package be.kuleuven.cs.robijn.testbed.renderer;
 
 import be.kuleuven.cs.robijn.common.Resources;
-import be.kuleuven.cs.robijn.worldObjects.Camera;
 
 import org.apache.commons.math3.geometry.euclidean.threed.Rotation;
 import org.apache.commons.math3.linear.RealVector;
@@ -68,8 +67,7 @@ public class Billboard extends Model {
         super(mesh, texture, shader);
     }
 
-    public static Matrix4f generateModelMatrix(Camera camera, RealVector position, float scale){
-        Rotation cameraRotation = camera.getWorldRotation();
+    public static Matrix4f generateModelMatrix(Rotation cameraRotation, RealVector position, float scale){
         Matrix4f modelMatrix = new Matrix4f();
         modelMatrix.translate((float)position.getEntry(0), (float)position.getEntry(1), (float)position.getEntry(2));
         modelMatrix.rotate(new Quaternionf(-(float)cameraRotation.getQ1(), -(float)cameraRotation.getQ2(), -(float)cameraRotation.getQ3(), (float)cameraRotation.getQ0()));
@@ -1,6 +1,6 @@
 package be.kuleuven.cs.robijn.testbed.renderer;
 
-import be.kuleuven.cs.robijn.common.WorldObject;
+import be.kuleuven.cs.robijn.common.WorldSnapshot;
 import be.kuleuven.cs.robijn.common.airports.Airport;
 import be.kuleuven.cs.robijn.common.airports.Gate;
 import be.kuleuven.cs.robijn.common.airports.Runway;
@@ -8,8 +8,6 @@ import org.apache.commons.math3.geometry.euclidean.threed.Rotation;
 import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
 import org.apache.commons.math3.linear.ArrayRealVector;
 
-import java.util.concurrent.Semaphore;
-
 /**
  * Render a ground texture
  */
@@ -20,7 +18,7 @@ public class GroundBaker {
         this.renderer = renderer;
     }
 
-    public Texture bake(int groundWidth, int groundHeight, int texWidth, int texHeight, WorldObject world, Semaphore worldStateLock){
+    public Texture bake(int groundWidth, int groundHeight, int texWidth, int texHeight, WorldSnapshot snapshot){
         Texture targetTexture = Texture.createEmpty(new int[]{texWidth, texHeight}, 3);
         OpenGLFrameBuffer frameBuffer = OpenGLFrameBuffer.create(targetTexture, true);
         OpenGLOrthographicCamera camera = new OpenGLOrthographicCamera();
@@ -31,8 +29,7 @@ public class GroundBaker {
         camera.setRelativeRotation(rot);
         camera.setFarPlane(10000);
         camera.addVisibilityFilter(obj -> obj.getName().equals("GROUND") || obj instanceof Airport || obj instanceof Gate || obj instanceof Runway);
-        world.addChild(camera);
-        renderer.startRender(world, frameBuffer, camera, worldStateLock).waitUntilFinished();
+        renderer.startRender(snapshot, frameBuffer, camera).waitUntilFinished();
         return targetTexture;
     }
 }
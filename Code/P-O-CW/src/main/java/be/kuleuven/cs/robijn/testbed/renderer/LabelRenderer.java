@@ -1,12 +1,13 @@
 package be.kuleuven.cs.robijn.testbed.renderer;
 
 import be.kuleuven.cs.robijn.common.Resources;
-import be.kuleuven.cs.robijn.common.WorldObject;
+import be.kuleuven.cs.robijn.common.WorldSnapshot;
 import be.kuleuven.cs.robijn.testbed.renderer.bmfont.BMFont;
 import be.kuleuven.cs.robijn.worldObjects.Label3D;
 import be.kuleuven.cs.robijn.testbed.renderer.bmfont.RenderableString;
 import be.kuleuven.cs.robijn.worldObjects.Camera;
 import be.kuleuven.cs.robijn.worldObjects.PerspectiveCamera;
+import org.apache.commons.math3.linear.RealVector;
 import org.joml.Matrix4f;
 
 import java.awt.*;
@@ -29,10 +30,9 @@ public class LabelRenderer implements AutoCloseable {
         this.renderer = renderer;
     }
 
-    void updateLabelCache(WorldObject root){
-        root.getDescendantsStream()
-                .filter(o -> o instanceof Label3D)
-                .map(o -> (Label3D)o)
+    void updateLabelCache(WorldSnapshot snapshot){
+        snapshot.getEntriesOfType(Label3D.class).stream()
+                .map(entry -> (Label3D)entry.getObject())
                 .forEach(label -> {
                     if(label.getFont() == null || !(label.getFont() instanceof BMFont)){
                         label.setFont(renderer.loadFont(null));
@@ -47,7 +47,7 @@ public class LabelRenderer implements AutoCloseable {
                 });
     }
 
-    void renderLabel(Label3D label, Matrix4f viewProjectionMatrix, Camera camera) {
+    void renderLabel(Label3D label, RealVector position, Matrix4f viewProjectionMatrix, Camera camera, WorldSnapshot.Entry cameraEntry) {
         //RenderDoc.get().startFrameCapture(renderer.getHGLRC(), 0);
 
         Model textModel = labelCache.get(label.getFont()).get(label.getText());
@@ -70,14 +70,14 @@ public class LabelRenderer implements AutoCloseable {
 
         float scale;
         if(camera instanceof PerspectiveCamera){
-            scale = (float)Math.pow(camera.getWorldPosition().subtract(label.getWorldPosition()).getNorm(), 0.65f);
+            scale = (float)Math.pow(cameraEntry.getWorldPosition().subtract(position).getNorm(), 0.65f);
             //scale /= 7.071068f; //Compensate for default viewing distance
             scale /= 4.5f; //Compensate for default viewing distance
             //scale *= .75f; //Compensate for perspective
         }else{
             scale = 3f;
         }
-        renderer.renderModel(textModel, viewProjectionMatrix, Billboard.generateModelMatrix(camera, label.getWorldPosition(), scale));
+        renderer.renderModel(textModel, viewProjectionMatrix, Billboard.generateModelMatrix(cameraEntry.getWorldRotation(), position, scale));
 
         //RenderDoc.get().endFrameCapture(renderer.getHGLRC(), 0);
     }
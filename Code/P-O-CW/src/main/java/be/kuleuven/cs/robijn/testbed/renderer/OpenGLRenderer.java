@@ -27,7 +27,7 @@ import org.lwjgl.opengl.GL;
 
 import java.awt.*;
 import java.util.ArrayList;
-import java.util.concurrent.Semaphore;
+import java.util.List;
 
 import static org.lwjgl.glfw.GLFW.*;
 import static org.lwjgl.glfw.GLFW.glfwSetErrorCallback;
@@ -117,6 +117,9 @@ public class OpenGLRenderer implements Renderer {
 
     private GroundBaker groundBaker = new GroundBaker(this);
 
+    //The snapshot of the last rendered image
+    private volatile WorldSnapshot lastSnapshot = null;
+
     private OpenGLRenderer(long windowHandle){
         this.windowHandle = windowHandle;
     }
@@ -199,7 +202,7 @@ public class OpenGLRenderer implements Renderer {
     }
 
     @Override
-    public RenderTask startRender(WorldObject worldRoot, FrameBuffer buffer, Camera camera, Semaphore worldStateLock){
+    public RenderTask startRender(WorldSnapshot snapshot, FrameBuffer buffer, Camera camera){
         if(!(buffer instanceof OpenGLFrameBuffer)){
             throw new IllegalArgumentException("Incompatible framebuffer");
         }
@@ -211,96 +214,86 @@ public class OpenGLRenderer implements Renderer {
             throw new IllegalStateException("The framebuffer is unavailable.");
         }
 
-        try {
-            int groundWidth = 20000;
-            int groundHeight = 20000;
-
-            if(groundModel == null){
-                groundModel = new Model(groundMesh, grassTexture, texturedProgram);
-                groundTexture = groundBaker.bake(groundWidth, groundHeight, 8000, 8000, worldRoot, worldStateLock);
-                groundTexture.setTextureScale(new Vector2D(1, 1));
-                groundModel = new Model(groundMesh, groundTexture, texturedProgram);
-            }
+        int groundWidth = 20000;
+        int groundHeight = 20000;
 
-            worldStateLock.acquire();
-
-            labelRenderer.updateLabelCache(worldRoot);
-
-            //Use own framebuffer instead of default framebuffer
-            glBindFramebuffer(GL_FRAMEBUFFER, ((OpenGLFrameBuffer)buffer).getId());
-            //Set the size and position of the image we want to render in the buffer
-            glViewport(0, 0, buffer.getWidth(), buffer.getHeight());
-            //Enable depth testing so we only see the faces oriented towards the camera.
-            glEnable(GL_DEPTH_TEST);
-            glEnable(GL_CULL_FACE);
-            glCullFace(GL_BACK);
-            //The projection matrix that is used mirrors the y-axis. (see createProjectionMatrix())
-            //This causes the winding order of the vertices to flip:
-            //   B
-            //  / \      Winding order is ABC: counter-clock-wise
-            // C - A
-            //-------
-            // C - A
-            //  \ /      Winding order is ABC: clock-wise
-            //   B
-            //We need to flip the OpenGL winding order as well to compensate and keep the face normals in the same direction.
-            //Otherwise face culling will cut away the front parts and leave behind only the back parts
-            glFrontFace(GL_CW);
-            //Replace previous frame with a blank screen
-            glClearColor(1f, 1f, 1f, 1f);
-            glClear(GL_COLOR_BUFFER_BIT|GL_DEPTH_BUFFER_BIT);
-
-            //Setup per-camera matrices
-            Matrix4f viewProjectionMatrix = createViewProjectionMatrix(camera);
-
-            //Render ground if needed
-            WorldObject groundObj = new WorldObject();
-            groundObj.setName("GROUND");
-            groundObj.setScale(new ArrayRealVector(new double[]{groundWidth, 1, groundHeight}, false));
-            RealMatrix transform = groundObj.getObjectToWorldTransform();
-            renderModel(groundModel, viewProjectionMatrix, transform);
-
-            //Render objects
-            for (WorldObject child : worldRoot.getChildren()){
-                renderChildren(child, viewProjectionMatrix, camera);
-            }
+        if(groundModel == null){
+            groundModel = new Model(groundMesh, grassTexture, texturedProgram);
+            groundTexture = groundBaker.bake(groundWidth, groundHeight, 8000, 8000, snapshot);
+            groundTexture.setTextureScale(new Vector2D(1, 1));
+            groundModel = new Model(groundMesh, groundTexture, texturedProgram);
+        }
 
-            //Render debug objects if needed
-            WorldObject dummyLine = new WorldObject();
-            dummyLine.setName("debug-line");
-            if(camera.isVisible(dummyLine)){
-                for (Line line : linesToDraw){
-                    renderLine(line, viewProjectionMatrix);
-                }
-            }
+        labelRenderer.updateLabelCache(snapshot);
+
+        //Use own framebuffer instead of default framebuffer
+        glBindFramebuffer(GL_FRAMEBUFFER, ((OpenGLFrameBuffer)buffer).getId());
+        //Set the size and position of the image we want to render in the buffer
+        glViewport(0, 0, buffer.getWidth(), buffer.getHeight());
+        //Enable depth testing so we only see the faces oriented towards the camera.
+        glEnable(GL_DEPTH_TEST);
+        glEnable(GL_CULL_FACE);
+        glCullFace(GL_BACK);
+        //The projection matrix that is used mirrors the y-axis. (see createProjectionMatrix())
+        //This causes the winding order of the vertices to flip:
+        //   B
+        //  / \      Winding order is ABC: counter-clock-wise
+        // C - A
+        //-------
+        // C - A
+        //  \ /      Winding order is ABC: clock-wise
+        //   B
+        //We need to flip the OpenGL winding order as well to compensate and keep the face normals in the same direction.
+        //Otherwise face culling will cut away the front parts and leave behind only the back parts
+        glFrontFace(GL_CW);
+        //Replace previous frame with a blank screen
+        glClearColor(1f, 1f, 1f, 1f);
+        glClear(GL_COLOR_BUFFER_BIT|GL_DEPTH_BUFFER_BIT);
+
+        //Setup per-camera matrices, from the camera transformation in the snapshot because the camera may be attached to a drone
+        WorldSnapshot.Entry cameraEntry = snapshot.resolveEntry(camera);
+        lastSnapshot = snapshot;
+        Matrix4f viewProjectionMatrix = createViewProjectionMatrix(camera, cameraEntry);
+
+        //Render ground if needed
+        WorldObject groundObj = new WorldObject();
+        groundObj.setName("GROUND");
+        groundObj.setScale(new ArrayRealVector(new double[]{groundWidth, 1, groundHeight}, false));
+        RealMatrix transform = groundObj.getObjectToWorldTransform();
+        renderModel(groundModel, viewProjectionMatrix, transform);
+
+        //Render objects, the root of the snapshot itself is never rendered
+        List<WorldSnapshot.Entry> entries = snapshot.getEntries();
+        for (int i = entries.size() - 1; i > 0; i--){
+            renderObject(entries.get(i), viewProjectionMatrix, camera, cameraEntry);
+        }
 
-            //Add a fence sync object so we can check when the rendering finishes.
-            long sync = glFenceSync(GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
-            if(sync == 0){
-                throw new RuntimeException("glFenceSync failed");
+        //Render debug objects if needed
+        WorldObject dummyLine = new WorldObject();
+        dummyLine.setName("debug-line");
+        if(camera.isVisible(dummyLine)){
+            for (Line line : linesToDraw){
+                renderLine(line, viewProjectionMatrix);
             }
+        }
 
-            //Some OpenGL driver implementations require flushing to make sure all commands are run.
-            glFlush();
+        //Add a fence sync object so we can check when the rendering finishes.
+        long sync = glFenceSync(GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+        if(sync == 0){
+            throw new RuntimeException("glFenceSync failed");
+        }
 
-            OpenGLRenderTask task = new OpenGLRenderTask(sync);
-            ((OpenGLFrameBuffer) buffer).setCurrentRenderTask(task);
-            return task;
+        //Some OpenGL driver implementations require flushing to make sure all commands are run.
+        glFlush();
 
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
-        } finally {
-            worldStateLock.release();
-        }
+        OpenGLRenderTask task = new OpenGLRenderTask(sync);
+        ((OpenGLFrameBuffer) buffer).setCurrentRenderTask(task);
+        return task;
     }
 
     @SuppressWarnings("static-access")
-	private void renderChildren(WorldObject obj, Matrix4f viewProjectionMatrix, Camera camera){
-        //Recursively render children
-        for (WorldObject child : obj.getChildren()){
-            renderChildren(child, viewProjectionMatrix, camera);
-        }
-
+	private void renderObject(WorldSnapshot.Entry entry, Matrix4f viewProjectionMatrix, Camera camera, WorldSnapshot.Entry cameraEntry){
+        WorldObject obj = entry.getObject();
         if(!camera.isVisible(obj)){
             return;
         }
@@ -314,19 +307,18 @@ public class OpenGLRenderer implements Renderer {
             model.getShader().setUniformFloat("color", rgbValues);
         }else if(obj instanceof Drone){
             model = droneModel;
-        }else if(obj instanceof Gate && (obj.getWorldPosition().getDistance(camera.getWorldPosition()) < 1000 || camera instanceof OrthographicCamera)){
-            Gate gate = (Gate)obj;
-            model = gate.hasPackage() ? withPackageGateModel : gateModel;
-        }else if(obj instanceof Runway && (obj.getWorldPosition().getDistance(camera.getWorldPosition()) < 1000 || camera instanceof OrthographicCamera)){
+        }else if(obj instanceof Gate && (entry.getWorldPosition().getDistance(cameraEntry.getWorldPosition()) < 1000 || camera instanceof OrthographicCamera)){
+            model = entry.hasPackage() ? withPackageGateModel : gateModel;
+        }else if(obj instanceof Runway && (entry.getWorldPosition().getDistance(cameraEntry.getWorldPosition()) < 1000 || camera instanceof OrthographicCamera)){
             model = runwayModel;
         }else if(obj instanceof Label3D){
-            labelRenderer.renderLabel((Label3D)obj, viewProjectionMatrix, camera);
+            labelRenderer.renderLabel((Label3D)obj, entry.getWorldPosition(), viewProjectionMatrix, camera, cameraEntry);
             return;
         }else{
             return;
         }
 
-        renderModel(model, viewProjectionMatrix, obj.getObjectToWorldTransform());
+        renderModel(model, viewProjectionMatrix, entry.getObjectToWorldTransform());
 
         //Render icon if necessary
         if(camera instanceof OpenGLOrthographicCamera){
@@ -342,14 +334,15 @@ public class OpenGLRenderer implements Renderer {
                 return;
             }
 
-            Vector3D billboardRelPos = camera.getWorldRotation().applyTo(
+            Rotation cameraRotation = cameraEntry.getWorldRotation();
+            Vector3D billboardRelPos = cameraRotation.applyTo(
                     new Vector3D(orthoCam.getIconOffset().getX(), orthoCam.getIconOffset().getY(), 0)
             );
-            RealVector billboardPosition = obj.getWorldPosition().add(
+            RealVector billboardPosition = entry.getWorldPosition().add(
                     new ArrayRealVector(new double[]{billboardRelPos.getX(), billboardRelPos.getY(), billboardRelPos.getZ()}, false));
 
             float scale = orthoCam.getWidth() / OrthoCameraZoomHandler.DEFAULT_ORTHO_CAM_WIDTH;
-            renderModel(icon, viewProjectionMatrix, icon.generateModelMatrix(camera, billboardPosition, scale * orthoCam.getIconSize()));
+            renderModel(icon, viewProjectionMatrix, Billboard.generateModelMatrix(cameraRotation, billboardPosition, scale * orthoCam.getIconSize()));
         }
     }
 
@@ -428,7 +421,10 @@ public class OpenGLRenderer implements Renderer {
 
     @Override
     public RealVector screenPointToWorldSpace(Camera camera, FrameBuffer frameBuffer, int screenX, int screenY, float z){
-        Matrix4f transform = createViewProjectionMatrix(camera).invert();
+        //Use the snapshot of the last rendered image, so the camera is where it was in that image
+        WorldSnapshot snapshot = lastSnapshot;
+        WorldSnapshot.Entry cameraEntry = snapshot == null ? null : snapshot.resolveEntry(camera);
+        Matrix4f transform = createViewProjectionMatrix(camera, cameraEntry).invert();
 
         // Map to [0;1]
         float x = ((float)screenX) / (float)frameBuffer.getWidth();
@@ -443,28 +439,30 @@ public class OpenGLRenderer implements Renderer {
         return new ArrayRealVector(new double[]{worldSpace.x, worldSpace.y, worldSpace.z}, false);
     }
 
-    private Matrix4f createViewProjectionMatrix(Camera camera){
-        Matrix4f viewMatrix = createViewMatrix(camera);
+    private Matrix4f createViewProjectionMatrix(Camera camera, WorldSnapshot.Entry cameraEntry){
+        Matrix4f viewMatrix = createViewMatrix(camera, cameraEntry);
         Matrix4f projectionMatrix = createProjectionMatrix(camera);
         return new Matrix4f(projectionMatrix).mul(viewMatrix);
     }
 
     /**
      * Returns a linear transformation matrix for transforming vertices from world space to camera space.
+     * @param cameraEntry the snapshot entry of the camera, or null to use the current transformation of the camera.
      * @return a non-null matrix
      */
-    private Matrix4f createViewMatrix(Camera camera){
+    private Matrix4f createViewMatrix(Camera camera, WorldSnapshot.Entry cameraEntry){
         Matrix4f viewMatrix = new Matrix4f();
         viewMatrix.identity();
 
-        Rotation rotation = camera.getWorldRotation();
+        Rotation rotation = cameraEntry == null ? camera.getWorldRotation() : cameraEntry.getWorldRotation();
         Quaternionfc quaternion = new Quaternionf((float)rotation.getQ1(), (float)rotation.getQ2(), (float)rotation.getQ3(), (float)rotation.getQ0());
         viewMatrix.rotate(quaternion);
 
+        RealVector position = cameraEntry == null ? camera.getWorldPosition() : cameraEntry.getWorldPosition();
         viewMatrix.translate(
-                (float) -camera.getWorldPosition().getEntry(0),
-                (float) -camera.getWorldPosition().getEntry(1),
-                (float) -camera.getWorldPosition().getEntry(2)
+                (float) -position.getEntry(0),
+                (float) -position.getEntry(1),
+                (float) -position.getEntry(2)
         );
         return viewMatrix;
     }
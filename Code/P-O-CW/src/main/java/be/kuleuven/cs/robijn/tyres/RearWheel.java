@@ -31,25 +31,25 @@ public abstract class RearWheel extends Tyre{
 	}
 
 	@Override
-	public RealVector getTyreForce(Drone drone, float wheelBrakeForce) {
-		if ((wheelBrakeForce > this.getRMax()) || (wheelBrakeForce < 0))
+	public RealVector getTyreForce(Drone drone, TyreContact contact, float wheelBrakeForce) {
+		if (! isValidBrakeForce(wheelBrakeForce))
 			throw new IllegalArgumentException();
 		
 		RealVector totalForce = new ArrayRealVector(new double[] {0, 0, 0}, false);
 		
-		if (this.getD(drone) != 0)  {
+		if (contact != null)  {
 			RealVector forceTyre = new ArrayRealVector(new double[] {0, 
-					this.getTyreSlope()*this.getD(drone)
-					+ this.getDampSlope()*this.getVelocityD(drone), 0}, false);
+					this.getTyreSlope()*contact.getD()
+					+ this.getDampSlope()*contact.getVelocityD(), 0}, false);
 			totalForce = totalForce.add(forceTyre);
 			
 			RealVector frictionForce = drone.transformationToWorldCoordinates(new ArrayRealVector(new double[] {
-					-this.getFcMax() * forceTyre.getEntry(1) * this.getLateralVelocity(drone),
+					-this.getFcMax() * forceTyre.getEntry(1) * contact.getLateralVelocity(),
 					0, 0}, false));
 			totalForce = totalForce.add(frictionForce);
 			
-			RealVector brakeForce = new ArrayRealVector(new double[] {this.getVelocityTyre(drone).getEntry(0), 
-					0, this.getVelocityTyre(drone).getEntry(2)}, false);
+			RealVector brakeForce = new ArrayRealVector(new double[] {contact.getVelocity().getEntry(0), 
+					0, contact.getVelocity().getEntry(2)}, false);
 			if (brakeForce.getNorm() == 0) {
 				brakeForce = new ArrayRealVector(new double[] {totalForce.getEntry(1), 0, totalForce.getEntry(2)}, false);
 				if (brakeForce.getNorm() < wheelBrakeForce)
@@ -7,7 +7,6 @@ import be.kuleuven.cs.robijn.common.*;
 import be.kuleuven.cs.robijn.common.exceptions.CrashException;
 import be.kuleuven.cs.robijn.common.math.VectorMath;
 import be.kuleuven.cs.robijn.worldObjects.Drone;
-import be.kuleuven.cs.robijn.worldObjects.GroundPlane;
 import interfaces.AutopilotConfig;
 
 public abstract class Tyre extends WorldObject {
@@ -150,28 +149,69 @@ public abstract class Tyre extends WorldObject {
 	}
 	
 	public float getD(Drone drone) throws CrashException {
-		if (this.getPosition(drone).getEntry(1) <=0)
+		double height = this.getPosition(drone).getEntry(1);
+		if (height <=0)
 			throw new CrashException();
-		float d = (float) (this.getTyreRadius() - this.getPosition(drone).getEntry(1));
+		float d = (float) (this.getTyreRadius() - height);
 		if (d < 0)
 			d = 0;
-		else {
-			GroundPlane g = this.getParent().getParent().getFirstChildOfType(GroundPlane.class);
-//			if (g.isGrass(new ArrayRealVector(new double[]{this.getPosition(drone).getEntry(0), 0, this.getPosition(drone).getEntry(2)}, false))) //TODO zet terug aan
-//				throw new CrashException();
-		}
+		//TODO crash when d > 0 on grass, see GroundPlane.isGrass
 		return d;
 	}
 	
-	public RealVector getVelocityTyre(Drone drone) {
+	/**
+	 * Return the largest distance between the center of mass of a drone and the lowest point of this tyre.
+	 * When the center of mass is higher than this distance, the tyre can't touch the ground in any orientation.
+	 */
+	public float getWheelReach() {
+		return (float) (Math.sqrt(this.getWheelX()*this.getWheelX() + this.getWheelY()*this.getWheelY()
+				+ this.getWheelZ()*this.getWheelZ()) + this.getTyreRadius());
+	}
+	
+	public boolean isValidBrakeForce(float wheelBrakeForce) {
+		return (wheelBrakeForce <= this.getRMax()) && (wheelBrakeForce >= 0);
+	}
+	
+	/**
+	 * Return the contact of this tyre with the ground for the current state of the given drone,
+	 * or null if this tyre doesn't touch the ground.
+	 * The position, compression and velocity of the tyre are calculated only once.
+	 * 
+	 * @throws CrashException
+	 * 		   This tyre is under the ground.
+	 * 		 | this.getPosition(drone).getEntry(1) <= 0
+	 */
+	public TyreContact getContact(Drone drone) throws CrashException {
+		double altitude = drone.getWorldY();
+		if (altitude > this.getWheelReach())
+			return null;
+		RealVector relativePosition = this.getRelativePosition(drone);
+		double height = altitude + relativePosition.getEntry(1);
+		if (height <= 0)
+			throw new CrashException();
+		float d = (float) (this.getTyreRadius() - height);
+		if (d <= 0)
+			return null;
+		RealVector groundPosition = relativePosition.add(drone.transformationToWorldCoordinates(
+				new ArrayRealVector(new double[] {0, -this.getDistanceCenterTyreAndGround(d), 0}, false)));
+		RealVector velocity = this.getVelocityTyre(drone, groundPosition);
+		RealVector velocityDrone = drone.transformationToDroneCoordinates(velocity);
+		return new TyreContact(d, groundPosition, velocity, (float) -velocityDrone.getEntry(1), (float) velocityDrone.getEntry(0));
+	}
+	
+	private RealVector getVelocityTyre(Drone drone, RealVector groundPosition) {
 		return drone.getVelocity().add(
 				VectorMath.crossProduct(
 						drone.getHeadingAngularVelocityVector()
 						.add(drone.getPitchAngularVelocityVector())
 						.add(drone.getRollAngularVelocityVector())
-						, this.getRelativePositionTyreGround(drone)));
-		
+						, groundPosition));
 	}
+	
+	public RealVector getVelocityTyre(Drone drone) {
+		return this.getVelocityTyre(drone, this.getRelativePositionTyreGround(drone));
+	}
+	
 	public float getVelocityD(Drone drone) {
 		return (float) -drone.transformationToDroneCoordinates(this.getVelocityTyre(drone)).getEntry(1);
 	}
@@ -180,13 +220,39 @@ public abstract class Tyre extends WorldObject {
 		return (float) drone.transformationToDroneCoordinates(this.getVelocityTyre(drone)).getEntry(0);
 	}
 	
-	public abstract RealVector getTyreForce(Drone drone, float wheelBrakeForce);
+	public RealVector getTyreForce(Drone drone, float wheelBrakeForce) {
+		if (! isValidBrakeForce(wheelBrakeForce))
+			throw new IllegalArgumentException();
+		return this.getTyreForce(drone, this.getContact(drone), wheelBrakeForce);
+	}
+	
+	/**
+	 * Return the force of this tyre in world coordinates, for the given contact with the ground.
+	 * The force is zero if the given contact is null.
+	 * 
+	 * @throws IllegalArgumentException
+	 * 		   The given brake force is not valid.
+	 * 		 | ! isValidBrakeForce(wheelBrakeForce)
+	 */
+	public abstract RealVector getTyreForce(Drone drone, TyreContact contact, float wheelBrakeForce);
 	
 	public RealVector getTyreMoment(Drone drone, float wheelBrakeForce) {
+		if (! isValidBrakeForce(wheelBrakeForce))
+			throw new IllegalArgumentException();
+		TyreContact contact = this.getContact(drone);
+		if (contact == null)
+			return new ArrayRealVector(3);
+		return this.getTyreMoment(drone, contact, this.getTyreForce(drone, contact, wheelBrakeForce));
+	}
+	
+	/**
+	 * Return the moment of the given force of this tyre (in world coordinates) around the center of mass,
+	 * in drone coordinates.
+	 */
+	public RealVector getTyreMoment(Drone drone, TyreContact contact, RealVector force) {
 		return VectorMath.crossProduct(
-				   drone.transformationToDroneCoordinates(this.getRelativePositionTyreGround(drone)), //distance
-				   drone.transformationToDroneCoordinates(this.getTyreForce(drone, wheelBrakeForce)) //forces
+				   drone.transformationToDroneCoordinates(contact.getGroundPosition()), //distance
+				   drone.transformationToDroneCoordinates(force) //forces
 				   );
 	}
 }
-
@@ -0,0 +1,60 @@
+package be.kuleuven.cs.robijn.tyres;
+
+import org.apache.commons.math3.linear.RealVector;
+
+/**
+ * The contact of a tyre with the ground, for one state of a drone.
+ * The position, velocity and compression of the tyre are calculated once by Tyre.getContact
+ * and are then shared by the force and moment calculations of the tyre.
+ */
+public final class TyreContact {
+
+	TyreContact(float d, RealVector groundPosition, RealVector velocity, float velocityD, float lateralVelocity) {
+		this.d = d;
+		this.groundPosition = groundPosition;
+		this.velocity = velocity;
+		this.velocityD = velocityD;
+		this.lateralVelocity = lateralVelocity;
+	}
+
+	private final float d;
+	private final RealVector groundPosition;
+	private final RealVector velocity;
+	private final float velocityD;
+	private final float lateralVelocity;
+
+	/**
+	 * Return the compression of the tyre, see Tyre.getD.
+	 */
+	public float getD() {
+		return this.d;
+	}
+
+	/**
+	 * Return the position of the contact point with the ground relative to the center of mass, in world coordinates.
+	 */
+	public RealVector getGroundPosition() {
+		return this.groundPosition;
+	}
+
+	/**
+	 * Return the velocity of the contact point, in world coordinates.
+	 */
+	public RealVector getVelocity() {
+		return this.velocity;
+	}
+
+	/**
+	 * Return the speed at which the tyre is compressed.
+	 */
+	public float getVelocityD() {
+		return this.velocityD;
+	}
+
+	/**
+	 * Return the velocity of the contact point along the x-axis of the drone.
+	 */
+	public float getLateralVelocity() {
+		return this.lateralVelocity;
+	}
+}
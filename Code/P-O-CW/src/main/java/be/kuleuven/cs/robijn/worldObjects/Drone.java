@@ -11,10 +11,16 @@ import be.kuleuven.cs.robijn.common.airports.Runway;
 
 import be.kuleuven.cs.robijn.common.exceptions.CrashException;
 import be.kuleuven.cs.robijn.common.math.Angle;
+import be.kuleuven.cs.robijn.common.math.AngularAccelerationSolver;
+import be.kuleuven.cs.robijn.common.math.DroneDynamics;
 import be.kuleuven.cs.robijn.common.math.VectorMath;
 import be.kuleuven.cs.robijn.tyres.*;
 import interfaces.*;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
 /**
  * A class of drones.
  * 
@@ -134,6 +140,21 @@ public class Drone extends WorldObject {
 	public AutopilotConfig getConfig() {
 		return config;
 	}
+	
+	/**
+	 * Variable registering the primitive flight dynamics kernel of this drone.
+	 */
+	private DroneDynamics dynamics = null;
+	
+	/**
+	 * Return the primitive flight dynamics kernel of this drone.
+	 * The kernel is created the first time this method is called.
+	 */
+	public DroneDynamics getDynamics() {
+		if (this.dynamics == null)
+			this.dynamics = new DroneDynamics(this);
+		return this.dynamics;
+	}
 
 	public float getGravity() {
 		return this.gravity;
@@ -274,7 +295,9 @@ public class Drone extends WorldObject {
 	public void removeFromAirport(Runway fromRunway, Gate fromGate) {
 //		 Airport currentAirport = fromRunway.getAirport();
 //		if(currentAirport != null) {
-			fromRunway.removeCurrentDrone();
+			if(fromRunway.getCurrentDrone() == this) {
+				fromRunway.removeCurrentDrone();
+			}
 			fromGate.removeCurrentDrone();
 //			Gate g0 = currentAirport.getGates()[0];
 //			Gate g1 = currentAirport.getGates()[1];
@@ -299,8 +322,11 @@ public class Drone extends WorldObject {
 	public void setArrived() {
 		this.setToAirport();
 		this.setPackageDelivered();
+		//The landing runway is only reserved in the ReservationScheduler, it may be locked by a drone that takes off
 		if(getDestinationRunway() != null) {
-			this.getDestinationRunway().removeCurrentDrone();
+			if(getDestinationRunway().getCurrentDrone() == this) {
+				this.getDestinationRunway().removeCurrentDrone();
+			}
 			this.setDestinationRunway(null);
 		}
 	}
@@ -309,6 +335,7 @@ public class Drone extends WorldObject {
 		if(this.assignedPackage != null) {
 			this.setCanBeAssigned(true);
 			this.assignedPackage.markAsDelivered();
+			this.notifyAvailable();
 		}
 	}
 	
@@ -328,7 +355,14 @@ public class Drone extends WorldObject {
 		if(fromGate == null) {
 			throw new IllegalArgumentException();
 		}
-		this.removeFromAirport(this.getClosestRunway(), fromGate);
+		//The runway that was locked for the takeoff, which need not be the closest one
+		Runway fromRunway = this.getClosestRunway();
+		for(Runway runway : airp.getRunways()) {
+			if(runway.getCurrentDrone() == this) {
+				fromRunway = runway;
+			}
+		}
+		this.removeFromAirport(fromRunway, fromGate);
 	}
     //  -----------------   //
     //                      //
@@ -382,6 +416,8 @@ public class Drone extends WorldObject {
 		if (! isValidHeading(heading))
 			throw new IllegalArgumentException();
 		this.heading = heading;
+		this.rotationVersion++;
+		this.invalidateRelativeTransform();
 	}
 
 	
@@ -437,6 +473,8 @@ public class Drone extends WorldObject {
 		if (! isValidPitch(pitch))
 			throw new IllegalArgumentException();
 		this.pitch = pitch;
+		this.rotationVersion++;
+		this.invalidateRelativeTransform();
 	}
 	
 	
@@ -493,6 +531,8 @@ public class Drone extends WorldObject {
 		if (! isValidRoll(roll))
 			throw new IllegalArgumentException();
 		this.roll = roll;
+		this.rotationVersion++;
+		this.invalidateRelativeTransform();
 	}
 	
     //  -----------------   //
@@ -683,6 +723,119 @@ public class Drone extends WorldObject {
 		this.rollAngularVelocity = rollAngularVelocity;
 	}
 
+    //     -----------------      //
+    //                            //
+    //      ROTATION CACHE        //
+    //                            //
+    //     -----------------      //
+	/**
+	 * Variable registering the version of the orientation of this drone.
+	 * The version is incremented every time the heading, pitch or roll of this drone is changed,
+	 * after the new angle was stored. A thread that reads the version therefore sees at least the angles of that version.
+	 */
+	private volatile int rotationVersion = 0;
+	
+	/**
+	 * Variable registering the cached rotation of this drone.
+	 */
+	private volatile RotationCache rotationCache = null;
+	
+	/**
+	 * A class of immutable caches of the sines, cosines and rotation matrices that belong to one orientation of a drone.
+	 */
+	private static final class RotationCache {
+		
+		private final int version;
+		
+		private final double cosHeading, sinHeading, cosPitch, sinPitch, cosRoll, sinRoll;
+		
+		/**
+		 * The drone to world rotation matrix (inverseHeading * inversePitch * inverseRoll) in row-major order.
+		 * The world to drone rotation matrix is the transpose of this matrix.
+		 */
+		private final double[] toWorld = new double[9];
+		
+		/**
+		 * The unit quaternion (w, x, y, z) of the drone to world rotation: heading around Y, then pitch around X, then roll around Z.
+		 */
+		private final double quaternionW, quaternionX, quaternionY, quaternionZ;
+		
+		/**
+		 * The rotation of the drone as a commons-math rotation, created when it is first asked for.
+		 */
+		private Rotation rotation = null;
+		
+		private RotationCache(int version, float heading, float pitch, float roll) {
+			this.version = version;
+			this.cosHeading = Math.cos(heading);
+			this.sinHeading = Math.sin(heading);
+			this.cosPitch = Math.cos(pitch);
+			this.sinPitch = Math.sin(pitch);
+			this.cosRoll = Math.cos(roll);
+			this.sinRoll = Math.sin(roll);
+			
+			double ch = cosHeading, sh = sinHeading, cp = cosPitch, sp = sinPitch, cr = cosRoll, sr = sinRoll;
+			toWorld[0] = ch*cr + sh*sp*sr;
+			toWorld[1] = -ch*sr + sh*sp*cr;
+			toWorld[2] = sh*cp;
+			toWorld[3] = cp*sr;
+			toWorld[4] = cp*cr;
+			toWorld[5] = -sp;
+			toWorld[6] = -sh*cr + ch*sp*sr;
+			toWorld[7] = sh*sr + ch*sp*cr;
+			toWorld[8] = ch*cp;
+			
+			//q = qHeading * qPitch * qRoll
+			double cosHalfH = Math.cos(heading/2.0), sinHalfH = Math.sin(heading/2.0);
+			double cosHalfP = Math.cos(pitch/2.0), sinHalfP = Math.sin(pitch/2.0);
+			double cosHalfR = Math.cos(roll/2.0), sinHalfR = Math.sin(roll/2.0);
+			double w = cosHalfH*cosHalfP, x = cosHalfH*sinHalfP, y = sinHalfH*cosHalfP, z = -sinHalfH*sinHalfP;
+			this.quaternionW = w*cosHalfR - z*sinHalfR;
+			this.quaternionX = x*cosHalfR + y*sinHalfR;
+			this.quaternionY = y*cosHalfR - x*sinHalfR;
+			this.quaternionZ = w*sinHalfR + z*cosHalfR;
+		}
+		
+		private Rotation getRotation() {
+			if (this.rotation == null)
+				//Rotation uses the conjugate of the quaternion of the rotation of the vectors
+				this.rotation = new Rotation(this.quaternionW, -this.quaternionX, -this.quaternionY, -this.quaternionZ, false);
+			return this.rotation;
+		}
+	}
+	
+	/**
+	 * Return the rotation cache that belongs to the current orientation of this drone.
+	 * The cache is only rebuilt if the heading, pitch or roll changed since it was last built.
+	 */
+	private RotationCache getRotationCache() {
+		RotationCache cache = this.rotationCache;
+		int version = this.rotationVersion;
+		if ((cache == null) || (cache.version != version)) {
+			cache = new RotationCache(version, this.getHeading(), this.getPitch(), this.getRoll());
+			this.rotationCache = cache;
+		}
+		return cache;
+	}
+	
+	/**
+	 * Return the given vector multiplied with the given row-major 3x3 matrix, or with its transpose.
+	 */
+	private static RealVector multiply(double[] m, boolean transpose, RealVector realVector) {
+		double x = realVector.getEntry(0);
+		double y = realVector.getEntry(1);
+		double z = realVector.getEntry(2);
+		if (transpose)
+			return new ArrayRealVector(new double[] {
+					m[0]*x + m[3]*y + m[6]*z,
+					m[1]*x + m[4]*y + m[7]*z,
+					m[2]*x + m[5]*y + m[8]*z}, false);
+		return new ArrayRealVector(new double[] {
+				m[0]*x + m[1]*y + m[2]*z,
+				m[3]*x + m[4]*y + m[5]*z,
+				m[6]*x + m[7]*y + m[8]*z}, false);
+	}
+
     //     -----------------      //
     //                            //
     //  TRANSFORMATION MATRICES   //				WORLD TO DRONE COORDINATES
@@ -695,13 +848,13 @@ public class Drone extends WorldObject {
 	 * @return The given vector in Drone coordinates
 	 */
 	public RealVector rollTransformation(RealVector realVector){
-		float rollAngle = this.getRoll();
-		RealMatrix rollTransformation = new Array2DRowRealMatrix(new double[][] { //transformation matrix for roll
-			{Math.cos(rollAngle),      Math.sin(rollAngle),    0},
-			{-Math.sin(rollAngle),     Math.cos(rollAngle),    0}, 
-			{0,                        0,                      1}
-			}, false);
-		return rollTransformation.operate(realVector);	
+		RotationCache cache = this.getRotationCache();
+		double x = realVector.getEntry(0);
+		double y = realVector.getEntry(1);
+		return new ArrayRealVector(new double[] {
+				cache.cosRoll*x + cache.sinRoll*y,
+				-cache.sinRoll*x + cache.cosRoll*y,
+				realVector.getEntry(2)}, false);
 	}
 	
 	/**
@@ -711,13 +864,13 @@ public class Drone extends WorldObject {
 	 * @return The given vector in Heading-Pitch coordinates
 	 */
 	public RealVector pitchTransformation(RealVector realVector){
-		float pitchAngle = this.getPitch();
-		RealMatrix pitchTransformation = new Array2DRowRealMatrix(new double[][] { //transformation matrix for pitch
-			{1,       0,                          0},
-			{0,       Math.cos(pitchAngle),       Math.sin(pitchAngle)},
-			{0,      -Math.sin(pitchAngle),       Math.cos(pitchAngle)}
-			}, false);
-		return pitchTransformation.operate(realVector);	
+		RotationCache cache = this.getRotationCache();
+		double y = realVector.getEntry(1);
+		double z = realVector.getEntry(2);
+		return new ArrayRealVector(new double[] {
+				realVector.getEntry(0),
+				cache.cosPitch*y + cache.sinPitch*z,
+				-cache.sinPitch*y + cache.cosPitch*z}, false);
 	}
 	
 	/**
@@ -727,13 +880,13 @@ public class Drone extends WorldObject {
 	 * @return The given vector in Heading coordinates
 	 */
 	public RealVector headingTransformation(RealVector realVector){
-		float headingAngle = this.getHeading();
-		RealMatrix headingTransformation = new Array2DRowRealMatrix(new double[][] { //transformation matrix for heading
-			{Math.cos(headingAngle),       0,          -Math.sin(headingAngle)},
-			{0,                            1,           0}, 
-			{Math.sin(headingAngle),       0,           Math.cos(headingAngle)}
-			}, false);
-		return headingTransformation.operate(realVector);	
+		RotationCache cache = this.getRotationCache();
+		double x = realVector.getEntry(0);
+		double z = realVector.getEntry(2);
+		return new ArrayRealVector(new double[] {
+				cache.cosHeading*x - cache.sinHeading*z,
+				realVector.getEntry(1),
+				cache.sinHeading*x + cache.cosHeading*z}, false);
 	}
 	
 	/**
@@ -743,34 +896,23 @@ public class Drone extends WorldObject {
 	 * @return The given vector in Drone Coordinates
 	 */
 	public RealVector transformationToDroneCoordinates(RealVector realVector) {
-		return this.rollTransformation(this.pitchTransformation(this.headingTransformation(realVector)));
+		return multiply(this.getRotationCache().toWorld, true, realVector);
 	}
 	
 	public RealVector transformationToDroneWithoutRollCoordinates(RealVector realVector) {
 		return this.pitchTransformation(this.headingTransformation(realVector));
 	}
 	
+	/**
+	 * Return the rotation matrix of this drone, which transforms Drone coordinates to World coordinates.
+	 */
 	public RealMatrix getRotationMatrix() {
-		float rollAngle = this.getRoll();
-		float pitchAngle = this.getPitch();
-		float headingAngle = this.getHeading();
-		RealMatrix inverseRollTransformation = new Array2DRowRealMatrix(new double[][] { //transformation matrix for roll
-			{Math.cos(rollAngle),      -Math.sin(rollAngle),    0},
-			{Math.sin(rollAngle),       Math.cos(rollAngle),    0}, 
-			{0,                        0,                      1}
-			}, false);
-		RealMatrix inversePitchTransformation = new Array2DRowRealMatrix(new double[][] { //transformation matrix for pitch
-			{1,       0,                          0},
-			{0,       Math.cos(pitchAngle),       -Math.sin(pitchAngle)},
-			{0,       Math.sin(pitchAngle),        Math.cos(pitchAngle)}
+		double[] m = this.getRotationCache().toWorld;
+		return new Array2DRowRealMatrix(new double[][] {
+			{m[0], m[1], m[2]},
+			{m[3], m[4], m[5]},
+			{m[6], m[7], m[8]}
 			}, false);
-		RealMatrix inverseHeadingTransformation = new Array2DRowRealMatrix(new double[][] { //transformation matrix for heading
-			{Math.cos(headingAngle),       0,            Math.sin(headingAngle)},
-			{0,                            1,           0}, 
-			{-Math.sin(headingAngle),       0,           Math.cos(headingAngle)}
-			}, false);
-		//return rollTransformation.multiply(pitchTransformation.multiply(headingTransformation));
-		return inverseHeadingTransformation.multiply(inversePitchTransformation.multiply(inverseRollTransformation));
 	}
 	
     //     -----------------      //
@@ -785,13 +927,13 @@ public class Drone extends WorldObject {
 	 * @return The given vector in Heading-Pitch coordinates
 	 */
 	public RealVector inverseRollTransformation(RealVector realVector){
-		float rollAngle = this.getRoll();
-		RealMatrix inverseRollTransformation = new Array2DRowRealMatrix(new double[][] { //transformation matrix for inverse roll
-			{Math.cos(rollAngle),      -Math.sin(rollAngle),       0},
-			{Math.sin(rollAngle),       Math.cos(rollAngle),       0}, 
-			{0,                         0,                         1}
-			}, false);
-		return inverseRollTransformation.operate(realVector);	
+		RotationCache cache = this.getRotationCache();
+		double x = realVector.getEntry(0);
+		double y = realVector.getEntry(1);
+		return new ArrayRealVector(new double[] {
+				cache.cosRoll*x - cache.sinRoll*y,
+				cache.sinRoll*x + cache.cosRoll*y,
+				realVector.getEntry(2)}, false);
 	}
 	
 	/**
@@ -801,13 +943,13 @@ public class Drone extends WorldObject {
 	 * @return The given vector in Heading coordinates
 	 */
 	public RealVector inversePitchTransformation(RealVector realVector){
-		float PitchAngle = this.getPitch();
-		RealMatrix inversePitchTransformation = new Array2DRowRealMatrix(new double[][] { //transformation matrix for inverse pitch
-			{1,       0,                        0},
-			{0,       Math.cos(PitchAngle),    -Math.sin(PitchAngle)},
-			{0,       Math.sin(PitchAngle),     Math.cos(PitchAngle)}
-			}, false);
-		return inversePitchTransformation.operate(realVector);	
+		RotationCache cache = this.getRotationCache();
+		double y = realVector.getEntry(1);
+		double z = realVector.getEntry(2);
+		return new ArrayRealVector(new double[] {
+				realVector.getEntry(0),
+				cache.cosPitch*y - cache.sinPitch*z,
+				cache.sinPitch*y + cache.cosPitch*z}, false);
 	}
 	
 	/**
@@ -817,13 +959,13 @@ public class Drone extends WorldObject {
 	 * @return The given vector in World coordinates
 	 */
 	public RealVector inverseHeadingTransformation(RealVector realVector){
-		float headingAngle = this.getHeading();
-		RealMatrix inverseHeadingTransformation = new Array2DRowRealMatrix(new double[][] { //transformation matrix for inverse heading
-			{Math.cos(headingAngle),     0,       Math.sin(headingAngle)}, 
-			{0,                          1,       0}, 
-			{-Math.sin(headingAngle),    0,       Math.cos(headingAngle)}
-			}, false);
-		return inverseHeadingTransformation.operate(realVector);	
+		RotationCache cache = this.getRotationCache();
+		double x = realVector.getEntry(0);
+		double z = realVector.getEntry(2);
+		return new ArrayRealVector(new double[] {
+				cache.cosHeading*x + cache.sinHeading*z,
+				realVector.getEntry(1),
+				-cache.sinHeading*x + cache.cosHeading*z}, false);
 	}
 	
 	/**
@@ -833,7 +975,7 @@ public class Drone extends WorldObject {
 	 * @return The given vector in World Coordinates
 	 */
 	public RealVector transformationToWorldCoordinates(RealVector realVector) {
-		return this.inverseHeadingTransformation(this.inversePitchTransformation(this.inverseRollTransformation(realVector)));
+		return multiply(this.getRotationCache().toWorld, false, realVector);
 	}
 	
 	public RealVector transformationFromDroneWithoutRollCoordinates(RealVector realVector) {
@@ -1198,7 +1340,7 @@ public class Drone extends WorldObject {
 	
 	@Override
 	public Rotation getRelativeRotation() {
-		return new Rotation(this.getRotationMatrix().getData(), 0.0001);
+		return this.getRotationCache().getRotation();
 	}
 
 	public void setRelativeRotation(Rotation rotation, float extra) {
@@ -1248,17 +1390,6 @@ public class Drone extends WorldObject {
 				}, false);
 		RealVector angularMomentumDroneCoordinates = inertiaMatrix.operate(totalAngularVelocityDroneCoordinates);
 		
-		float pitch = this.getPitch();
-		float roll = this.getRoll();
-		RealMatrix coefficients = 
-				new Array2DRowRealMatrix(new double[][] {
-					{inertiaMatrixXX * Math.cos(pitch) * Math.sin(roll),    inertiaMatrixXX * Math.cos(roll),     0},
-					{inertiaMatrixYY * Math.cos(pitch) * Math.cos(roll),    -inertiaMatrixYY * Math.sin(roll),    0}, 
-					{-inertiaMatrixZZ * Math.sin(pitch),                    0,                                    inertiaMatrixZZ}
-				}, false);
-		
-		DecompositionSolver solver = new LUDecomposition(coefficients).getSolver();
-		
 		RealVector momentOnLeftWing =   VectorMath.crossProduct(
 										new ArrayRealVector(new double[] {-this.getWingX(), 0, 0}, false), //distance
 										this.transformationToDroneCoordinates(this.getLiftForceLeftWing(leftWingInclination)) //forces
@@ -1300,9 +1431,10 @@ public class Drone extends WorldObject {
 			constants = constants.add(tyres.getTyreMoment(this, wheelBrakeForce));
 		}
 		
-		RealVector solution = solver.solve(constants);
+		double[] solution = AngularAccelerationSolver.solve(inertiaMatrixXX, inertiaMatrixYY, inertiaMatrixZZ, 
+				this.getPitch(), this.getRoll(), constants.toArray());
 		
-		return new float[] {(float)solution.getEntry(0), (float)solution.getEntry(1), (float)solution.getEntry(2)};
+		return new float[] {(float)solution[0], (float)solution[1], (float)solution[2]};
 	}
 	public Airport getCurrentAirport() {
 		Airport air = this.getParent().getFirstChildOfType(Airport.class);
@@ -1390,6 +1522,24 @@ public class Drone extends WorldObject {
 		return this.canBeAssigned;
 	}
 	public void setCanBeAssigned(boolean status) {
+		boolean becameAssignable = status && !this.canBeAssigned;
 		this.canBeAssigned = status;
+		if (becameAssignable)
+			this.notifyAvailable();
+	}
+
+	private final List<Consumer<Drone>> availabilityEventHandlers = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Add a handler that is called when this drone delivered its package or can be assigned again.
+	 * The handler may be called on the thread of the autopilot of this drone.
+	 */
+	public void addAvailabilityEventHandler(Consumer<Drone> handler) {
+		this.availabilityEventHandlers.add(handler);
+	}
+
+	private void notifyAvailable() {
+		for (Consumer<Drone> handler : this.availabilityEventHandlers)
+			handler.accept(this);
 	}
 }
\ No newline at end of file
@@ -1,22 +1,56 @@
 package be.kuleuven.cs.robijn.worldObjects;
 
+import java.util.List;
+
 import org.apache.commons.math3.linear.RealVector;
 
 import be.kuleuven.cs.robijn.common.WorldObject;
 import be.kuleuven.cs.robijn.common.airports.Airport;
+import be.kuleuven.cs.robijn.common.airports.GroundTypeMap;
+import be.kuleuven.cs.robijn.common.airports.GroundTypeMap.GroundType;
 
 public class GroundPlane extends WorldObject{
 	
-	public GroundPlane() {}
+	public GroundPlane() {
+		this(GroundTypeMap.DEFAULT_RESOLUTION);
+	}
+	
+	/**
+	 * @param resolution
+	 * 			The size (in meters) of the cells of the map of the ground types.
+	 */
+	public GroundPlane(double resolution) {
+		this.groundTypes = new GroundTypeMap(resolution);
+	}
+	
+	private final GroundTypeMap groundTypes;
+	private int airportCount = -1;
+	
+	/**
+	 * Return the map of the ground types of this ground plane.
+	 * The map is updated when airports were added or removed, call updateGroundTypes when airports moved.
+	 */
+	public GroundTypeMap getGroundTypeMap() {
+		if (this.getParent().getChildrenOfType(Airport.class).size() != this.airportCount)
+			this.updateGroundTypes();
+		return this.groundTypes;
+	}
+	
+	/**
+	 * Update the map of the ground types to the current airports of the world.
+	 */
+	public synchronized void updateGroundTypes() {
+		List<Airport> airports = this.getParent().getChildrenOfType(Airport.class);
+		this.groundTypes.update(airports);
+		this.airportCount = airports.size();
+	}
+	
+	public GroundType getGroundType(RealVector location) {
+		return this.getGroundTypeMap().getGroundType(location.getEntry(0), location.getEntry(2));
+	}
 	
 	public boolean isGrass(RealVector location) {
-		Airport airport = this.getParent().getFirstChildOfType(Airport.class);
-		for (Airport air : airport.getAllAirports()) {
-			if(air.isOnAirport(location)) {
-				return false;
-			}
-		}
-		return true;
+		return this.getGroundType(location) == GroundType.GRASS;
 	}
 	
 }
@@ -0,0 +1,109 @@
+package be.kuleuven.cs.robijn.autopilot;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A class with tests for the class ConflictPredictor.
+ */
+public class ConflictPredictorTest {
+
+	private static final double EPSILON = 0.000001;
+
+	/**
+	 * The time to conflict of all pairs, by testing every pair.
+	 */
+	private static Map<Long, Double> bruteForce(double[] positions, double[] velocities, int amount, double distance, double horizon) {
+		Map<Long, Double> result = new HashMap<>();
+		for (int i = 0; i < amount; i++) {
+			for (int j = i + 1; j < amount; j++) {
+				double rr = 0, vv = 0, vr = 0;
+				for (int k = 0; k < 3; k++) {
+					double p = positions[3*i + k] - positions[3*j + k];
+					double v = velocities[3*i + k] - velocities[3*j + k];
+					rr += p*p;
+					vv += v*v;
+					vr += p*v;
+				}
+				double d = vr*vr - vv*(rr - distance*distance);
+				if (vr >= 0 || d < 0)
+					continue;
+				double time = Math.max(0, -(vr + Math.sqrt(d)) / vv);
+				if (time <= horizon)
+					result.put((long) i * amount + j, time);
+			}
+		}
+		return result;
+	}
+
+	@Test
+	public void testUpdate_SameAsBruteForce() {
+		Random random = new Random(3);
+		ConflictPredictor predictor = new ConflictPredictor(5, 5);
+		for (int run = 0; run < 20; run++) {
+			int amount = 100 + random.nextInt(200);
+			double[] positions = new double[3*amount];
+			double[] velocities = new double[3*amount];
+			for (int i = 0; i < 3*amount; i++) {
+				positions[i] = random.nextGaussian()*500;
+				velocities[i] = random.nextGaussian()*10;
+			}
+			predictor.update(positions, velocities, amount);
+
+			Map<Long, Double> expected = bruteForce(positions, velocities, amount, 5, 5);
+			List<ConflictPredictor.Conflict> conflicts = predictor.getConflicts();
+			assertEquals(expected.size(), conflicts.size());
+			double previous = 0;
+			for (ConflictPredictor.Conflict conflict : conflicts) {
+				Double time = expected.get((long) conflict.getFirst() * amount + conflict.getSecond());
+				assertNotNull(time);
+				assertEquals(time, conflict.getTimeToConflict(), EPSILON);
+				assertTrue(conflict.getTimeToConflict() >= previous);
+				previous = conflict.getTimeToConflict();
+			}
+			assertTrue(predictor.getLastCandidatePairCount() < amount*(amount - 1)/2);
+		}
+	}
+
+	@Test
+	public void testUpdate_ConflictKeptBetweenUpdates() {
+		ConflictPredictor predictor = new ConflictPredictor(5, 5);
+		//Two drones flying towards each other at 10 m/s, and a third one flying away
+		double[] positions = {0, 30, 0, 0, 30, -160, 100, 30, 0};
+		double[] velocities = {0, 0, -10, 0, 0, 10, 10, 0, 0};
+
+		predictor.update(positions, velocities, 3);
+		assertNull(predictor.getFirstConflict());
+
+		positions[2] = -20;
+		positions[5] = -40;
+		predictor.update(positions, velocities, 3);
+		ConflictPredictor.Conflict conflict = predictor.getFirstConflict();
+		assertNotNull(conflict);
+		assertTrue(conflict.isNew());
+		assertEquals(0, conflict.getFirst());
+		assertEquals(1, conflict.getSecond());
+		assertEquals(0.75, conflict.getTimeToConflict(), EPSILON);
+		assertEquals(1, conflict.getTimeToClosestApproach(), EPSILON);
+		assertEquals(0, conflict.getMissDistance(), EPSILON);
+
+		positions[2] = -25;
+		positions[5] = -35;
+		predictor.update(positions, velocities, 3);
+		assertSame(conflict, predictor.getFirstConflict());
+		assertEquals(1, conflict.getAge());
+		assertEquals(0.25, conflict.getTimeToConflict(), EPSILON);
+
+		velocities[2] = 10;
+		velocities[5] = -10;
+		predictor.update(positions, velocities, 3);
+		assertNull(predictor.getFirstConflict());
+		assertTrue(predictor.getConflicts().isEmpty());
+	}
+}
@@ -0,0 +1,103 @@
+package be.kuleuven.cs.robijn.autopilot;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A class with tests for the class Deconfliction.
+ */
+public class DeconflictionTest {
+
+	private static final double EPSILON = 0.0001;
+
+	@Test
+	public void testPlan_HighestIndexGivesWay() {
+		Deconfliction deconfliction = new Deconfliction();
+		//Two drones flying head-on along the z-axis, drone 1 slightly higher
+		double[] positions = {0, 50, 0, 0, 52, -40};
+		double[] velocities = {0, 0, -10, 0, 0, 10};
+
+		Deconfliction.Plan plan = deconfliction.plan(positions, velocities, new boolean[] {true, true}, 2);
+
+		assertEquals(1, plan.getConflicts().size());
+		assertFalse(plan.isAvoiding(0));
+		assertNull(plan.getTargetHeading(0));
+		assertTrue(plan.isAvoiding(1));
+		//Drone 1 flies along +z, which is a heading of 180 degrees, and turns right
+		assertEquals(Math.toRadians(180 - Deconfliction.DEFAULT_HEADING_OFFSET), plan.getTargetHeading(1).getAngle(), EPSILON);
+		assertEquals(52 + Deconfliction.DEFAULT_ALTITUDE_OFFSET, plan.getTargetAltitude(1), EPSILON);
+	}
+
+	@Test
+	public void testPlan_AllConflictsAtOnce() {
+		Deconfliction deconfliction = new Deconfliction();
+		//Drone 0 is landing, drones 1 and 2 both fly towards it, and drone 3 flies away from all of them
+		double[] positions = {0, 60, 0, 0, 58, -40, 20, 62, 0, 500, 60, 500};
+		double[] velocities = {0, 0, 0, 0, 0, 10, -10, 0, 0, 10, 0, 0};
+		boolean[] canGiveWay = {false, true, true, true};
+
+		Deconfliction.Plan plan = deconfliction.plan(positions, velocities, canGiveWay, 4);
+
+		assertEquals(2, plan.getConflicts().size());
+		assertFalse(plan.isAvoiding(0));
+		assertTrue(plan.isAvoiding(1));
+		assertTrue(plan.isAvoiding(2));
+		assertFalse(plan.isAvoiding(3));
+		assertEquals(58 - Deconfliction.DEFAULT_ALTITUDE_OFFSET, plan.getTargetAltitude(1), EPSILON);
+		assertEquals(62 + Deconfliction.DEFAULT_ALTITUDE_OFFSET, plan.getTargetAltitude(2), EPSILON);
+	}
+
+	@Test
+	public void testPlan_TargetsKeptWhileAvoiding() {
+		Deconfliction deconfliction = new Deconfliction();
+		double[] positions = {0, 50, 0, 0, 50, -40};
+		double[] velocities = {0, 0, -10, 0, 0, 10};
+		boolean[] canGiveWay = {true, true};
+
+		float heading = deconfliction.plan(positions, velocities, canGiveWay, 2).getTargetHeading(1).getAngle();
+		//The drone turned and climbed, but is still in conflict
+		positions[4] = 53;
+		velocities[3] = -1;
+		Deconfliction.Plan plan = deconfliction.plan(positions, velocities, canGiveWay, 2);
+		assertEquals(heading, plan.getTargetHeading(1).getAngle(), EPSILON);
+		assertEquals(50 + Deconfliction.DEFAULT_ALTITUDE_OFFSET, plan.getTargetAltitude(1), EPSILON);
+
+		//The conflict is resolved
+		velocities[5] = -10;
+		plan = deconfliction.plan(positions, velocities, canGiveWay, 2);
+		assertTrue(plan.getConflicts().isEmpty());
+		assertFalse(plan.isAvoiding(1));
+	}
+
+	@Test
+	public void testPlan_ConflictsNotChangedByNextPass() {
+		Deconfliction deconfliction = new Deconfliction();
+		double[] positions = {0, 50, 0, 0, 50, -40};
+		double[] velocities = {0, 0, -10, 0, 0, 10};
+		boolean[] canGiveWay = {true, true};
+
+		ConflictPredictor.Conflict first = deconfliction.plan(positions, velocities, canGiveWay, 2).getConflicts().get(0);
+		double timeToConflict = first.getTimeToConflict();
+		positions[5] = -20;
+		ConflictPredictor.Conflict next = deconfliction.plan(positions, velocities, canGiveWay, 2).getConflicts().get(0);
+
+		assertTrue(first.isNew());
+		assertEquals(timeToConflict, first.getTimeToConflict(), EPSILON);
+		assertFalse(next.isNew());
+		assertTrue(next.getTimeToConflict() < timeToConflict);
+	}
+
+	@Test
+	public void testPlan_NoDroneCanGiveWay() {
+		Deconfliction deconfliction = new Deconfliction();
+		double[] positions = {0, 50, 0, 0, 50, -40};
+		double[] velocities = {0, 0, -10, 0, 0, 10};
+
+		Deconfliction.Plan plan = deconfliction.plan(positions, velocities, new boolean[] {false, false}, 2);
+
+		assertEquals(1, plan.getConflicts().size());
+		assertFalse(plan.isAvoiding(0));
+		assertFalse(plan.isAvoiding(1));
+	}
+}
@@ -0,0 +1,213 @@
+package be.kuleuven.cs.robijn.autopilot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.math3.geometry.euclidean.twod.Vector2D;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.junit.jupiter.api.Test;
+
+import be.kuleuven.cs.robijn.common.WorldObject;
+import be.kuleuven.cs.robijn.common.airports.Airport;
+import be.kuleuven.cs.robijn.common.airports.AirportPackage;
+import be.kuleuven.cs.robijn.worldObjects.Drone;
+import interfaces.AutopilotConfig;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A class with tests for the class PackageDispatcher.
+ */
+public class PackageDispatcherTest {
+
+	private static AutopilotConfig config = new AutopilotConfig() {
+		public String getDroneID() { return "drone"; }
+		public float getGravity() { return 9.81f; }
+		public float getWingX() { return 4.2f; }
+		public float getTailSize() { return 4.2f; }
+		public float getWheelY() { return -1.22f; }
+		public float getFrontWheelZ() { return -2f; }
+		public float getRearWheelZ() { return 1f; }
+		public float getRearWheelX() { return 1.4f; }
+		public float getTyreSlope() { return 40875f; }
+		public float getDampSlope() { return 470f; }
+		public float getTyreRadius() { return 0.22f; }
+		public float getRMax() { return 4316f; }
+		public float getFcMax() { return 0.7f; }
+		public float getEngineMass() { return 180; }
+		public float getWingMass() { return 100; }
+		public float getTailMass() { return 100; }
+		public float getMaxThrust() { return 2000; }
+		public float getMaxAOA() { return (float) (Math.PI/12); }
+		public float getWingLiftSlope() { return 10; }
+		public float getHorStabLiftSlope() { return 5; }
+		public float getVerStabLiftSlope() { return 5; }
+		public float getHorizontalAngleOfView() { return (float) (Math.PI/3); }
+		public float getVerticalAngleOfView() { return (float) (Math.PI/3); }
+		public int getNbColumns() { return 120; }
+		public int getNbRows() { return 120; }
+	};
+
+	private final WorldObject world = new WorldObject();
+	private final Airport from = addAirport(0, 0);
+	private final Airport to = addAirport(1, 20000);
+	private final Drone drone = addDrone();
+	//The packages of every call to the assigner
+	private final List<List<AirportPackage>> assignments = new ArrayList<>();
+	private final PackageDispatcher dispatcher = new PackageDispatcher(world, (packages, time) -> assignments.add(packages));
+
+	private Airport addAirport(int id, double x) {
+		Airport airport = new Airport(id, 280, 15, new Vector2D(0, -1));
+		airport.setRelativePosition(new ArrayRealVector(new double[] {x, 0, 0}));
+		world.addChild(airport);
+		return airport;
+	}
+
+	private Drone addDrone() {
+		Drone drone = new Drone(config, new ArrayRealVector(3));
+		world.addChild(drone);
+		return drone;
+	}
+
+	private AirportPackage addPackage(int gate) {
+		AirportPackage p = new AirportPackage(from.getGates()[gate], to.getGates()[gate], null);
+		dispatcher.packageAdded(p);
+		return p;
+	}
+
+	private void droneEvent() {
+		drone.setCanBeAssigned(false);
+		drone.setCanBeAssigned(true);
+	}
+
+	private void gateEvent() {
+		from.getGates()[0].setCurrentDrone(drone);
+		from.getGates()[0].removeCurrentDrone();
+	}
+
+	private void runwayEvent() {
+		from.getRunways()[1].setCurrentDrone(drone);
+		from.getRunways()[1].removeCurrentDrone();
+	}
+
+	@Test
+	public void testDispatch_AtMostOnceWithManyEvents() throws InterruptedException {
+		AirportPackage p = addPackage(0);
+		//The events come from the autopilot threads
+		Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread(() -> {
+				for (int j = 0; j < 100; j++)
+					dispatcher.notifyChanged();
+			});
+			threads[i].start();
+		}
+		for (Thread thread : threads)
+			thread.join();
+		droneEvent();
+		gateEvent();
+		runwayEvent();
+
+		assertTrue(dispatcher.dispatch(1));
+		assertEquals(1, assignments.size());
+		assertEquals(Arrays.asList(p), assignments.get(0));
+		assertEquals(1, dispatcher.getDispatchCount());
+		assertEquals(404, dispatcher.getEventCount());
+	}
+
+	@Test
+	public void testDispatch_NothingChanged() {
+		addPackage(0);
+		assertTrue(dispatcher.dispatch(1));
+
+		assertFalse(dispatcher.dispatch(2));
+		assertFalse(dispatcher.dispatch(3));
+		assertEquals(1, assignments.size());
+	}
+
+	@Test
+	public void testDispatch_NoWaitingPackages() {
+		droneEvent();
+
+		assertFalse(dispatcher.dispatch(1));
+		assertTrue(assignments.isEmpty());
+		assertEquals(0, dispatcher.getDispatchCount());
+	}
+
+	@Test
+	public void testDispatch_DroneEventChanges() {
+		addPackage(0);
+		dispatcher.dispatch(1);
+
+		droneEvent();
+		assertTrue(dispatcher.dispatch(2));
+		assertEquals(2, assignments.size());
+	}
+
+	@Test
+	public void testDispatch_GateEventChanges() {
+		addPackage(0);
+		dispatcher.dispatch(1);
+
+		//Setting a drone is not an event, only removing it
+		from.getGates()[0].setCurrentDrone(drone);
+		assertFalse(dispatcher.dispatch(2));
+		from.getGates()[0].removeCurrentDrone();
+		assertTrue(dispatcher.dispatch(3));
+		assertEquals(2, assignments.size());
+	}
+
+	@Test
+	public void testDispatch_RunwayEventChanges() {
+		addPackage(0);
+		dispatcher.dispatch(1);
+
+		to.getRunways()[0].setCurrentDrone(drone);
+		assertFalse(dispatcher.dispatch(2));
+		to.getRunways()[0].removeCurrentDrone();
+		assertTrue(dispatcher.dispatch(3));
+		assertEquals(2, assignments.size());
+	}
+
+	@Test
+	public void testPackageAdded_LeavesQueueWhenNotAtGate() {
+		AirportPackage first = addPackage(0);
+		AirportPackage second = addPackage(1);
+		assertEquals(2, dispatcher.getWaitingPackageCount());
+
+		first.markAsInTransit(drone);
+		assertEquals(1, dispatcher.getWaitingPackageCount());
+		dispatcher.dispatch(1);
+		assertEquals(Arrays.asList(second), assignments.get(0));
+
+		second.markAsDelivered();
+		assertEquals(0, dispatcher.getWaitingPackageCount());
+		droneEvent();
+		assertFalse(dispatcher.dispatch(2));
+		assertEquals(1, assignments.size());
+	}
+
+	@Test
+	public void testDispatch_LatencyAndQueueDepth() {
+		assertFalse(dispatcher.dispatch(1));
+		AirportPackage first = addPackage(0);
+		assertTrue(dispatcher.dispatch(4));
+		//The package was added after the dispatch at 1
+		assertEquals(3, dispatcher.getLastDispatchLatency(), 0.0001);
+		assertEquals(1, dispatcher.getQueueDepth());
+
+		addPackage(1);
+		assertTrue(dispatcher.dispatch(5));
+		assertEquals(1, dispatcher.getLastDispatchLatency(), 0.0001);
+		assertEquals(2, dispatcher.getAverageDispatchLatency(), 0.0001);
+		assertEquals(2, dispatcher.getQueueDepth());
+
+		first.markAsInTransit(drone);
+		gateEvent();
+		assertTrue(dispatcher.dispatch(6));
+		assertEquals(1, dispatcher.getQueueDepth());
+		assertEquals(2, dispatcher.getMaxQueueDepth());
+		assertEquals(3, dispatcher.getDispatchCount());
+	}
+}
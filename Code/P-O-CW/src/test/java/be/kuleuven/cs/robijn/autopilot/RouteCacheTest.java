@@ -0,0 +1,58 @@
+package be.kuleuven.cs.robijn.autopilot;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A class with tests for the class RouteCache.
+ */
+public class RouteCacheTest {
+
+	private int computations = 0;
+
+	private String compute(String value) {
+		computations++;
+		return value;
+	}
+
+	@Test
+	public void testGet_ComputedOnce() {
+		RouteCache cache = new RouteCache(10);
+		Object airport = new Object();
+
+		assertEquals("a", cache.get(() -> compute("a"), "land", airport, 40f));
+		assertEquals("a", cache.get(() -> compute("b"), "land", airport, 40f));
+		assertEquals("c", cache.get(() -> compute("c"), "land", airport, 50f));
+		assertEquals("d", cache.get(() -> compute("d"), "land", new Object(), 40f));
+
+		assertEquals(3, computations);
+		assertEquals(1, cache.getHitCount());
+		assertEquals(3, cache.getMissCount());
+		assertEquals(0.25, cache.getHitRate(), 0.0001);
+		assertEquals(3, cache.getSize());
+	}
+
+	@Test
+	public void testGet_LeastRecentlyUsedEvicted() {
+		RouteCache cache = new RouteCache(2);
+		cache.get(() -> compute("a"), "a");
+		cache.get(() -> compute("b"), "b");
+		//Use a, so b is the least recently used entry
+		cache.get(() -> compute("a"), "a");
+		cache.get(() -> compute("c"), "c");
+
+		assertEquals(2, cache.getSize());
+		assertEquals(1, cache.getEvictionCount());
+		cache.get(() -> compute("a"), "a");
+		assertEquals(3, computations);
+		cache.get(() -> compute("b"), "b");
+		assertEquals(4, computations);
+	}
+
+	@Test
+	public void testConstructor_InvalidCapacity() {
+		assertThrows(IllegalArgumentException.class, () -> new RouteCache(0));
+		assertEquals(RouteCache.DEFAULT_CAPACITY, new RouteCache().getCapacity());
+	}
+}
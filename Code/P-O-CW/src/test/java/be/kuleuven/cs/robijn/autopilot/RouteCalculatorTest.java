@@ -0,0 +1,105 @@
+package be.kuleuven.cs.robijn.autopilot;
+
+import org.apache.commons.math3.geometry.euclidean.twod.Vector2D;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.junit.jupiter.api.Test;
+
+import be.kuleuven.cs.robijn.common.WorldObject;
+import be.kuleuven.cs.robijn.common.airports.Airport;
+import be.kuleuven.cs.robijn.common.airports.Gate;
+import be.kuleuven.cs.robijn.worldObjects.Drone;
+import interfaces.AutopilotConfig;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A class with tests for the route distances of the class routeCalculator.
+ */
+public class RouteCalculatorTest {
+
+	private static AutopilotConfig config = new AutopilotConfig() {
+		public String getDroneID() { return "drone"; }
+		public float getGravity() { return 9.81f; }
+		public float getWingX() { return 4.2f; }
+		public float getTailSize() { return 4.2f; }
+		public float getWheelY() { return -1.22f; }
+		public float getFrontWheelZ() { return -2f; }
+		public float getRearWheelZ() { return 1f; }
+		public float getRearWheelX() { return 1.4f; }
+		public float getTyreSlope() { return 40875f; }
+		public float getDampSlope() { return 470f; }
+		public float getTyreRadius() { return 0.22f; }
+		public float getRMax() { return 4316f; }
+		public float getFcMax() { return 0.7f; }
+		public float getEngineMass() { return 180; }
+		public float getWingMass() { return 100; }
+		public float getTailMass() { return 100; }
+		public float getMaxThrust() { return 2000; }
+		public float getMaxAOA() { return (float) (Math.PI/12); }
+		public float getWingLiftSlope() { return 10; }
+		public float getHorStabLiftSlope() { return 5; }
+		public float getVerStabLiftSlope() { return 5; }
+		public float getHorizontalAngleOfView() { return (float) (Math.PI/3); }
+		public float getVerticalAngleOfView() { return (float) (Math.PI/3); }
+		public int getNbColumns() { return 120; }
+		public int getNbRows() { return 120; }
+	};
+
+	private final WorldObject world = new WorldObject();
+	private final Airport from = addAirport(0, 0);
+	private final Airport to = addAirport(1, 20000);
+
+	private Airport addAirport(int id, double x) {
+		Airport airport = new Airport(id, 280, 15, new Vector2D(0, -1));
+		airport.setRelativePosition(new ArrayRealVector(new double[] {x, 0, 0}));
+		world.addChild(airport);
+		return airport;
+	}
+
+	private Drone addDrone(double x, double z, float height) {
+		Drone drone = new Drone(config, new ArrayRealVector(3));
+		drone.setRelativePosition(new ArrayRealVector(new double[] {x, 1, z}));
+		drone.setHeight(height);
+		world.addChild(drone);
+		return drone;
+	}
+
+	@Test
+	public void testGetRouteDistance_SameForEveryDroneAtTheSameHeight() {
+		Gate fromGate = from.getGates()[0];
+		Gate toGate = to.getGates()[1];
+		Drone first = addDrone(-50, 10, 40);
+		Drone second = addDrone(60, -30, 40);
+
+		double distance = routeCalculator.getRouteDistance(first, fromGate, toGate);
+		assertEquals(distance, routeCalculator.getRouteDistance(second, fromGate, toGate), 0.0001);
+
+		//A fresh airport computes the same distance when the second drone asks it first
+		Airport other = addAirport(2, 0);
+		Airport otherTo = addAirport(3, 20000);
+		assertEquals(distance, routeCalculator.getRouteDistance(second, other.getGates()[0], otherTo.getGates()[1]), 0.0001);
+	}
+
+	@Test
+	public void testGetRouteDistance_KeyedOnHeight() {
+		Gate fromGate = from.getGates()[0];
+		Gate toGate = to.getGates()[1];
+		routeCalculator.getRouteDistance(addDrone(0, 0, 40), fromGate, toGate);
+		long misses = from.getRouteCache().getMissCount();
+
+		//The same height is a hit, another height is computed again
+		routeCalculator.getRouteDistance(addDrone(30, 0, 40), fromGate, toGate);
+		assertEquals(misses, from.getRouteCache().getMissCount());
+		routeCalculator.getRouteDistance(addDrone(0, 0, 400), fromGate, toGate);
+		assertTrue(from.getRouteCache().getMissCount() > misses);
+	}
+
+	@Test
+	public void testGetRouteDistance_CachedByTheAirport() {
+		routeCalculator.getRouteDistance(addDrone(0, 0, 40), from.getGates()[0], to.getGates()[1]);
+
+		assertTrue(from.getRouteCache().getSize() > 0);
+		assertTrue(to.getRouteCache().getSize() > 0);
+		assertEquals(0, new Airport(4, 280, 15, new Vector2D(0, -1)).getRouteCache().getSize());
+	}
+}
@@ -0,0 +1,110 @@
+package be.kuleuven.cs.robijn.common;
+
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.math3.geometry.euclidean.twod.Vector2D;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.RealVector;
+import org.junit.jupiter.api.Test;
+
+import be.kuleuven.cs.robijn.common.airports.Airport;
+import be.kuleuven.cs.robijn.common.airports.AirportIndex;
+import be.kuleuven.cs.robijn.common.airports.Gate;
+import be.kuleuven.cs.robijn.common.airports.Runway;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A class with tests for the class AirportIndex.
+ */
+public class AirportIndexTest {
+
+	private static WorldObject createWorld(Random random, int amount) {
+		WorldObject world = new WorldObject();
+		for (int i = 0; i < amount; i++) {
+			double angle = random.nextDouble() * Math.PI * 2;
+			Airport airport = new Airport(i, 280, 15, new Vector2D(Math.cos(angle), Math.sin(angle)));
+			airport.setRelativePosition(new ArrayRealVector(new double[] {random.nextGaussian()*2000, 0, random.nextGaussian()*2000}));
+			world.addChild(airport);
+		}
+		return world;
+	}
+
+	@Test
+	public void testGetAirportAt_SameAsIsOnAirport() {
+		Random random = new Random(11);
+		WorldObject world = createWorld(random, 200);
+		List<Airport> airports = world.getChildrenOfType(Airport.class);
+		AirportIndex index = AirportIndex.of(world);
+
+		int onAirport = 0;
+		for (int k = 0; k < 20000; k++) {
+			//Points near the airports, so that many of them are on an airport
+			Airport near = airports.get(random.nextInt(airports.size()));
+			RealVector point = new ArrayRealVector(new double[] {
+					near.getWorldX() + random.nextGaussian()*200, 0, near.getWorldZ() + random.nextGaussian()*200});
+
+			Airport expected = null;
+			for (Airport airport : airports) {
+				if (airport.isOnAirport(point)) {
+					expected = airport;
+					break;
+				}
+			}
+			assertSame(expected, index.getAirportAt(point.getEntry(0), point.getEntry(2)));
+			assertSame(expected, near.getAirportAt(point));
+			if (expected != null)
+				onAirport++;
+		}
+		assertTrue(onAirport > 1000);
+	}
+
+	@Test
+	public void testGetGateAt_SameAreaAsGate() {
+		Random random = new Random(5);
+		WorldObject world = createWorld(random, 50);
+		List<Airport> airports = world.getChildrenOfType(Airport.class);
+		AirportIndex index = AirportIndex.of(world);
+
+		for (int k = 0; k < 20000; k++) {
+			Airport near = airports.get(random.nextInt(airports.size()));
+			double x = near.getWorldX() + random.nextGaussian()*40;
+			double z = near.getWorldZ() + random.nextGaussian()*40;
+
+			Gate expectedGate = null;
+			Runway expectedRunway = null;
+			for (Airport airport : airports) {
+				for (Gate gate : airport.getGates()) {
+					if (expectedGate == null && Math.abs(gate.getWorldX() - x) < gate.getSize().getX()
+							&& Math.abs(gate.getWorldZ() - z) < gate.getSize().getY())
+						expectedGate = gate;
+				}
+				for (Runway runway : airport.getRunways()) {
+					//Runways lie along the local X-axis of their airport
+					double dx = x - runway.getWorldX(), dz = z - runway.getWorldZ();
+					double cos = Math.cos(airport.getAngle()), sin = Math.sin(airport.getAngle());
+					if (expectedRunway == null && Math.abs(dx*cos - dz*sin) < runway.getSize().getX()/2
+							&& Math.abs(dx*sin + dz*cos) < runway.getSize().getY()/2)
+						expectedRunway = runway;
+				}
+			}
+			assertSame(expectedGate, index.getGateAt(x, z));
+			assertSame(expectedRunway, index.getRunwayAt(x, z));
+		}
+	}
+
+	@Test
+	public void testOf_RebuiltWhenAirportAdded() {
+		WorldObject world = createWorld(new Random(1), 3);
+		AirportIndex index = AirportIndex.of(world);
+		assertSame(index, AirportIndex.of(world));
+
+		Airport airport = new Airport(3, 280, 15, new Vector2D(0, -1));
+		airport.setRelativePosition(new ArrayRealVector(new double[] {100000, 0, 0}));
+		world.addChild(airport);
+
+		assertNotSame(index, AirportIndex.of(world));
+		assertSame(airport, AirportIndex.of(world).getAirportAt(100000, 0));
+	}
+}
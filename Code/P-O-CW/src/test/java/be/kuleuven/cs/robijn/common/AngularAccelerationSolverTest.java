@@ -0,0 +1,48 @@
+package be.kuleuven.cs.robijn.common;
+
+import org.apache.commons.math3.linear.*;
+
+import be.kuleuven.cs.robijn.common.math.AngularAccelerationSolver;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A class with tests for the class AngularAccelerationSolver.
+ */
+public class AngularAccelerationSolverTest {
+
+	private static final double EPSILON = 0.000001;
+
+	private static final double inertiaXX = 29;
+	private static final double inertiaZZ = 250;
+	private static final double inertiaYY = inertiaXX + inertiaZZ;
+
+	@Test
+	public void testSolve_SameAsLUDecomposition() {
+		double[] constants = new double[] {120, -35, 7.5};
+		for (double pitch = -1.4; pitch <= 1.4; pitch += 0.35) {
+			for (double roll = 0; roll < 2*Math.PI; roll += 0.5) {
+				RealMatrix coefficients = new Array2DRowRealMatrix(new double[][] {
+					{inertiaXX * Math.cos(pitch) * Math.sin(roll),    inertiaXX * Math.cos(roll),     0},
+					{inertiaYY * Math.cos(pitch) * Math.cos(roll),    -inertiaYY * Math.sin(roll),    0},
+					{-inertiaZZ * Math.sin(pitch),                    0,                              inertiaZZ}
+				}, false);
+				RealVector expected = new LUDecomposition(coefficients).getSolver().solve(new ArrayRealVector(constants));
+
+				double[] solution = AngularAccelerationSolver.solve(inertiaXX, inertiaYY, inertiaZZ, pitch, roll, constants);
+
+				assertArrayEquals(expected.toArray(), solution, EPSILON);
+			}
+		}
+	}
+
+	@Test
+	public void testSolve_GimbalLock() {
+		double[] solution = AngularAccelerationSolver.solve(inertiaXX, inertiaYY, inertiaZZ, Math.PI/2, 0.3, new double[] {1, 2, 3});
+
+		for (double value : solution)
+			assertFalse(Double.isNaN(value) || Double.isInfinite(value));
+	}
+}
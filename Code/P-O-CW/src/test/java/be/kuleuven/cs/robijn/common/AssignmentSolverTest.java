@@ -0,0 +1,88 @@
+package be.kuleuven.cs.robijn.common;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import be.kuleuven.cs.robijn.common.math.AssignmentSolver;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A class with tests for the class AssignmentSolver.
+ */
+public class AssignmentSolverTest {
+
+	private static final double EPSILON = 0.0001;
+
+	/**
+	 * The minimal total cost of assigning min(rows, columns) rows to different columns, by trying all assignments.
+	 */
+	private static double bruteForce(double[][] costs, int row, boolean[] usedColumns, int toAssign) {
+		if (toAssign == 0)
+			return 0;
+		if (costs.length - row < toAssign)
+			return Double.POSITIVE_INFINITY;
+		//Leave this row unassigned
+		double best = bruteForce(costs, row + 1, usedColumns, toAssign);
+		for (int j = 0; j < usedColumns.length; j++) {
+			if (usedColumns[j])
+				continue;
+			usedColumns[j] = true;
+			best = Math.min(best, costs[row][j] + bruteForce(costs, row + 1, usedColumns, toAssign - 1));
+			usedColumns[j] = false;
+		}
+		return best;
+	}
+
+	private static double totalCost(double[][] costs, int[] result, int columns) {
+		boolean[] used = new boolean[columns];
+		double total = 0;
+		int assigned = 0;
+		for (int i = 0; i < result.length; i++) {
+			if (result[i] == -1)
+				continue;
+			assertFalse(used[result[i]]);
+			used[result[i]] = true;
+			total += costs[i][result[i]];
+			assigned++;
+		}
+		assertEquals(Math.min(result.length, columns), assigned);
+		return total;
+	}
+
+	@Test
+	public void testSolve_SameAsBruteForce() {
+		Random random = new Random(3);
+		for (int k = 0; k < 300; k++) {
+			int rows = 1 + random.nextInt(6);
+			int columns = 1 + random.nextInt(6);
+			double[][] costs = new double[rows][columns];
+			for (int i = 0; i < rows; i++) {
+				for (int j = 0; j < columns; j++)
+					costs[i][j] = (random.nextInt(4) == 0) ? random.nextInt(3) : random.nextDouble() * 1000;
+			}
+
+			int[] result = AssignmentSolver.solve(costs);
+			assertEquals(rows, result.length);
+			double expected = bruteForce(costs, 0, new boolean[columns], Math.min(rows, columns));
+			assertEquals(expected, totalCost(costs, result, columns), EPSILON);
+		}
+	}
+
+	@Test
+	public void testSolve_NotGreedy() {
+		//Greedily giving row 0 its cheapest column costs 1 + 100, the optimum is 2 + 2
+		double[][] costs = {{1, 2}, {2, 100}};
+		assertArrayEquals(new int[] {1, 0}, AssignmentSolver.solve(costs));
+	}
+
+	@Test
+	public void testSolve_EmptyAndInvalid() {
+		assertArrayEquals(new int[0], AssignmentSolver.solve(new double[0][0]));
+		assertArrayEquals(new int[] {-1, -1}, AssignmentSolver.solve(new double[2][0]));
+		assertThrows(IllegalArgumentException.class, () -> AssignmentSolver.solve(null));
+		assertThrows(IllegalArgumentException.class, () -> AssignmentSolver.solve(new double[][] {{1, 2}, {3}}));
+		assertThrows(IllegalArgumentException.class, () -> AssignmentSolver.solve(new double[][] {{Double.NaN}}));
+	}
+}
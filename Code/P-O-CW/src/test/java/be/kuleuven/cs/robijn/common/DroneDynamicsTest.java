@@ -0,0 +1,364 @@
+package be.kuleuven.cs.robijn.common;
+
+import org.apache.commons.math3.linear.*;
+import org.apache.commons.math3.ode.FirstOrderDifferentialEquations;
+import org.apache.commons.math3.ode.nonstiff.ClassicalRungeKuttaIntegrator;
+
+import be.kuleuven.cs.robijn.common.math.DroneDynamics;
+import be.kuleuven.cs.robijn.common.math.SystemDifferentialEquations;
+import be.kuleuven.cs.robijn.testbed.FleetIntegrator;
+import be.kuleuven.cs.robijn.testbed.TestbedSimulation;
+import be.kuleuven.cs.robijn.worldObjects.Drone;
+
+import org.junit.jupiter.api.Test;
+import interfaces.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A class with tests for the class DroneDynamics.
+ * The kernel must give the same results as the RealVector based methods of Drone.
+ */
+public class DroneDynamicsTest {
+	
+	private static final double EPSILON = 0.001;
+	
+	private static float wingX = 4.2f;
+	private static float tailSize = 4.2f;
+	private static float engineMass = 180;
+	private static float wingMass = 100;
+	private static float tailMass = 100;
+	private static float maxThrust = 2000;
+	private static float maxAOA = ((float) (Math.PI/12));
+	private static float wingLiftSlope = 10;
+	private static float horStabLiftSlope = 5;
+	private static float verStabLiftSlope = 5;
+	private static RealVector velocity = new ArrayRealVector(new double[] {0,0,-40},false);
+	private static float horAngleOfView = (float) (Math.PI/3);
+	private static float verAngleOfView = (float) (Math.PI/3);
+	private static int nbColumns = 120;
+	private static int nbRows = 120;
+	private static String droneID = "drone";
+	private static float wheelY = -1.22f;
+	private static float rearWheelX = 1.4f;
+	private static float rearWheelZ = 1f;
+	private static float frontWheelZ = -2f;
+	private static float tyreSlope = 40875f;
+	private static float dampSlope = 470f;
+	private static float RMax = 4316f;
+	private static float fcMax = 0.7f;
+	private static float tyreRadius = 0.22f;
+	
+	private static AutopilotConfig config = new AutopilotConfig() {
+		@Override
+		public String getDroneID() {
+			return droneID;
+		}
+
+		public float getGravity() { return (float) 9.81; }
+        public float getWingX() { return wingX; }
+        public float getTailSize() { return tailSize; }
+
+		@Override
+		public float getWheelY() {
+			return wheelY;
+		}
+
+		@Override
+		public float getFrontWheelZ() {
+			return frontWheelZ;
+		}
+
+		@Override
+		public float getRearWheelZ() {
+			return rearWheelZ;
+		}
+
+		@Override
+		public float getRearWheelX() {
+			return rearWheelX;
+		}
+
+		@Override
+		public float getTyreSlope() {
+			return tyreSlope;
+		}
+
+		@Override
+		public float getDampSlope() {
+			return dampSlope;
+		}
+
+		@Override
+		public float getTyreRadius() {
+			return tyreRadius;
+		}
+
+		@Override
+		public float getRMax() {
+			return RMax;
+		}
+
+		@Override
+		public float getFcMax() {
+			return fcMax;
+		}
+
+		public float getEngineMass() { return engineMass; }
+        public float getWingMass() { return wingMass; }
+        public float getTailMass() { return tailMass; }
+        public float getMaxThrust() { return maxThrust; }
+        public float getMaxAOA() { return maxAOA; }
+        public float getWingLiftSlope() { return wingLiftSlope; }
+        public float getHorStabLiftSlope() { return horStabLiftSlope; }
+        public float getVerStabLiftSlope() { return verStabLiftSlope; }
+        public float getHorizontalAngleOfView() { return horAngleOfView; }
+        public float getVerticalAngleOfView() { return verAngleOfView; }
+        public int getNbColumns() { return nbColumns; }
+        public int getNbRows() { return nbRows; }
+    };
+
+	private static Drone createDrone(double[] state) {
+		WorldObject world = new WorldObject();
+		Drone drone = new Drone(config, velocity);
+		world.addChild(drone);
+		drone.setRelativePosition(new ArrayRealVector(new double[] {state[0], state[2], state[4]}, false));
+		drone.setVelocity(new ArrayRealVector(new double[] {state[1], state[3], state[5]}, false));
+		drone.setHeading((float) state[6]);
+		drone.setHeadingAngularVelocity((float) state[7]);
+		drone.setPitch((float) state[8]);
+		drone.setPitchAngularVelocity((float) state[9]);
+		drone.setRoll((float) state[10]);
+		drone.setRollAngularVelocity((float) state[11]);
+		return drone;
+	}
+	
+	/**
+	 * The equations of motion of one drone, integrated with commons-math as a reference for FleetIntegrator.
+	 */
+	private static class ReferenceEquations implements FirstOrderDifferentialEquations {
+		
+		private final DroneDynamics dynamics;
+		private final AutopilotOutputs outputs;
+		private final double[] accelerations = new double[DroneDynamics.RESULT_SIZE];
+		
+		private ReferenceEquations(Drone drone, AutopilotOutputs outputs) {
+			this.dynamics = drone.getDynamics();
+			this.outputs = outputs;
+		}
+		
+		public int getDimension() {
+			return DroneDynamics.STATE_SIZE;
+		}
+		
+		public void computeDerivatives(double t, double[] y, double[] yDot) {
+			this.dynamics.computeAccelerations(y, outputs.getThrust(),
+					outputs.getLeftWingInclination(), outputs.getRightWingInclination(),
+					outputs.getHorStabInclination(), outputs.getVerStabInclination(),
+					outputs.getFrontBrakeForce(), outputs.getLeftBrakeForce(), outputs.getRightBrakeForce(),
+					this.accelerations);
+			for (int k = 0; k < 6; k++) {
+				yDot[2*k] = y[2*k + 1];
+				yDot[2*k + 1] = this.accelerations[k];
+			}
+		}
+	}
+	
+	/**
+	 * Moves the drone with one classical Runge-Kutta step of the reference equations.
+	 */
+	private static void moveWithReference(Drone drone, double seconds, AutopilotOutputs outputs) {
+		double[] y = new double[DroneDynamics.STATE_SIZE];
+		DroneDynamics.readState(drone, y);
+		new ClassicalRungeKuttaIntegrator(seconds).integrate(new ReferenceEquations(drone, outputs), 0.0, y, seconds, y);
+		drone.setRelativePosition(new ArrayRealVector(new double[] {y[0], y[2], y[4]}, false));
+		drone.setVelocity(new ArrayRealVector(new double[] {y[1], y[3], y[5]}, false));
+		drone.setHeading(SystemDifferentialEquations.wrapAngle(y[6]));
+		drone.setPitch(SystemDifferentialEquations.wrapAngle(y[8]));
+		drone.setRoll(SystemDifferentialEquations.wrapAngle(y[10]));
+		drone.setHeadingAngularVelocity((float) y[7]);
+		drone.setPitchAngularVelocity((float) y[9]);
+		drone.setRollAngularVelocity((float) y[11]);
+	}
+	
+	private static void assertSameAccelerations(double[] state, float thrust, float wing, float horStab, float verStab,
+			float frontBrake, float leftBrake, float rightBrake) {
+		Drone drone = createDrone(state);
+		RealVector expected = drone.getAcceleration(thrust, wing, wing, horStab, verStab, frontBrake, leftBrake, rightBrake);
+		float[] expectedAngular = drone.getAngularAccelerations(wing, wing, horStab, verStab, frontBrake, leftBrake, rightBrake);
+		
+		double[] result = new double[DroneDynamics.RESULT_SIZE];
+		drone.getDynamics().computeAccelerations(state, thrust, wing, wing, horStab, verStab, frontBrake, leftBrake, rightBrake, result);
+		
+		for (int i = 0; i < 3; i++) {
+			assertEquals(expected.getEntry(i), result[i], EPSILON);
+			assertEquals(expectedAngular[i], result[i+3], EPSILON);
+		}
+	}
+
+	@Test
+	public final void testComputeAccelerations_Flight() {
+		double[] state = {10, 0.5, 100, -0.5, -50, -40, 0.02, 0.01, 0.05, -0.01, 6.2, 0.02};
+		assertSameAccelerations(state, 1200, 0.1f, 0.05f, 0, 0, 0, 0);
+	}
+
+	@Test
+	public final void testComputeAccelerations_OnGround() {
+		double[] state = {0, 1, 1.35, 0, 0, -10, 0, 0, 0, 0, 0, 0};
+		assertSameAccelerations(state, 500, 0, 0, 0, 100, 200, 300);
+	}
+
+	@Test
+	public final void testComputeAccelerations_ThrustTooHigh() {
+		double[] state = {0, 0, 100, 0, 0, -40, 0, 0, 0, 0, 0, 0};
+		Drone drone = createDrone(state);
+		assertThrows(IllegalArgumentException.class, () -> {
+			drone.getDynamics().computeAccelerations(state, maxThrust + 1, 0, 0, 0, 0, 0, 0, 0, new double[DroneDynamics.RESULT_SIZE]);
+		});
+	}
+
+	@Test
+	public final void testFleetIntegrator_SameAsSingleDrone() {
+		AutopilotOutputs outputs = new AutopilotOutputs() {
+			public float getThrust() { return 1200; }
+			public float getLeftWingInclination() { return 0.1f; }
+			public float getRightWingInclination() { return 0.1f; }
+			public float getHorStabInclination() { return 0.05f; }
+			public float getVerStabInclination() { return 0; }
+			public float getFrontBrakeForce() { return 0; }
+			public float getLeftBrakeForce() { return 0; }
+			public float getRightBrakeForce() { return 0; }
+		};
+		
+		List<Drone> fleet = new ArrayList<>();
+		List<Drone> single = new ArrayList<>();
+		AutopilotOutputs[] allOutputs = new AutopilotOutputs[40];
+		for (int i = 0; i < 40; i++) {
+			double[] state = {10*i, 0.5, 100 + i, -0.5, -50, -40, 0.02, 0.01, 0.05, -0.01, 6.2, 0.02};
+			fleet.add(createDrone(state));
+			single.add(createDrone(state));
+			allOutputs[i] = outputs;
+		}
+		
+		FleetIntegrator integrator = new FleetIntegrator(new ForkJoinPool(4), 4);
+		integrator.load(fleet);
+		for (int i = 0; i < fleet.size(); i++)
+			integrator.setOutputs(i, outputs);
+		integrator.step(0.03);
+		integrator.commit();
+		
+		for (Drone drone : single)
+			moveWithReference(drone, 0.03, outputs);
+		
+		for (int i = 0; i < fleet.size(); i++) {
+			Drone expected = single.get(i);
+			Drone actual = fleet.get(i);
+			assertArrayEquals(expected.getWorldPosition().toArray(), actual.getWorldPosition().toArray(), EPSILON);
+			assertArrayEquals(expected.getVelocity().toArray(), actual.getVelocity().toArray(), EPSILON);
+			assertEquals(expected.getHeading(), actual.getHeading(), EPSILON);
+			assertEquals(expected.getPitch(), actual.getPitch(), EPSILON);
+			assertEquals(expected.getRoll(), actual.getRoll(), EPSILON);
+			assertEquals(expected.getPitchAngularVelocity(), actual.getPitchAngularVelocity(), EPSILON);
+		}
+	}
+
+	@Test
+	public final void testFleetIntegrator_SleepAndWake() {
+		AutopilotOutputs parked = new AutopilotOutputs() {
+			public float getThrust() { return 0; }
+			public float getLeftWingInclination() { return 0; }
+			public float getRightWingInclination() { return 0; }
+			public float getHorStabInclination() { return 0; }
+			public float getVerStabInclination() { return 0; }
+			public float getFrontBrakeForce() { return 0; }
+			public float getLeftBrakeForce() { return 0; }
+			public float getRightBrakeForce() { return 0; }
+		};
+		List<Drone> fleet = new ArrayList<>();
+		fleet.add(createDrone(new double[] {0, 0, 1.41, 0, 0, 0, 0, 0, 0, 0, 0, 0}));
+		
+		FleetIntegrator integrator = new FleetIntegrator();
+		integrator.load(fleet);
+		for (int i = 0; i < 2400 && integrator.getSleepingDroneCount() == 0; i++) {
+			integrator.setOutputs(0, parked);
+			integrator.step(1.0/240);
+		}
+		assertTrue(integrator.isSleeping(0));
+		
+		integrator.commit();
+		double height = fleet.get(0).getWorldPosition().getEntry(1);
+		integrator.step(1);
+		integrator.commit();
+		assertTrue(height == fleet.get(0).getWorldPosition().getEntry(1));
+		
+		integrator.setOutputs(0, new AutopilotOutputs() {
+			public float getThrust() { return 100; }
+			public float getLeftWingInclination() { return 0; }
+			public float getRightWingInclination() { return 0; }
+			public float getHorStabInclination() { return 0; }
+			public float getVerStabInclination() { return 0; }
+			public float getFrontBrakeForce() { return 0; }
+			public float getLeftBrakeForce() { return 0; }
+			public float getRightBrakeForce() { return 0; }
+		});
+		assertFalse(integrator.isSleeping(0));
+	}
+
+	@Test
+	public final void testFleetIntegrator_ReloadKeepsOutsideChange() {
+		AutopilotOutputs outputs = new AutopilotOutputs() {
+			public float getThrust() { return 1200; }
+			public float getLeftWingInclination() { return 0.1f; }
+			public float getRightWingInclination() { return 0.1f; }
+			public float getHorStabInclination() { return 0.05f; }
+			public float getVerStabInclination() { return 0; }
+			public float getFrontBrakeForce() { return 0; }
+			public float getLeftBrakeForce() { return 0; }
+			public float getRightBrakeForce() { return 0; }
+		};
+		List<Drone> fleet = new ArrayList<>();
+		fleet.add(createDrone(new double[] {0, 0, 100, 0, 0, -40, 0, 0, 0, 0, 0, 0}));
+		Drone drone = fleet.get(0);
+		
+		FleetIntegrator integrator = new FleetIntegrator();
+		integrator.load(fleet);
+		integrator.setOutputs(0, outputs);
+		
+		//The drone is moved outside the integrator, and the integrator is told so
+		drone.setRelativePosition(new ArrayRealVector(new double[] {500, 200, 0}, false));
+		integrator.reload(drone);
+		assertEquals(500, integrator.getState(0, 0), EPSILON);
+		integrator.step(0.01);
+		integrator.commit();
+		assertEquals(200, drone.getWorldY(), 1);
+		assertEquals(-0.4, drone.getWorldZ(), 0.01);
+	}
+
+	@Test
+	public final void testMoveDrones_IntegratedTimeInWholeSteps() {
+		AutopilotOutputs parked = new AutopilotOutputs() {
+			public float getThrust() { return 0; }
+			public float getLeftWingInclination() { return 0; }
+			public float getRightWingInclination() { return 0; }
+			public float getHorStabInclination() { return 0; }
+			public float getVerStabInclination() { return 0; }
+			public float getFrontBrakeForce() { return 0; }
+			public float getLeftBrakeForce() { return 0; }
+			public float getRightBrakeForce() { return 0; }
+		};
+		List<Drone> fleet = new ArrayList<>();
+		fleet.add(createDrone(new double[] {0, 0, 100, 0, 0, -40, 0, 0, 0, 0, 0, 0}));
+		TestbedSimulation simulation = new TestbedSimulation(new WorldObject());
+		
+		//0.03 seconds is 7.2 physics steps, the rest is kept for the next update
+		simulation.moveDrones(fleet, 0.03f, new AutopilotOutputs[] {parked});
+		assertEquals(7 / TestbedSimulation.DEFAULT_PHYSICS_RATE, simulation.getIntegratedTime(), EPSILON);
+		simulation.moveDrones(fleet, 0.03f, new AutopilotOutputs[] {parked});
+		assertEquals(14 / TestbedSimulation.DEFAULT_PHYSICS_RATE, simulation.getIntegratedTime(), EPSILON);
+		assertEquals(0.06 - simulation.getIntegratedTime(), simulation.getSecondsBehind(), 0.00001);
+	}
+}
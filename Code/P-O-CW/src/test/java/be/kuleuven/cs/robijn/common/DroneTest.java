@@ -1,5 +1,6 @@
 package be.kuleuven.cs.robijn.common;
 
+import org.apache.commons.math3.geometry.euclidean.threed.Rotation;
 import org.apache.commons.math3.linear.*;
 
 import be.kuleuven.cs.robijn.autopilot.AutopilotModule;
@@ -322,4 +323,16 @@ public class DroneTest {
 		assertTrue(VectorMath.fuzzyEquals(new ArrayRealVector(new double[] {1.4204288832, 3.269574698, 0.5406136163}, false),
 				drone.transformationToDroneCoordinates(positionWorldCoordinates)));
 	}
+
+	@Test
+	public final void testGetRelativeRotation_SameAsRotationMatrix() {
+		Drone drone = new Drone(config, velocity);
+		drone.setRoll((float) Math.PI/3);
+		drone.setHeading((float) Math.PI/4);
+		drone.setPitch((float) Math.PI/5);
+		double[][] expected = new Rotation(drone.getRotationMatrix().getData(), 0.0001).getMatrix();
+		double[][] actual = drone.getRelativeRotation().getMatrix();
+		for (int i = 0; i < 3; i++)
+			assertArrayEquals(expected[i], actual[i], 0.000001);
+	}
 }
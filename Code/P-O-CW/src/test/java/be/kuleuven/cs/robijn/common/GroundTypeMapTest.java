@@ -0,0 +1,102 @@
+package be.kuleuven.cs.robijn.common;
+
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.math3.geometry.euclidean.twod.Vector2D;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.RealVector;
+import org.junit.jupiter.api.Test;
+
+import be.kuleuven.cs.robijn.common.airports.Airport;
+import be.kuleuven.cs.robijn.common.airports.GroundTypeMap;
+import be.kuleuven.cs.robijn.common.airports.GroundTypeMap.GroundType;
+import be.kuleuven.cs.robijn.common.airports.Runway;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A class with tests for the class GroundTypeMap.
+ */
+public class GroundTypeMapTest {
+
+	private static Airport createAirport(int id, double x, double z, double angle) {
+		Airport airport = new Airport(id, 280, 15, new Vector2D(Math.cos(angle), Math.sin(angle)));
+		airport.setRelativePosition(new ArrayRealVector(new double[] {x, 0, z}));
+		return airport;
+	}
+
+	/**
+	 * The ground type at the given point, by testing every airport and runway.
+	 */
+	private static GroundType bruteForce(List<Airport> airports, double x, double z) {
+		RealVector point = new ArrayRealVector(new double[] {x, 0, z});
+		GroundType result = GroundType.GRASS;
+		for (Airport airport : airports) {
+			if (! airport.isOnAirport(point))
+				continue;
+			result = GroundType.TARMAC;
+			for (Runway runway : airport.getRunways()) {
+				double dx = x - runway.getWorldX(), dz = z - runway.getWorldZ();
+				double cos = Math.cos(airport.getAngle()), sin = Math.sin(airport.getAngle());
+				if (Math.abs(dx*cos - dz*sin) < runway.getSize().getX()/2 && Math.abs(dx*sin + dz*cos) < runway.getSize().getY()/2)
+					return GroundType.RUNWAY;
+			}
+		}
+		return result;
+	}
+
+	private static void assertSameAsBruteForce(GroundTypeMap map, List<Airport> airports, Random random) {
+		double resolution = map.getResolution();
+		for (int k = 0; k < 20000; k++) {
+			Airport near = airports.get(random.nextInt(airports.size()));
+			//The center of a cell near an airport
+			double x = (Math.floor((near.getWorldX() + random.nextGaussian()*200) / resolution) + 0.5) * resolution;
+			double z = (Math.floor((near.getWorldZ() + random.nextGaussian()*200) / resolution) + 0.5) * resolution;
+			assertEquals(bruteForce(airports, x, z), map.getGroundType(x, z));
+		}
+	}
+
+	@Test
+	public void testGetGroundType_SameAsAirportsAtCellCenters() {
+		Random random = new Random(17);
+		WorldObject world = new WorldObject();
+		for (int i = 0; i < 50; i++)
+			world.addChild(createAirport(i, random.nextGaussian()*3000, random.nextGaussian()*3000, random.nextDouble()*Math.PI*2));
+		List<Airport> airports = world.getChildrenOfType(Airport.class);
+
+		for (double resolution : new double[] {0.5, 1, 3}) {
+			GroundTypeMap map = new GroundTypeMap(resolution);
+			map.update(airports);
+			assertSameAsBruteForce(map, airports, random);
+		}
+		assertTrue(new GroundTypeMap().isGrass(0, 0));
+	}
+
+	@Test
+	public void testUpdate_OnlyChangedTiles() {
+		Random random = new Random(23);
+		WorldObject world = new WorldObject();
+		for (int i = 0; i < 20; i++)
+			world.addChild(createAirport(i, i*2000, 0, random.nextDouble()*Math.PI*2));
+		List<Airport> airports = world.getChildrenOfType(Airport.class);
+		GroundTypeMap map = new GroundTypeMap();
+		map.update(airports);
+		int tiles = map.getTileCount();
+
+		map.update(airports);
+		assertEquals(0, map.getLastRasterizedTileCount());
+		assertEquals(tiles, map.getTileCount());
+
+		//Move one airport, and remove another one
+		airports.get(3).setRelativePosition(new ArrayRealVector(new double[] {6000, 0, 3000}));
+		world.removeChild(airports.get(10));
+		airports = world.getChildrenOfType(Airport.class);
+		map.update(airports);
+		assertTrue(map.getLastRasterizedTileCount() > 0);
+		assertTrue(map.getLastRasterizedTileCount() < tiles / 4);
+		assertEquals(GroundType.GRASS, map.getGroundType(20000, 0));
+		assertEquals(GroundType.TARMAC, map.getGroundType(6000.5, 3000.5));
+		assertSameAsBruteForce(map, airports, random);
+	}
+}
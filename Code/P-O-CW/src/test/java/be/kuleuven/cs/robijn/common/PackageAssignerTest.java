@@ -0,0 +1,124 @@
+package be.kuleuven.cs.robijn.common;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.apache.commons.math3.geometry.euclidean.twod.Vector2D;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.junit.jupiter.api.Test;
+
+import be.kuleuven.cs.robijn.common.airports.Airport;
+import be.kuleuven.cs.robijn.common.airports.AirportPackage;
+import be.kuleuven.cs.robijn.common.airports.PackageAssigner;
+import be.kuleuven.cs.robijn.worldObjects.Drone;
+import interfaces.AutopilotConfig;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A class with tests for the class PackageAssigner.
+ */
+public class PackageAssignerTest {
+
+	private static AutopilotConfig config = new AutopilotConfig() {
+		public String getDroneID() { return "drone"; }
+		public float getGravity() { return 9.81f; }
+		public float getWingX() { return 4.2f; }
+		public float getTailSize() { return 4.2f; }
+		public float getWheelY() { return -1.22f; }
+		public float getFrontWheelZ() { return -2f; }
+		public float getRearWheelZ() { return 1f; }
+		public float getRearWheelX() { return 1.4f; }
+		public float getTyreSlope() { return 40875f; }
+		public float getDampSlope() { return 470f; }
+		public float getTyreRadius() { return 0.22f; }
+		public float getRMax() { return 4316f; }
+		public float getFcMax() { return 0.7f; }
+		public float getEngineMass() { return 180; }
+		public float getWingMass() { return 100; }
+		public float getTailMass() { return 100; }
+		public float getMaxThrust() { return 2000; }
+		public float getMaxAOA() { return (float) (Math.PI/12); }
+		public float getWingLiftSlope() { return 10; }
+		public float getHorStabLiftSlope() { return 5; }
+		public float getVerStabLiftSlope() { return 5; }
+		public float getHorizontalAngleOfView() { return (float) (Math.PI/3); }
+		public float getVerticalAngleOfView() { return (float) (Math.PI/3); }
+		public int getNbColumns() { return 120; }
+		public int getNbRows() { return 120; }
+	};
+
+	private final WorldObject world = new WorldObject();
+	private final Airport from = addAirport(0, 0);
+	private final Airport to = addAirport(1, 20000);
+	private double now = 0;
+	private final PackageAssigner assigner = new PackageAssigner(() -> now);
+
+	private Airport addAirport(int id, double x) {
+		Airport airport = new Airport(id, 280, 15, new Vector2D(0, -1));
+		airport.setRelativePosition(new ArrayRealVector(new double[] {x, 0, 0}));
+		world.addChild(airport);
+		return airport;
+	}
+
+	private Drone addDrone(double x) {
+		Drone drone = new Drone(config, new ArrayRealVector(3));
+		drone.setRelativePosition(new ArrayRealVector(new double[] {x, 1, 0}));
+		world.addChild(drone);
+		return drone;
+	}
+
+	private AirportPackage addPackage(int gate) {
+		return new AirportPackage(from.getGates()[gate], to.getGates()[gate], null);
+	}
+
+	@Test
+	public void testAssign_ReusedWhenNothingChanged() {
+		Drone first = addDrone(0);
+		AirportPackage p = addPackage(0);
+
+		Map<AirportPackage, Drone> assignment = assigner.assign(Arrays.asList(p), Arrays.asList(first), 0);
+		assertEquals(first, assignment.get(p));
+		assertSame(assignment, assigner.assign(Arrays.asList(p), Arrays.asList(first), 1));
+		assertEquals(1, assigner.getSolveCount());
+
+		//Another drone or another package is solved again
+		Drone second = addDrone(10);
+		assertNotSame(assignment, assigner.assign(Arrays.asList(p), Arrays.asList(first, second), 2));
+		assigner.assign(Arrays.asList(p, addPackage(1)), Arrays.asList(first, second), 3);
+		assertEquals(3, assigner.getSolveCount());
+	}
+
+	@Test
+	public void testAssign_PickupLatency() {
+		Drone drone = addDrone(0);
+		AirportPackage first = addPackage(0);
+		AirportPackage second = addPackage(1);
+		assigner.assign(Arrays.asList(first), Arrays.asList(drone), 2);
+		assertEquals(0, assigner.getAveragePickupLatency(), 0.0001);
+
+		//The latency starts when the package is first seen, not at a later assignment
+		assigner.assign(Arrays.asList(first, second), Arrays.asList(drone), 4);
+		assigner.assign(Arrays.asList(first, second), Arrays.asList(drone), 6);
+		now = 5;
+		first.markAsInTransit(drone);
+		assertEquals(1, assigner.getPickupCount());
+		assertEquals(3, assigner.getAveragePickupLatency(), 0.0001);
+
+		now = 10;
+		second.markAsInTransit(drone);
+		assertEquals(2, assigner.getPickupCount());
+		assertEquals(4.5, assigner.getAveragePickupLatency(), 0.0001);
+	}
+
+	@Test
+	public void testAssign_DeliveredWithoutPickupNotCounted() {
+		AirportPackage p = addPackage(0);
+		assigner.assign(Arrays.asList(p), Arrays.asList(addDrone(0)), 0);
+
+		now = 5;
+		p.markAsDelivered();
+		assertEquals(0, assigner.getPickupCount());
+		assertEquals(0, assigner.getAveragePickupLatency(), 0.0001);
+	}
+}
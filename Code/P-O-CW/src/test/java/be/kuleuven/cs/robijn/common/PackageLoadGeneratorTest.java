@@ -0,0 +1,91 @@
+package be.kuleuven.cs.robijn.common;
+
+import org.junit.jupiter.api.Test;
+
+import be.kuleuven.cs.robijn.common.PackageLoadGenerator.ArrivalProcess;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A class with tests for the arrival processes of the class PackageLoadGenerator.
+ */
+public class PackageLoadGeneratorTest {
+
+	private static final double HOURS = 1000;
+
+	/**
+	 * Returns the amount of arrivals in every simulated hour.
+	 */
+	private static int[] countPerHour(ArrivalProcess process, long seed) {
+		Random random = new Random(seed);
+		int[] counts = new int[(int) HOURS];
+		double time = process.next(0, random);
+		while(time < HOURS * PackageLoadGenerator.SECONDS_PER_HOUR) {
+			counts[(int) (time / PackageLoadGenerator.SECONDS_PER_HOUR)]++;
+			time = process.next(time, random);
+		}
+		return counts;
+	}
+
+	private static double mean(int[] counts) {
+		double sum = 0;
+		for(int count : counts)
+			sum += count;
+		return sum / counts.length;
+	}
+
+	private static double variance(int[] counts) {
+		double mean = mean(counts);
+		double sum = 0;
+		for(int count : counts)
+			sum += (count - mean) * (count - mean);
+		return sum / counts.length;
+	}
+
+	@Test
+	public void testPoisson_MeanRate() {
+		int[] counts = countPerHour(ArrivalProcess.poisson(20), 1);
+		assertEquals(20, mean(counts), 0.5);
+		//The variance of a Poisson count equals its mean
+		assertEquals(20, variance(counts), 3);
+	}
+
+	@Test
+	public void testBursty_MeanRateAndOverdispersed() {
+		int[] counts = countPerHour(ArrivalProcess.bursty(20, 4, 1800, 7200), 1);
+		assertEquals(20, mean(counts), 1.5);
+		assertTrue(variance(counts) > 2 * mean(counts));
+	}
+
+	@Test
+	public void testDiurnal_PeakAtMidday() {
+		int[] counts = countPerHour(ArrivalProcess.diurnal(20, 0.8, 24 * PackageLoadGenerator.SECONDS_PER_HOUR), 1);
+		assertEquals(20, mean(counts), 0.5);
+		int night = 0, midday = 0;
+		for(int hour = 0; hour < counts.length; hour++) {
+			if(hour % 24 == 0)
+				night += counts[hour];
+			else if(hour % 24 == 12)
+				midday += counts[hour];
+		}
+		assertTrue(midday > 3 * night);
+	}
+
+	@Test
+	public void testNext_SameSeedSameArrivals() {
+		assertArrayEquals(countPerHour(ArrivalProcess.bursty(20, 4, 1800, 7200), 7),
+				countPerHour(ArrivalProcess.bursty(20, 4, 1800, 7200), 7));
+		assertArrayEquals(countPerHour(ArrivalProcess.diurnal(20, 0.5, 3600), 7),
+				countPerHour(ArrivalProcess.diurnal(20, 0.5, 3600), 7));
+	}
+
+	@Test
+	public void testFactories_InvalidParameters() {
+		assertThrows(IllegalArgumentException.class, () -> ArrivalProcess.poisson(0));
+		assertThrows(IllegalArgumentException.class, () -> ArrivalProcess.bursty(20, 0.5, 10, 10));
+		assertThrows(IllegalArgumentException.class, () -> ArrivalProcess.bursty(20, 4, 10, 10));
+		assertThrows(IllegalArgumentException.class, () -> ArrivalProcess.diurnal(20, 2, 3600));
+	}
+}
@@ -0,0 +1,164 @@
+package be.kuleuven.cs.robijn.common;
+
+import org.apache.commons.math3.geometry.euclidean.twod.Vector2D;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.junit.jupiter.api.Test;
+
+import be.kuleuven.cs.robijn.common.airports.Airport;
+import be.kuleuven.cs.robijn.common.airports.Gate;
+import be.kuleuven.cs.robijn.common.airports.ReservationScheduler;
+import be.kuleuven.cs.robijn.common.airports.Runway;
+import be.kuleuven.cs.robijn.worldObjects.Drone;
+import interfaces.AutopilotConfig;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A class with tests for the class ReservationScheduler.
+ */
+public class ReservationSchedulerTest {
+
+	private static final float SPEED = 50;
+
+	private static AutopilotConfig config = new AutopilotConfig() {
+		public String getDroneID() { return "drone"; }
+		public float getGravity() { return 9.81f; }
+		public float getWingX() { return 4.2f; }
+		public float getTailSize() { return 4.2f; }
+		public float getWheelY() { return -1.22f; }
+		public float getFrontWheelZ() { return -2f; }
+		public float getRearWheelZ() { return 1f; }
+		public float getRearWheelX() { return 1.4f; }
+		public float getTyreSlope() { return 40875f; }
+		public float getDampSlope() { return 470f; }
+		public float getTyreRadius() { return 0.22f; }
+		public float getRMax() { return 4316f; }
+		public float getFcMax() { return 0.7f; }
+		public float getEngineMass() { return 180; }
+		public float getWingMass() { return 100; }
+		public float getTailMass() { return 100; }
+		public float getMaxThrust() { return 2000; }
+		public float getMaxAOA() { return (float) (Math.PI/12); }
+		public float getWingLiftSlope() { return 10; }
+		public float getHorStabLiftSlope() { return 5; }
+		public float getVerStabLiftSlope() { return 5; }
+		public float getHorizontalAngleOfView() { return (float) (Math.PI/3); }
+		public float getVerticalAngleOfView() { return (float) (Math.PI/3); }
+		public int getNbColumns() { return 120; }
+		public int getNbRows() { return 120; }
+	};
+
+	private final WorldObject world = new WorldObject();
+	private final Airport from = addAirport(0, 0);
+	private final Airport to = addAirport(1, 20000);
+	private final Drone first = addDrone(from.getGates()[0]);
+	private final Drone second = addDrone(from.getGates()[1]);
+	private final Drone parked = addDrone(to.getGates()[1]);
+	private final ReservationScheduler scheduler = new ReservationScheduler(world, SPEED);
+
+	private Airport addAirport(int id, double x) {
+		Airport airport = new Airport(id, 280, 15, new Vector2D(0, -1));
+		airport.setRelativePosition(new ArrayRealVector(new double[] {x, 0, 0}));
+		world.addChild(airport);
+		return airport;
+	}
+
+	private Drone addDrone(Gate gate) {
+		Drone drone = new Drone(config, new ArrayRealVector(3));
+		world.addChild(drone);
+		gate.setCurrentDrone(drone);
+		return drone;
+	}
+
+	private void book(Drone drone, Runway takeoffRunway, Gate fromGate, Gate toGate, double distance, float time) {
+		assertTrue(scheduler.canBook(drone, takeoffRunway, to.getRunways()[0], toGate, distance, time));
+		scheduler.book(drone, takeoffRunway, to.getRunways()[0], fromGate, toGate, distance, time);
+	}
+
+	@Test
+	public void testCanBook_LandingWindowsMustNotOverlap() {
+		book(first, from.getRunways()[0], from.getGates()[0], to.getGates()[0], 20000, 0);
+		//Same landing time on the same runway
+		assertFalse(scheduler.canBook(second, from.getRunways()[1], to.getRunways()[0], to.getGates()[0], 20000, 0));
+		//The gate is reserved, but the runway is free much later
+		assertFalse(scheduler.canBook(second, from.getRunways()[1], to.getRunways()[0], to.getGates()[0], 80000, 0));
+		assertEquals(2, scheduler.getRefusalCount());
+		//The takeoff runway is still reserved
+		to.getGates()[1].removeCurrentDrone();
+		assertFalse(scheduler.canBook(second, from.getRunways()[0], to.getRunways()[0], to.getGates()[1], 80000, 0));
+		book(second, from.getRunways()[1], from.getGates()[1], to.getGates()[1], 80000, 0);
+
+		assertEquals(2, scheduler.getInFlightCount());
+		assertEquals(2, scheduler.getPeakInFlightCount());
+		assertEquals(2, scheduler.getReservations(to.getRunways()[0]).size());
+	}
+
+	@Test
+	public void testCanBook_GateFreeAfterDeparture() {
+		Gate occupied = to.getGates()[1];
+		//The parked drone does not leave
+		assertFalse(scheduler.canBook(first, from.getRunways()[0], to.getRunways()[0], occupied, 20000, 0));
+
+		//The parked drone departs to the gate of the first drone before the first drone arrives
+		from.getGates()[0].removeCurrentDrone();
+		scheduler.bookReposition(parked, to.getRunways()[1], from.getRunways()[0], occupied, from.getGates()[0], 20000, 0);
+		assertEquals(1, scheduler.getRepositionCount());
+		assertTrue(scheduler.canBook(first, from.getRunways()[1], to.getRunways()[0], occupied, 20000, 0));
+		//But not if the first drone would arrive before it departs
+		assertFalse(scheduler.canBook(first, from.getRunways()[1], to.getRunways()[0], occupied, 100, 0));
+
+		occupied.removeCurrentDrone();
+		assertTrue(scheduler.canBook(first, from.getRunways()[1], to.getRunways()[0], occupied, 100, 0));
+	}
+
+	@Test
+	public void testBook_PreviousStayReleasedOnOtherGate() {
+		book(first, from.getRunways()[0], from.getGates()[0], to.getGates()[0], 20000, 0);
+		first.setCanBeAssigned(false);
+		first.setCanBeAssigned(true);
+
+		//The first drone stays on gate 0, but picks up a package at gate 1 of the same airport
+		scheduler.book(first, to.getRunways()[1], from.getRunways()[0], to.getGates()[1], from.getGates()[0], 20000, 0);
+		assertTrue(scheduler.getReservations(to.getGates()[0]).isEmpty());
+		assertTrue(scheduler.canBook(second, from.getRunways()[1], to.getRunways()[0], to.getGates()[0], 20000, 0));
+	}
+
+	@Test
+	public void testTakeoff_EndsWhenRunwayFreed() {
+		Runway runway = from.getRunways()[0];
+		book(first, runway, from.getGates()[0], to.getGates()[0], 20000, 0);
+		runway.setCurrentDrone(first);
+		to.getGates()[1].removeCurrentDrone();
+		assertFalse(scheduler.canBook(second, runway, to.getRunways()[0], to.getGates()[1], 80000, 10));
+
+		//The first drone takes off well within its takeoff window, the second drone departs without any further event
+		runway.removeCurrentDrone();
+		assertTrue(scheduler.canBook(second, runway, to.getRunways()[0], to.getGates()[1], 80000, 10));
+		assertTrue(scheduler.getReservations(runway).isEmpty());
+	}
+
+	@Test
+	public void testIsOnTheWayTo_UntilDroneAvailable() {
+		assertFalse(scheduler.isOnTheWayTo(to.getGates()[0]));
+		book(first, from.getRunways()[0], from.getGates()[0], to.getGates()[0], 20000, 0);
+		assertTrue(scheduler.isOnTheWayTo(to.getGates()[0]));
+		assertFalse(scheduler.isOnTheWayTo(from.getGates()[0]));
+
+		first.setCanBeAssigned(false);
+		first.setCanBeAssigned(true);
+		assertFalse(scheduler.isOnTheWayTo(to.getGates()[0]));
+	}
+
+	@Test
+	public void testLanding_ReleasedWhenDroneAvailable() {
+		book(first, from.getRunways()[0], from.getGates()[0], to.getGates()[0], 20000, 0);
+		to.getGates()[1].removeCurrentDrone();
+		assertFalse(scheduler.canBook(second, from.getRunways()[1], to.getRunways()[0], to.getGates()[1], 20000, 0));
+
+		//The first drone landed and can be assigned again
+		first.setCanBeAssigned(false);
+		first.setCanBeAssigned(true);
+		assertEquals(0, scheduler.getInFlightCount());
+		assertTrue(scheduler.canBook(second, from.getRunways()[1], to.getRunways()[0], to.getGates()[1], 20000, 0));
+	}
+}
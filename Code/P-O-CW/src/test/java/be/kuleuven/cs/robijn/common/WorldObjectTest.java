@@ -0,0 +1,199 @@
+package be.kuleuven.cs.robijn.common;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.commons.math3.geometry.euclidean.threed.Rotation;
+import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
+import org.apache.commons.math3.linear.*;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A class with tests for the object hierarchy of the class WorldObject.
+ */
+public class WorldObjectTest {
+
+	private static final double EPSILON = 0.000001;
+
+	private static class Child extends WorldObject {}
+
+	private static class SpecialChild extends Child {}
+
+	@Test
+	public void testGetChildrenOfType_SnapshotNotChanged() {
+		WorldObject parent = new WorldObject();
+		Child first = new Child();
+		WorldObject other = new WorldObject();
+		parent.addChildren(first, other);
+
+		List<Child> children = parent.getChildrenOfType(Child.class);
+		assertEquals(1, children.size());
+		assertSame(first, children.get(0));
+		assertSame(children, parent.getChildrenOfType(Child.class));
+
+		SpecialChild second = new SpecialChild();
+		parent.addChild(second);
+		assertEquals(1, children.size());
+		List<Child> updated = parent.getChildrenOfType(Child.class);
+		assertEquals(2, updated.size());
+		assertSame(second, updated.get(1));
+		assertEquals(1, parent.getChildrenOfType(SpecialChild.class).size());
+		assertEquals(3, parent.getChildrenOfType(WorldObject.class).size());
+
+		parent.removeChild(first);
+		assertEquals(2, updated.size());
+		assertEquals(1, parent.getChildrenOfType(Child.class).size());
+		assertSame(second, parent.getFirstChildOfType(Child.class));
+	}
+
+	@Test
+	public void testGetChildrenOfType_ReadOnly() {
+		WorldObject parent = new WorldObject();
+		parent.addChild(new Child());
+
+		assertThrows(UnsupportedOperationException.class, () -> parent.getChildrenOfType(Child.class).clear());
+	}
+
+	@Test
+	public void testRemoveAllChildrenOfType() {
+		WorldObject parent = new WorldObject();
+		parent.addChildren(new Child(), new SpecialChild(), new WorldObject());
+
+		parent.removeAllChildrenOfType(Child.class);
+
+		assertTrue(parent.getChildrenOfType(Child.class).isEmpty());
+		assertEquals(1, parent.getChildren().size());
+		assertNull(parent.getFirstChildOfType(SpecialChild.class));
+	}
+
+	@Test
+	public void testGetDescendants_SameOrderAsIterator() {
+		WorldObject root = new WorldObject();
+		Child a = new Child();
+		Child b = new Child();
+		SpecialChild a1 = new SpecialChild();
+		WorldObject a2 = new WorldObject();
+		root.addChildren(a, b);
+		a.addChildren(a1, a2);
+
+		List<WorldObject> iterated = new ArrayList<>();
+		Iterator<WorldObject> iterator = root.descendantsIterator();
+		while (iterator.hasNext())
+			iterated.add(iterator.next());
+
+		assertEquals(iterated, root.getDescendants());
+		assertEquals(iterated, root.getDescendantsStream().collect(Collectors.toList()));
+		assertSame(root, iterated.get(0));
+		assertSame(a, iterated.get(1));
+		assertSame(a1, iterated.get(2));
+		assertSame(a2, iterated.get(3));
+		assertSame(b, iterated.get(4));
+	}
+
+	@Test
+	public void testGetDescendantsOfType_InvalidatedOnChange() {
+		WorldObject root = new WorldObject();
+		Child a = new Child();
+		root.addChild(a);
+
+		List<Child> before = root.getDescendantsOfType(Child.class);
+		assertEquals(1, before.size());
+		assertSame(before, root.getDescendantsOfType(Child.class));
+
+		SpecialChild deep = new SpecialChild();
+		a.addChild(deep);
+		List<Child> after = root.getDescendantsOfType(Child.class);
+		assertEquals(2, after.size());
+		assertSame(deep, after.get(1));
+		assertEquals(1, root.getDescendantsOfType(SpecialChild.class).size());
+
+		a.removeChild(deep);
+		assertEquals(1, root.getDescendantsOfType(Child.class).size());
+		assertTrue(root.getDescendantsOfType(SpecialChild.class).isEmpty());
+	}
+
+	/**
+	 * Translation * rotation * scale, calculated with commons-math matrices.
+	 */
+	private static RealMatrix objectToParent(WorldObject obj) {
+		RealMatrix transform = MatrixUtils.createRealIdentityMatrix(4);
+		transform.setSubMatrix(obj.getRelativeRotation().getMatrix(), 0, 0);
+		for (int i = 0; i < 3; i++) {
+			for (int j = 0; j < 3; j++)
+				transform.multiplyEntry(i, j, obj.getScale().getEntry(j));
+			transform.setEntry(i, 3, obj.getRelativePosition().getEntry(i));
+		}
+		return transform;
+	}
+
+	private static void assertMatrixEquals(RealMatrix expected, RealMatrix actual) {
+		for (int i = 0; i < 4; i++)
+			assertArrayEquals(expected.getRow(i), actual.getRow(i), EPSILON);
+	}
+
+	@Test
+	public void testGetObjectToWorldTransform_SameAsMatrixProduct() {
+		WorldObject parent = new WorldObject();
+		parent.setRelativePosition(new ArrayRealVector(new double[] {3, -2, 7}));
+		parent.setRelativeRotation(new Rotation(new Vector3D(1, 2, 3), 0.7));
+		parent.setScale(new ArrayRealVector(new double[] {2, 2, 2}));
+		WorldObject child = new WorldObject();
+		child.setRelativePosition(new ArrayRealVector(new double[] {-1, 4, 0.5}));
+		child.setRelativeRotation(new Rotation(new Vector3D(0, 1, 0), -1.2));
+		child.setScale(new ArrayRealVector(new double[] {1, 3, 0.5}));
+		parent.addChild(child);
+
+		assertMatrixEquals(objectToParent(child), child.getObjectToParentTransform());
+		RealMatrix expected = objectToParent(parent).multiply(objectToParent(child));
+		assertMatrixEquals(expected, child.getObjectToWorldTransform());
+		assertEquals(expected.getEntry(0, 3), child.getWorldX(), EPSILON);
+		assertEquals(expected.getEntry(1, 3), child.getWorldY(), EPSILON);
+		assertEquals(expected.getEntry(2, 3), child.getWorldZ(), EPSILON);
+	}
+
+	@Test
+	public void testGetWorldPosition_FollowsParent() {
+		WorldObject parent = new WorldObject();
+		WorldObject child = new WorldObject();
+		child.setRelativePosition(new ArrayRealVector(new double[] {1, 0, 0}));
+		parent.addChild(child);
+		assertEquals(1, child.getWorldX(), EPSILON);
+
+		parent.setRelativePosition(new ArrayRealVector(new double[] {0, 5, 0}));
+		parent.setRelativeRotation(new Rotation(new Vector3D(0, 1, 0), Math.PI/2));
+		assertArrayEquals(objectToParent(parent).operate(new double[] {1, 0, 0, 1}),
+				new double[] {child.getWorldX(), child.getWorldY(), child.getWorldZ(), 1}, EPSILON);
+
+		parent.removeChild(child);
+		assertArrayEquals(new double[] {1, 0, 0}, child.getWorldPosition().toArray(), EPSILON);
+	}
+
+	@Test
+	public void testGetWorldPosition_NeverPartiallyWritten() throws InterruptedException {
+		WorldObject parent = new WorldObject();
+		WorldObject child = new WorldObject();
+		child.setRelativePosition(new ArrayRealVector(new double[] {1, 0, 0}));
+		parent.addChild(child);
+
+		//The writer rotates the parent and recalculates the transforms, like the GUI moving a camera
+		Thread writer = new Thread(() -> {
+			for (int i = 0; i < 100000; i++) {
+				parent.setRelativeRotation(new Rotation(new Vector3D(0, 1, 0), i * 0.001));
+				child.getWorldPosition();
+			}
+		});
+		writer.start();
+		while (writer.isAlive()) {
+			//A partially written transform would not keep the child on the unit circle
+			double[] position = child.getWorldPosition().toArray();
+			assertEquals(1, position[0]*position[0] + position[2]*position[2], EPSILON);
+			assertEquals(0, position[1], EPSILON);
+		}
+		writer.join();
+		assertEquals(Math.cos(99999 * 0.001), child.getWorldX(), EPSILON);
+	}
+}
@@ -0,0 +1,63 @@
+package be.kuleuven.cs.robijn.common;
+
+import org.apache.commons.math3.geometry.euclidean.threed.Rotation;
+import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A class with tests for the class WorldSnapshot.
+ */
+public class WorldSnapshotTest {
+
+	private static final double EPSILON = 0.000001;
+
+	private static class Child extends WorldObject {}
+
+	@Test
+	public void testCapture_NotChangedByWorld() {
+		WorldObject world = new WorldObject();
+		Child child = new Child();
+		child.setRelativePosition(new ArrayRealVector(new double[] {1, 2, 3}));
+		world.addChild(child);
+
+		WorldSnapshot snapshot = WorldSnapshot.capture(world, 1, 0.5f);
+		child.setRelativePosition(new ArrayRealVector(new double[] {4, 5, 6}));
+		world.addChild(new Child());
+
+		assertEquals(1, snapshot.getVersion());
+		assertEquals(2, snapshot.getEntries().size());
+		WorldSnapshot.Entry entry = snapshot.getEntry(child);
+		assertArrayEquals(new double[] {1, 2, 3}, entry.getWorldPosition().toArray(), EPSILON);
+		assertEquals(3, entry.getObjectToWorldTransform().getEntry(2, 3), EPSILON);
+		assertEquals(1, snapshot.getEntriesOfType(Child.class).size());
+
+		WorldSnapshot next = WorldSnapshot.capture(world, 2, 1f);
+		assertEquals(4, next.getEntry(child).getWorldX(), EPSILON);
+		assertEquals(2, next.getEntriesOfType(Child.class).size());
+	}
+
+	@Test
+	public void testResolveEntry_ChildAddedAfterCapture() {
+		WorldObject world = new WorldObject();
+		Child drone = new Child();
+		drone.setRelativePosition(new ArrayRealVector(new double[] {10, 0, 0}));
+		drone.setRelativeRotation(new Rotation(new Vector3D(0, 1, 0), Math.PI/2));
+		world.addChild(drone);
+		WorldSnapshot snapshot = WorldSnapshot.capture(world, 1, 0);
+
+		//A camera that is attached to the drone after the snapshot was taken, and a drone that moved on
+		WorldObject camera = new WorldObject();
+		camera.setRelativePosition(new ArrayRealVector(new double[] {0, 0, -1}));
+		drone.addChild(camera);
+		drone.setRelativePosition(new ArrayRealVector(new double[] {20, 0, 0}));
+
+		assertNull(snapshot.getEntry(camera));
+		WorldSnapshot.Entry entry = snapshot.resolveEntry(camera);
+		assertArrayEquals(new double[] {9, 0, 0}, entry.getWorldPosition().toArray(), EPSILON);
+		assertEquals(Math.PI/2, entry.getWorldRotation().getAngle(), EPSILON);
+		assertSame(snapshot.getEntry(drone), snapshot.resolveEntry(drone));
+	}
+}
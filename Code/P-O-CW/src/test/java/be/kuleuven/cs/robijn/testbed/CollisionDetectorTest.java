@@ -0,0 +1,139 @@
+package be.kuleuven.cs.robijn.testbed;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A class with tests for the class CollisionDetector.
+ */
+public class CollisionDetectorTest {
+
+	private static Set<Long> toSet(List<int[]> pairs, int amount) {
+		Set<Long> result = new HashSet<>();
+		for (int[] pair : pairs) {
+			assertTrue(pair[0] < pair[1]);
+			assertTrue(result.add((long) pair[0] * amount + pair[1]));
+		}
+		return result;
+	}
+
+	private static Set<Long> bruteForce(double[] positions, int amount, double distance) {
+		Set<Long> result = new HashSet<>();
+		for (int i = 0; i < amount; i++) {
+			for (int j = i + 1; j < amount; j++) {
+				double dx = positions[3*i] - positions[3*j];
+				double dy = positions[3*i + 1] - positions[3*j + 1];
+				double dz = positions[3*i + 2] - positions[3*j + 2];
+				if (dx*dx + dy*dy + dz*dz < distance*distance)
+					result.add((long) i * amount + j);
+			}
+		}
+		return result;
+	}
+
+	@Test
+	public void testFindCollidingPairs_SameAsBruteForce() {
+		Random random = new Random(42);
+		CollisionDetector detector = new CollisionDetector();
+		for (int run = 0; run < 20; run++) {
+			int amount = 50 + random.nextInt(200);
+			double[] positions = new double[3*amount];
+			//A few clusters, so that there are colliding pairs, with negative coordinates as well
+			for (int i = 0; i < amount; i++) {
+				int cluster = random.nextInt(4);
+				for (int k = 0; k < 3; k++)
+					positions[3*i + k] = 100*cluster - 150 + random.nextGaussian()*20;
+			}
+			List<int[]> pairs = detector.findCollidingPairs(positions, amount);
+
+			assertEquals(bruteForce(positions, amount, 5), toSet(pairs, amount));
+			assertTrue(detector.getLastCandidatePairCount() < amount*(amount - 1)/2);
+		}
+	}
+
+	@Test
+	public void testFindCollidingPairs_AcrossCellBorders() {
+		CollisionDetector detector = new CollisionDetector(5);
+		double[] positions = {
+				4.9, 0, 0,
+				5.1, 0, 0,
+				-0.1, 0, 0,
+				14.9, -5.1, 9.9,
+				15.1, -4.9, 10.1,
+				30, 30, 30
+		};
+
+		List<int[]> pairs = detector.findCollidingPairs(positions, 6);
+
+		assertEquals(bruteForce(positions, 6, 5), toSet(pairs, 6));
+		assertEquals(2, pairs.size());
+	}
+
+	@Test
+	public void testFindCollidingPairs_SweptPassThrough() {
+		CollisionDetector detector = new CollisionDetector(5);
+		//Two drones at 60 m/s in opposite directions during a step of 0.1 s, and a third one that stays away
+		double[] start = {-3, 10, 0, 3, 10.5, 0, 0, 10, 20};
+		double[] end = {3, 10, 0, -3, 10.5, 0, 0, 10, 19};
+
+		assertTrue(detector.findCollidingPairs(start, 3).isEmpty());
+		assertTrue(detector.findCollidingPairs(end, 3).isEmpty());
+		List<int[]> pairs = detector.findCollidingPairs(start, end, 3);
+		assertEquals(1, pairs.size());
+		assertArrayEquals(new int[] {0, 1}, pairs.get(0));
+	}
+
+	@Test
+	public void testFindCollidingPairs_SweptSameAsBruteForce() {
+		Random random = new Random(7);
+		CollisionDetector detector = new CollisionDetector();
+		for (int run = 0; run < 20; run++) {
+			int amount = 50 + random.nextInt(200);
+			double[] start = new double[3*amount];
+			double[] end = new double[3*amount];
+			for (int i = 0; i < 3*amount; i++) {
+				start[i] = random.nextGaussian()*60;
+				end[i] = start[i] + random.nextGaussian()*4;
+			}
+			List<int[]> pairs = detector.findCollidingPairs(start, end, amount);
+
+			//Sample the relative paths densely; pairs that only touch the collision distance may go either way
+			Set<Long> certain = new HashSet<>();
+			Set<Long> possible = new HashSet<>();
+			for (int i = 0; i < amount; i++) {
+				for (int j = i + 1; j < amount; j++) {
+					double minimum = Double.POSITIVE_INFINITY;
+					for (int k = 0; k <= 1000; k++) {
+						double t = k / 1000.0, squared = 0;
+						for (int c = 0; c < 3; c++) {
+							double delta = (start[3*i + c] + t*(end[3*i + c] - start[3*i + c]))
+									- (start[3*j + c] + t*(end[3*j + c] - start[3*j + c]));
+							squared += delta*delta;
+						}
+						minimum = Math.min(minimum, squared);
+					}
+					if (minimum < 25 - 0.01)
+						certain.add((long) i * amount + j);
+					if (minimum < 25 + 0.01)
+						possible.add((long) i * amount + j);
+				}
+			}
+			Set<Long> actual = toSet(pairs, amount);
+			assertTrue(actual.containsAll(certain));
+			assertTrue(possible.containsAll(actual));
+			assertTrue(detector.getLastCandidatePairCount() < amount*(amount - 1)/2);
+		}
+	}
+
+	@Test
+	public void testConstructor_IllegalDistance() {
+		assertThrows(IllegalArgumentException.class, () -> new CollisionDetector(0));
+		assertThrows(IllegalArgumentException.class, () -> new CollisionDetector(Double.NaN));
+	}
+}
@@ -0,0 +1,67 @@
+package be.kuleuven.cs.robijn.testbed;
+
+import be.kuleuven.cs.robijn.testbed.integration.*;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A class with tests for the integrators of the testbed, on a harmonic oscillator x'' = -x.
+ */
+public class StateIntegratorTest {
+
+	private static final Derivatives oscillator = (y, yDot) -> {
+		yDot[0] = y[1];
+		yDot[1] = -y[0];
+	};
+
+	private static double[] integrate(StateIntegrator integrator, double step, int steps) {
+		double[] y = {1, 0};
+		for (int i = 0; i < steps; i++)
+			integrator.integrate(oscillator, y, step);
+		return y;
+	}
+
+	@Test
+	public final void testRungeKutta() {
+		StateIntegrator integrator = IntegrationMethod.RUNGE_KUTTA.createIntegrator(2);
+		double[] y = integrate(integrator, 0.01, 100);
+		assertEquals(Math.cos(1), y[0], 1e-8);
+		assertEquals(-Math.sin(1), y[1], 1e-8);
+		assertEquals(400, integrator.getEvaluationCount());
+		assertEquals(100, integrator.getAcceptedStepCount());
+		assertEquals(0, integrator.getRejectedStepCount());
+	}
+
+	@Test
+	public final void testSemiImplicitEuler() {
+		StateIntegrator integrator = IntegrationMethod.SEMI_IMPLICIT_EULER.createIntegrator(2);
+		double[] y = integrate(integrator, 0.001, 1000);
+		assertEquals(Math.cos(1), y[0], 1e-3);
+		assertEquals(-Math.sin(1), y[1], 1e-3);
+		assertEquals(1000, integrator.getEvaluationCount());
+	}
+
+	@Test
+	public final void testAdaptiveRungeKutta() {
+		StateIntegrator integrator = IntegrationMethod.ADAPTIVE_RUNGE_KUTTA.createIntegrator(2);
+		double[] y = integrate(integrator, 1, 1);
+		assertEquals(Math.cos(1), y[0], 1e-5);
+		assertEquals(-Math.sin(1), y[1], 1e-5);
+		assertTrue(integrator.getAcceptedStepCount() > 1);
+		assertTrue(integrator.getRejectedStepCount() > 0);
+		assertEquals(1 + 6*(integrator.getAcceptedStepCount() + integrator.getRejectedStepCount()), integrator.getEvaluationCount());
+	}
+
+	@Test
+	public final void testAdaptiveRungeKutta_NonFiniteError() {
+		StateIntegrator integrator = IntegrationMethod.ADAPTIVE_RUNGE_KUTTA.createIntegrator(2);
+		double[] y = {1, 0};
+		assertThrows(IllegalStateException.class, () -> integrator.integrate((state, yDot) -> {
+			yDot[0] = Double.NaN;
+			yDot[1] = -state[0];
+		}, y, 1));
+		assertEquals(1, y[0]);
+	}
+}